@@ -0,0 +1,54 @@
+package benchmark;
+
+import disruptor.MarketDataEvent;
+import disruptor.MarketDataEventHandler;
+import org.openjdk.jmh.annotations.*;
+import throttle.ThrottlePolicy;
+import utils.ManualClock;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick cost of bar aggregation in the Disruptor handler: the same Zipf-skewed ticks with and without
+ * aggregateBars. Ticks are fed straight to the handler on simulated time (10 ticks per simulated ms, a flush
+ * at the end of every 100-tick batch), so the difference is the accumulation plus the wider published batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class BarAggregationBenchmark {
+
+    private static final int SYMBOL_COUNT = 10_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"false", "true"})
+    private boolean aggregateBars;
+
+    private final ManualClock clock = new ManualClock(TimeUnit.DAYS.toNanos(1));
+    private final MarketDataEvent event = new MarketDataEvent();
+    private Workload workload;
+    private MarketDataEventHandler handler;
+    private long sequence;
+
+    @Setup
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry(SYMBOL_COUNT);
+        for (int i = 0; i < SYMBOL_COUNT; i++) {
+            registry.idOf("SYM" + i);
+        }
+        workload = new Workload(SYMBOL_COUNT, 1.1, 42);
+        handler = new MarketDataEventHandler(data -> { }, registry, ThrottlePolicy.defaults(), clock, aggregateBars);
+    }
+
+    @Benchmark
+    public void onEvent() {
+        long tick = sequence++;
+        event.set(workload.nextSymbolId(), 100.0 + (tick & 1023) * 0.01, tick & 7, tick);
+        if (tick % 10 == 0) clock.advanceMillis(1);
+        handler.onEvent(event, tick, tick % BATCH_SIZE == BATCH_SIZE - 1);
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import metrics.MetricsSnapshot;
+import org.openjdk.jmh.annotations.*;
+import throttle.ThrottlePolicy;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Disruptor processor with and without a conflating ingress on Zipf-skewed feeds.
+ *
+ * The JMH score is producer throughput (ticks/sec through onMessage). After each iteration the consumer's
+ * work is printed: events it handled per tick sent. Without conflation that is 1; with it, ticks for a
+ * symbol already waiting in the ring never become events, so the ratio falls as the skew grows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ConflatingIngressBenchmark {
+
+    @Param({"false", "true"})
+    private boolean conflateAtIngress;
+
+    @Param({"1000", "100000"})
+    private int symbolCount;
+
+    @Param({"0", "1.1", "1.5"})
+    private double zipfExponent;
+
+    private Workload workload;
+    private LmaxDisruptorMarketDataProcessor processor;
+    private MetricsSnapshot iterationStart;
+    private long sent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry(symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            registry.idOf("SYM" + i);
+        }
+        workload = new Workload(symbolCount, zipfExponent, 42);
+        processor = LmaxDisruptorMarketDataProcessor.builder(data -> { })
+                .registry(registry)
+                .policy(ThrottlePolicy.defaults())
+                .conflateAtIngress(conflateAtIngress)
+                .build();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        iterationStart = processor.metrics();
+        sent = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportConsumerWork() {
+        MetricsSnapshot now = processor.metrics();
+        long consumed = now.ingested() - iterationStart.ingested();
+        long conflated = now.ingressConflated() - iterationStart.ingressConflated();
+        System.out.printf("%n  conflate=%b symbols=%d zipf=%.1f: sent=%d consumerEvents=%d (%.4f per tick) conflated=%d%n",
+                conflateAtIngress, symbolCount, zipfExponent, sent, consumed, (double) consumed / sent, conflated);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        processor.shutdown();
+    }
+
+    @Benchmark
+    public void onMessage() {
+        processor.onMessage(workload.nextSymbolId(), 100.0, sent++);
+    }
+}
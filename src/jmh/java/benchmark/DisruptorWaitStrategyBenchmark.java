@@ -0,0 +1,70 @@
+package benchmark;
+
+import disruptor.ConsumerThreadFactory;
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import disruptor.WaitStrategyType;
+import org.openjdk.jmh.annotations.*;
+import throttle.GcraRateLimiter;
+import throttle.ThrottlePolicy;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares end-to-end latency across wait strategies and ring sizes.
+ *
+ * Each invocation publishes one tick and spins until the consumer hands it to the publisher, so the
+ * measured time includes the consumer wake-up that the wait strategy controls. The throttle is opened
+ * up (interval 0, effectively unlimited budget) so every tick is published straight from onEvent.
+ * SampleTime reports p50/p99/p99.9/p99.99; BUSY_SPIN and YIELDING need a spare core to be meaningful.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class DisruptorWaitStrategyBenchmark {
+
+    @Param({"BLOCKING", "SLEEPING", "PHASED_BACKOFF", "YIELDING", "BUSY_SPIN"})
+    private WaitStrategyType waitStrategy;
+
+    @Param({"1024", "65536"})
+    private int ringSize;
+
+    private LmaxDisruptorMarketDataProcessor processor;
+    private final AtomicLong published = new AtomicLong();
+    private int symbolId;
+    private long sent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry();
+        symbolId = registry.idOf("AAPL");
+        ThrottlePolicy unthrottled = new ThrottlePolicy(new GcraRateLimiter(Integer.MAX_VALUE, 1, Integer.MAX_VALUE), 0);
+        processor = LmaxDisruptorMarketDataProcessor.builder(data -> published.incrementAndGet())
+                .registry(registry)
+                .policy(unthrottled)
+                .ringSize(ringSize)
+                .waitStrategy(waitStrategy)
+                .threadFactory(new ConsumerThreadFactory("md-consumer", true))
+                .build();
+        sent = published.get();
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        processor.shutdown();
+    }
+
+    @Benchmark
+    public long publishToConsumer() {
+        processor.onMessage(symbolId, 100.0, System.currentTimeMillis());
+        sent++;
+        while (published.get() < sent) {
+            Thread.onSpinWait();
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import codec.TickEncoder;
+import metrics.HistogramSnapshot;
+import org.openjdk.jmh.annotations.*;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every processor end to end, from onMessage to the downstream publish callback, under identical workloads.
+ *
+ * Each invocation sends one encoded tick through onMessage(ByteBuffer, offset), so the scheduler, ring and
+ * publish paths all run in the background exactly as in production. Ticks are drawn from a Workload
+ * (symbolCount ids, Zipf-skewed by zipfExponent) and paced at ticksPerSecond (0 sends as fast as
+ * onMessage returns) in bursts of burstSize back-to-back ticks.
+ *
+ * Reported:
+ * - JMH score: sustained ingest throughput in ticks/sec.
+ * - Per iteration: published/sec and tick-to-publish latency percentiles, measured at the publish callback
+ *   from the moment the published update was sent. Coalesced updates are never published, so this is how
+ *   fresh published data is. The driver is closed-loop: ticks delayed by a blocking onMessage are sent late
+ *   and their queueing delay is not counted.
+ * - gc.alloc.rate.norm (gc profiler, enabled in build.gradle): bytes allocated per tick, all threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class EndToEndLatencyBenchmark {
+
+    @Param({"disruptor", "deque", "blockingQueue", "sharded"})
+    private String processorType;
+
+    @Param({"10", "10000", "100000"})
+    private int symbolCount;
+
+    @Param({"0", "1.1"})
+    private double zipfExponent;
+
+    @Param({"100000"})
+    private int ticksPerSecond;
+
+    @Param({"1", "1000"})
+    private int burstSize;
+
+    @Param({"unthrottled"})
+    private String throttle;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TickEncoder.ENCODED_LENGTH);
+    private final TickEncoder encoder = new TickEncoder();
+    private Workload workload;
+    private ProcessorHarness harness;
+    private PublishLatencyRecorder recorder;
+    private long burstIntervalNanos;
+    private long nextBurstAt;
+    private int sentInBurst;
+    private long sent;
+    private long iterationStart;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry(symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            registry.idOf("SYM" + i);
+        }
+        workload = new Workload(symbolCount, zipfExponent, 42);
+        harness = ProcessorHarness.create(processorType, registry, throttle);
+        encoder.wrap(buffer, 0);
+        burstIntervalNanos = ticksPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos(burstSize) / ticksPerSecond;
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        recorder = new PublishLatencyRecorder();
+        harness.recordInto(recorder);
+        sent = 0;
+        iterationStart = System.nanoTime();
+        nextBurstAt = iterationStart;
+        sentInBurst = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        HistogramSnapshot latency = recorder.snapshot();
+        System.out.printf("%n  %s symbols=%d zipf=%.2f burst=%d: sent/sec=%.0f published/sec=%.0f"
+                        + " latencyUs p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                processorType, symbolCount, zipfExponent, burstSize, sent / seconds, recorder.published() / seconds,
+                latency.valueAtPercentile(50) / 1e3, latency.valueAtPercentile(99) / 1e3,
+                latency.valueAtPercentile(99.9) / 1e3, latency.max() / 1e3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("  %s%n", harness.metrics());
+        harness.shutdown();
+    }
+
+    @Benchmark
+    public void endToEnd() {
+        if (sentInBurst == 0 && burstIntervalNanos > 0) {
+            while (nextBurstAt - System.nanoTime() > 0) {
+                Thread.onSpinWait();
+            }
+            nextBurstAt += burstIntervalNanos;
+        }
+        if (++sentInBurst == burstSize) {
+            sentInBurst = 0;
+        }
+
+        encoder.symbolId(workload.nextSymbolId())
+                .price(100.0 + (sent & 1023) * 0.01)
+                .updateTime(System.nanoTime());
+        harness.target().onTick(buffer, 0);
+        sent++;
+    }
+}
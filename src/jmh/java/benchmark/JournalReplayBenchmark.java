@@ -0,0 +1,151 @@
+package benchmark;
+
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import eventdriven.BlockingQueueMarketDataProcessor;
+import journal.Journal;
+import journal.JournalReader;
+import journal.JournalReplayer;
+import journal.TickHandler;
+import org.openjdk.jmh.annotations.*;
+import sharded.ShardedMarketDataProcessor;
+import standard.DequeMarketDataProcessor;
+import throttle.SharedTokenBucket;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a tick journal into each processor at maximum speed; each iteration is one full replay.
+ *
+ * Point -Pjournal at a directory holding a production capture named "inbound" (as written by a
+ * JournalEventHandler) for the most realistic throughput figure. Without it, a synthetic capture of
+ * skewed ticks over 10,000 symbols is recorded first. Ticks/sec is printed after each iteration.
+ * The registry starts empty, as in a fresh process: replay rebuilds it from the capture's symbol definitions.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalReplayBenchmark {
+
+    private static final int SYNTHETIC_SYMBOLS = 10_000;
+    private static final int SYNTHETIC_TICKS = 2_000_000;
+
+    @Param({"disruptor", "deque", "blockingQueue", "sharded"})
+    private String processorType;
+
+    @Param({""})
+    private String journal;
+
+    private Path directory;
+    private SymbolRegistry registry;
+    private TickHandler target;
+    private Runnable shutdown;
+    private long replayed;
+    private long iterationStart;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        registry = new SymbolRegistry();
+        if (journal.isEmpty()) {
+            directory = Files.createTempDirectory("journal-replay");
+            recordSyntheticCapture();
+        } else {
+            directory = Paths.get(journal);
+        }
+
+        switch (processorType) {
+            case "disruptor": {
+                LmaxDisruptorMarketDataProcessor processor =
+                        new LmaxDisruptorMarketDataProcessor(data -> { }, registry, ThrottlePolicy.defaults());
+                target = processor::onMessage;
+                shutdown = processor::shutdown;
+                break;
+            }
+            case "deque": {
+                DequeMarketDataProcessor processor = new DequeMarketDataProcessor(registry, ThrottlePolicy.defaults()) {
+                    @Override
+                    public void publishAggregatedMarketData(MarketData data) {
+                    }
+                };
+                target = processor::onMessage;
+                shutdown = processor::shutdown;
+                break;
+            }
+            case "blockingQueue": {
+                BlockingQueueMarketDataProcessor processor =
+                        new BlockingQueueMarketDataProcessor(registry, ThrottlePolicy.defaults()) {
+                            @Override
+                            public void publishAggregatedMarketData(MarketData data) {
+                            }
+                        };
+                target = processor::onMessage;
+                shutdown = processor::shutdown;
+                break;
+            }
+            default: {
+                SharedTokenBucket budget = new SharedTokenBucket(ThrottlePolicy.DEFAULT_MAX_GLOBAL_RATE,
+                        ThrottlePolicy.DEFAULT_GLOBAL_WINDOW_MS, ThrottlePolicy.DEFAULT_MAX_GLOBAL_RATE / 10);
+                ShardedMarketDataProcessor processor = new ShardedMarketDataProcessor(4, registry, budget,
+                        new SymbolIntervals(ThrottlePolicy.DEFAULT_SYMBOL_INTERVAL_MS), Executors.defaultThreadFactory()) {
+                    @Override
+                    public void publishAggregatedMarketData(MarketData data) {
+                    }
+                };
+                target = processor::onMessage;
+                shutdown = processor::shutdown;
+            }
+        }
+    }
+
+    private void recordSyntheticCapture() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] symbols = new String[SYNTHETIC_SYMBOLS];
+        for (int i = 0; i < SYNTHETIC_SYMBOLS; i++) {
+            symbols[i] = "SYM" + i;
+        }
+        SymbolRegistry recording = new SymbolRegistry(); // The recording process's own, ids in order of first tick
+        try (Journal capture = new Journal(directory, "inbound")) {
+            for (int i = 0; i < SYNTHETIC_TICKS; i++) {
+                // Squaring a uniform variate skews activity towards the first names, like a few liquid ones
+                double u = random.nextDouble();
+                String symbol = symbols[(int) (u * u * SYNTHETIC_SYMBOLS)];
+                capture.appendTick(recording.idOf(symbol), symbol, 100.0 + random.nextDouble(), i);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        iterationStart = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRate() {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        System.out.printf("%n  %s replayed %d ticks, %.0f ticks/sec%n", processorType, replayed, replayed / seconds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shutdown.run();
+    }
+
+    @Benchmark
+    public long replayAtMaxSpeed() {
+        replayed = JournalReplayer.replay(new JournalReader(directory, "inbound"), registry, target,
+                JournalReplayer.Speed.MAX);
+        return replayed;
+    }
+}
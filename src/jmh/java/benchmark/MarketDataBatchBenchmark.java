@@ -0,0 +1,126 @@
+package benchmark;
+
+import disruptor.MarketDataConsumer;
+import disruptor.MarketDataEvent;
+import disruptor.MarketDataEventHandler;
+import org.openjdk.jmh.annotations.*;
+import throttle.GcraRateLimiter;
+import throttle.ThrottlePolicy;
+import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost per published message of per-message publish(MarketData) against publishBatch.
+ *
+ * The handler is driven directly: each invocation feeds one Disruptor batch of BATCH_SIZE distinct
+ * symbols, all of which are eligible, so one flush publishes all of them. The sink encodes each update
+ * into a ByteBuffer and writes it to /dev/null: once per message on the per-message path, once per
+ * flush on the batch path, which is the syscall amortization the batch API is for.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class MarketDataBatchBenchmark {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int MESSAGE_BYTES = Integer.BYTES + Double.BYTES + Long.BYTES;
+
+    private FileChannel devNull;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_SIZE * MESSAGE_BYTES);
+    private final MarketDataEvent event = new MarketDataEvent();
+
+    private MarketDataEventHandler perMessageHandler;
+    private MarketDataEventHandler batchHandler;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        devNull = FileChannel.open(Paths.get("/dev/null"), StandardOpenOption.WRITE);
+
+        MarketDataConsumer perMessage = data -> {
+            encode(data.getSymbolId(), data.getPrice(), data.getUpdateTime());
+            write();
+        };
+        MarketDataConsumer batched = new MarketDataConsumer() {
+            @Override
+            public void publish(MarketData data) {
+                throw new IllegalStateException("Expected publishBatch");
+            }
+
+            @Override
+            public void publishBatch(MarketDataBatch batch) {
+                for (int i = 0; i < batch.size(); i++) {
+                    encode(batch.symbolId(i), batch.price(i), batch.updateTime(i));
+                }
+                write();
+            }
+        };
+        perMessageHandler = new MarketDataEventHandler(perMessage, registry(), unthrottled());
+        batchHandler = new MarketDataEventHandler(batched, registry(), unthrottled());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        devNull.close();
+    }
+
+    private static SymbolRegistry registry() {
+        SymbolRegistry registry = new SymbolRegistry(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            registry.idOf("SYM" + i);
+        }
+        return registry;
+    }
+
+    private static ThrottlePolicy unthrottled() {
+        return new ThrottlePolicy(new GcraRateLimiter(Integer.MAX_VALUE, 1, Integer.MAX_VALUE), 0);
+    }
+
+    private void encode(int symbolId, double price, long updateTime) {
+        buffer.putInt(symbolId).putDouble(price).putLong(updateTime);
+    }
+
+    private void write() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                devNull.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void feedBatch(MarketDataEventHandler handler) {
+        long now = System.currentTimeMillis();
+        for (int id = 0; id < BATCH_SIZE; id++) {
+            event.set(id, 100.0 + id, now);
+            handler.onEvent(event, sequence++, id == BATCH_SIZE - 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void perMessagePublish() {
+        feedBatch(perMessageHandler);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchPublish() {
+        feedBatch(batchHandler);
+    }
+}
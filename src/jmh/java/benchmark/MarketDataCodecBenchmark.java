@@ -0,0 +1,78 @@
+package benchmark;
+
+import codec.TickDecoder;
+import codec.TickEncoder;
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import org.openjdk.jmh.annotations.*;
+import throttle.ThrottlePolicy;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ingesting a tick as a MarketData POJO against ingesting it as an encoded TickEncoder message.
+ *
+ * pojoOnMessage builds the MarketData a gateway would allocate today and hands it to onMessage;
+ * encodedOnMessage encodes into a reused direct buffer and hands the buffer over, which stays
+ * allocation-free end to end. encodeDecode isolates the codec cost. Run with the gc profiler
+ * (enabled in build.gradle) to compare gc.alloc.rate.norm.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class MarketDataCodecBenchmark {
+
+    private static final int SYMBOL_COUNT = 1000;
+
+    private LmaxDisruptorMarketDataProcessor processor;
+    private String[] symbols;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TickEncoder.ENCODED_LENGTH);
+    private final TickEncoder encoder = new TickEncoder();
+    private final TickDecoder decoder = new TickDecoder();
+
+    @Setup
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry();
+        symbols = new String[SYMBOL_COUNT];
+        for (int i = 0; i < SYMBOL_COUNT; i++) {
+            symbols[i] = "SYM" + i;
+            registry.idOf(symbols[i]);
+        }
+        processor = new LmaxDisruptorMarketDataProcessor(data -> { }, registry, ThrottlePolicy.defaults());
+    }
+
+    @TearDown
+    public void shutdown() {
+        processor.shutdown();
+    }
+
+    @Benchmark
+    public void pojoOnMessage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        processor.onMessage(new MarketData(symbols[random.nextInt(SYMBOL_COUNT)],
+                random.nextDouble(100.0, 200.0), System.currentTimeMillis()));
+    }
+
+    @Benchmark
+    public void encodedOnMessage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        encoder.wrap(buffer, 0)
+                .symbolId(random.nextInt(SYMBOL_COUNT))
+                .price(random.nextDouble(100.0, 200.0))
+                .updateTime(System.currentTimeMillis());
+        processor.onMessage(buffer, 0);
+    }
+
+    @Benchmark
+    public double encodeDecode() {
+        encoder.wrap(buffer, 0).symbolId(7).price(123.45).updateTime(System.currentTimeMillis());
+        decoder.wrap(buffer, 0);
+        return decoder.price() + decoder.symbolId() + decoder.updateTime();
+    }
+}
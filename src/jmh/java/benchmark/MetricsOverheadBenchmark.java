@@ -0,0 +1,100 @@
+package benchmark;
+
+import disruptor.MarketDataEvent;
+import disruptor.MarketDataEventHandler;
+import org.openjdk.jmh.annotations.*;
+import standard.DequeMarketDataProcessor;
+import throttle.ThrottlePolicy;
+import utils.ManualClock;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the hot-path metrics: the same simulated ticks with recording on (the default) and off.
+ *
+ * Each pair of benchmarks differs only in the fork's -Dmarketdata.metrics flag. Metrics off compiles the
+ * recording away, so (on - off) / off is the overhead; it should stay under 2%.
+ * Each invocation is one simulated 10ms tick of updatesPerTick updates over 10,000 symbols, as in
+ * ThrottleSimulationBenchmark, so both ingest (mostly coalescing) and publishing are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+
+    private static final int SYMBOL_COUNT = 10_000;
+    private static final long TICK_MS = 10;
+    private static final String METRICS_OFF = "-Dmarketdata.metrics=false";
+
+    @Param({"100", "1000"})
+    private int updatesPerTick;
+
+    private final ManualClock clock = new ManualClock(TimeUnit.DAYS.toNanos(1));
+    private final SplittableRandom random = new SplittableRandom(7);
+    private final MarketDataEvent event = new MarketDataEvent();
+    private MarketData[] ticks;
+    private DequeMarketDataProcessor deque;
+    private MarketDataEventHandler handler;
+    private long sequence;
+
+    @Setup
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry(SYMBOL_COUNT);
+        ticks = new MarketData[SYMBOL_COUNT];
+        for (int i = 0; i < SYMBOL_COUNT; i++) {
+            ticks[i] = registry.marketData("SYM" + i, 100.0 + i, 0);
+        }
+        deque = new DequeMarketDataProcessor(registry, ThrottlePolicy.defaults(), clock, false) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+            }
+        };
+        handler = new MarketDataEventHandler(data -> { }, registry, ThrottlePolicy.defaults(), clock);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void dequeMetricsOn() {
+        dequeTick();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = METRICS_OFF)
+    public void dequeMetricsOff() {
+        dequeTick();
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void disruptorHandlerMetricsOn() {
+        handlerTick();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = METRICS_OFF)
+    public void disruptorHandlerMetricsOff() {
+        handlerTick();
+    }
+
+    private void dequeTick() {
+        for (int i = 0; i < updatesPerTick; i++) {
+            deque.onMessage(ticks[random.nextInt(SYMBOL_COUNT)]);
+        }
+        clock.advanceMillis(TICK_MS);
+        deque.tick();
+    }
+
+    private void handlerTick() {
+        for (int i = 0; i < updatesPerTick; i++) {
+            event.set(random.nextInt(SYMBOL_COUNT), 100.0, 0);
+            handler.onEvent(event, sequence++, i == updatesPerTick - 1);
+        }
+        clock.advanceMillis(TICK_MS);
+        handler.onTimeout(sequence);
+    }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import com.lmax.disruptor.dsl.ProducerType;
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import org.openjdk.jmh.annotations.*;
+import throttle.ThrottlePolicy;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ProducerType.MULTI ingestion with 1, 2, 4 and 8 concurrent producer threads.
+ *
+ * Each group shares one processor between its producer threads, so the groups differ only in
+ * how many threads contend on the ring's sequencer. singleProducerBaseline is the SINGLE ring
+ * for comparison. SampleTime reports the p99/p99.9 tail of onMessage under that contention.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MultiProducerDisruptorBenchmark {
+
+    private static final int SYMBOL_COUNT = 1000;
+
+    @State(Scope.Group)
+    public static class SharedProcessor {
+        LmaxDisruptorMarketDataProcessor processor;
+        int[] symbolIds;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            SymbolRegistry registry = new SymbolRegistry();
+            symbolIds = new int[SYMBOL_COUNT];
+            for (int i = 0; i < SYMBOL_COUNT; i++) {
+                symbolIds[i] = registry.idOf("SYM" + i);
+            }
+            processor = new LmaxDisruptorMarketDataProcessor(data -> { }, registry, ThrottlePolicy.defaults(),
+                    ProducerType.MULTI);
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            processor.shutdown();
+        }
+
+        void publishRandomTick() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            processor.onMessage(symbolIds[random.nextInt(SYMBOL_COUNT)],
+                    random.nextDouble(100.0, 200.0), System.currentTimeMillis());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SingleProcessor {
+        LmaxDisruptorMarketDataProcessor processor;
+        int[] symbolIds;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            SymbolRegistry registry = new SymbolRegistry();
+            symbolIds = new int[SYMBOL_COUNT];
+            for (int i = 0; i < SYMBOL_COUNT; i++) {
+                symbolIds[i] = registry.idOf("SYM" + i);
+            }
+            processor = new LmaxDisruptorMarketDataProcessor(data -> { }, registry, ThrottlePolicy.defaults());
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            processor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void singleProducerBaseline(SingleProcessor state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        state.processor.onMessage(state.symbolIds[random.nextInt(SYMBOL_COUNT)],
+                random.nextDouble(100.0, 200.0), System.currentTimeMillis());
+    }
+
+    @Benchmark
+    @Group("producers1")
+    @GroupThreads(1)
+    public void oneProducer(SharedProcessor state) {
+        state.publishRandomTick();
+    }
+
+    @Benchmark
+    @Group("producers2")
+    @GroupThreads(2)
+    public void twoProducers(SharedProcessor state) {
+        state.publishRandomTick();
+    }
+
+    @Benchmark
+    @Group("producers4")
+    @GroupThreads(4)
+    public void fourProducers(SharedProcessor state) {
+        state.publishRandomTick();
+    }
+
+    @Benchmark
+    @Group("producers8")
+    @GroupThreads(8)
+    public void eightProducers(SharedProcessor state) {
+        state.publishRandomTick();
+    }
+}
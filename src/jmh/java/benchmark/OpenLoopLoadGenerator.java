@@ -0,0 +1,169 @@
+package benchmark;
+
+import codec.TickEncoder;
+import metrics.HistogramSnapshot;
+import metrics.LatencyHistogram;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open-loop load generator: sends ticks on a fixed schedule at a target rate, whether or not the processor
+ * keeps up, and measures every latency from the tick's intended send time. A closed-loop JMH benchmark
+ * waits for onMessage before sending the next tick, so a stall (e.g. ringBuffer.next() on a full ring)
+ * silently delays every tick queued behind it; here that queueing delay is counted (coordinated omission).
+ *
+ * Each processor is swept from fromRate upwards, multiplying by stepFactor, with a fresh instance per step.
+ * The sweep stops after the first saturated step: the generator ended more than one second behind schedule,
+ * or achieved less than 95% of the target rate. Each step prints one CSV row, so the output plots directly
+ * as throughput-vs-latency curves:
+ * - ingest: intended send time to onMessage returning, i.e. what the feed handler thread experiences.
+ * - publish: intended send time to the publish callback (the intended time is stamped into updateTime).
+ *
+ * Usage: ./gradlew openLoop -PopenLoopArgs="key=value ..."
+ * Keys (defaults): processors (disruptor,deque,blockingQueue,sharded), fromRate (10000), toRate (10000000),
+ * stepFactor (2), seconds (5), warmupSeconds (5), symbolCount (10000), zipfExponent (1.1), throttle (unthrottled).
+ */
+public final class OpenLoopLoadGenerator {
+
+    private static final double SATURATED_RATIO = 0.95;
+    private static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TickEncoder.ENCODED_LENGTH);
+    private final TickEncoder encoder = new TickEncoder().wrap(buffer, 0);
+    private final int symbolCount;
+    private final double zipfExponent;
+    private final String throttle;
+
+    OpenLoopLoadGenerator(int symbolCount, double zipfExponent, String throttle) {
+        this.symbolCount = symbolCount;
+        this.zipfExponent = zipfExponent;
+        this.throttle = throttle;
+    }
+
+    /**
+     * One point of a curve: a fresh processor driven at ratePerSec for the given duration.
+     */
+    static final class Result {
+        final long targetRate;
+        final double achievedRate;
+        final double publishedRate;
+        final long lagNanos;
+        final HistogramSnapshot ingestLatency;
+        final HistogramSnapshot publishLatency;
+
+        Result(long targetRate, double achievedRate, double publishedRate, long lagNanos,
+               HistogramSnapshot ingestLatency, HistogramSnapshot publishLatency) {
+            this.targetRate = targetRate;
+            this.achievedRate = achievedRate;
+            this.publishedRate = publishedRate;
+            this.lagNanos = lagNanos;
+            this.ingestLatency = ingestLatency;
+            this.publishLatency = publishLatency;
+        }
+
+        boolean saturated() {
+            return lagNanos > MAX_LAG_NANOS || achievedRate < targetRate * SATURATED_RATIO;
+        }
+    }
+
+    Result run(String processorType, long ratePerSec, long durationNanos) {
+        SymbolRegistry registry = new SymbolRegistry(symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            registry.idOf("SYM" + i);
+        }
+        Workload workload = new Workload(symbolCount, zipfExponent, 42);
+        ProcessorHarness harness = ProcessorHarness.create(processorType, registry, throttle);
+        PublishLatencyRecorder published = new PublishLatencyRecorder();
+        harness.recordInto(published);
+        LatencyHistogram ingestLatency = new LatencyHistogram();
+
+        double intervalNanos = 1e9 / ratePerSec;
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        long sent = 0;
+        long intended = start;
+        long lag = 0;
+        while (intended - end < 0) {
+            long now;
+            while ((now = System.nanoTime()) - intended < 0) {
+                Thread.onSpinWait();
+            }
+            lag = now - intended;
+            // Behind schedule, the tick is sent at once and its lateness is part of its latency
+            encoder.symbolId(workload.nextSymbolId())
+                    .price(100.0 + (sent & 1023) * 0.01)
+                    .updateTime(intended);
+            harness.target().onTick(buffer, 0);
+            ingestLatency.record(System.nanoTime() - intended);
+            sent++;
+            intended = start + (long) (sent * intervalNanos);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        harness.shutdown();
+        return new Result(ratePerSec, sent / seconds, published.published() / seconds, lag,
+                ingestLatency.snapshot(), published.snapshot());
+    }
+
+    public static void main(String[] args) {
+        Arguments arguments = new Arguments(args);
+        String[] processors = arguments.get("processors", "disruptor,deque,blockingQueue,sharded").split(",");
+        long fromRate = Long.parseLong(arguments.get("fromRate", "10000"));
+        long toRate = Long.parseLong(arguments.get("toRate", "10000000"));
+        double stepFactor = Double.parseDouble(arguments.get("stepFactor", "2"));
+        long stepNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(arguments.get("seconds", "5")));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(arguments.get("warmupSeconds", "5")));
+        if (fromRate <= 0 || stepFactor <= 1) {
+            throw new IllegalArgumentException("fromRate must be positive and stepFactor above 1");
+        }
+
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(
+                Integer.parseInt(arguments.get("symbolCount", "10000")),
+                Double.parseDouble(arguments.get("zipfExponent", "1.1")),
+                arguments.get("throttle", "unthrottled"));
+
+        System.out.println("processor,targetRate,achievedRate,publishedRate,lagMs,"
+                + "ingestP50Us,ingestP99Us,ingestP999Us,ingestMaxUs,"
+                + "publishP50Us,publishP99Us,publishP999Us,publishMaxUs,saturated");
+        for (String processor : processors) {
+            generator.run(processor, fromRate, warmupNanos); // JIT warmup, discarded
+            for (long rate = fromRate; rate <= toRate; rate = (long) Math.ceil(rate * stepFactor)) {
+                Result result = generator.run(processor, rate, stepNanos);
+                System.out.printf("%s,%d,%.0f,%.0f,%.1f,%s,%s,%b%n", processor, result.targetRate,
+                        result.achievedRate, result.publishedRate, result.lagNanos / 1e6,
+                        percentiles(result.ingestLatency), percentiles(result.publishLatency), result.saturated());
+                if (result.saturated()) break;
+            }
+        }
+    }
+
+    private static String percentiles(HistogramSnapshot latency) {
+        return String.format("%.1f,%.1f,%.1f,%.1f", latency.valueAtPercentile(50) / 1e3,
+                latency.valueAtPercentile(99) / 1e3, latency.valueAtPercentile(99.9) / 1e3, latency.max() / 1e3);
+    }
+
+    /**
+     * key=value command line arguments.
+     */
+    static final class Arguments {
+        private final Map<String, String> values = new HashMap<>();
+
+        Arguments(String[] args) {
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                values.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+
+        String get(String key, String defaultValue) {
+            return values.getOrDefault(key, defaultValue);
+        }
+    }
+}
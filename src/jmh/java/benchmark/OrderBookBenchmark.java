@@ -0,0 +1,137 @@
+package benchmark;
+
+import book.BookBuilder;
+import book.OrderBook;
+import book.Side;
+import org.openjdk.jmh.annotations.*;
+import throttle.ThrottlePolicy;
+import utils.Clock;
+import utils.SymbolRegistry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-thread cost of each book update type, on a book kept at a steady depth so every invocation does
+ * the same work:
+ * - modify: replaces the quantity of an existing level, the most common update on real feeds.
+ * - addDelete: inserts a new level inside the book and removes it again (two updates per invocation).
+ * - trade: executes against an existing level without using it up.
+ * - builderMixed: the whole BookBuilder path across Zipf-skewed symbols, 80% modify, 10% add/delete pairs and
+ *   10% trades, with a throttled flush every 100 updates.
+ *
+ * Levels are picked near the top of the book, where updates cluster; the per-op scores are updates/sec.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+
+    private static final int RANDOM_COUNT = 1 << 16;
+    private static final double TICK = 0.01;
+    private static final double MID = 100.0;
+
+    @Param({"10", "50"})
+    private int depth;
+
+    private OrderBook book;
+    private BookBuilder builder;
+    private Workload workload;
+    private final int[] levels = new int[RANDOM_COUNT];
+    private final int[] actions = new int[RANDOM_COUNT];
+    private int next;
+    private long time;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        book = new OrderBook(depth + 1);
+        fill(book, depth);
+
+        int symbolCount = 1000;
+        SymbolRegistry registry = new SymbolRegistry(symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            registry.idOf("SYM" + i);
+        }
+        workload = new Workload(symbolCount, 1.1, 42);
+        builder = new BookBuilder(snapshot -> { }, registry, ThrottlePolicy.defaults(), depth + 1,
+                BookBuilder.DEFAULT_SNAPSHOT_DEPTH, Clock.system());
+        for (int i = 0; i < symbolCount; i++) {
+            for (int level = 0; level < depth; level++) {
+                builder.add(i, Side.BID, MID - (level + 1) * TICK, Long.MAX_VALUE / 4, 0);
+                builder.add(i, Side.ASK, MID + (level + 1) * TICK, Long.MAX_VALUE / 4, 0);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < RANDOM_COUNT; i++) {
+            levels[i] = Math.min(random.nextInt(depth), random.nextInt(depth)); // skewed towards the top
+            actions[i] = random.nextInt(10);
+        }
+    }
+
+    private static void fill(OrderBook book, int depth) {
+        for (int level = 0; level < depth; level++) {
+            book.add(Side.BID, MID - (level + 1) * TICK, Long.MAX_VALUE / 4);
+            book.add(Side.ASK, MID + (level + 1) * TICK, Long.MAX_VALUE / 4);
+        }
+    }
+
+    private int nextLevel() {
+        return levels[next++ & (RANDOM_COUNT - 1)];
+    }
+
+    private static Side sideOf(int level) {
+        return (level & 1) == 0 ? Side.BID : Side.ASK;
+    }
+
+    private static double priceOf(Side side, int level) {
+        return side == Side.BID ? MID - (level + 1) * TICK : MID + (level + 1) * TICK;
+    }
+
+    @Benchmark
+    public boolean modify() {
+        int level = nextLevel();
+        Side side = sideOf(next);
+        return book.modify(side, priceOf(side, level), Long.MAX_VALUE / 4 - level);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean addDelete() {
+        int level = nextLevel();
+        Side side = sideOf(next);
+        double price = priceOf(side, level) + (side == Side.BID ? TICK / 2 : -TICK / 2); // between two levels
+        book.add(side, price, 100);
+        return book.delete(side, price);
+    }
+
+    @Benchmark
+    public boolean trade() {
+        int level = nextLevel();
+        Side side = sideOf(next);
+        return book.trade(side, priceOf(side, level), 1);
+    }
+
+    @Benchmark
+    public void builderMixed() {
+        int i = next;
+        int level = nextLevel();
+        int symbolId = workload.nextSymbolId();
+        Side side = sideOf(i);
+        double price = priceOf(side, level);
+        int action = actions[i & (RANDOM_COUNT - 1)];
+        if (action < 8) {
+            builder.modify(symbolId, side, price, Long.MAX_VALUE / 4 - action, time);
+        } else if (action == 8) {
+            double inside = price + (side == Side.BID ? TICK / 2 : -TICK / 2);
+            builder.add(symbolId, side, inside, 100, time);
+            builder.delete(symbolId, side, inside, time);
+        } else {
+            builder.trade(symbolId, side, price, 1, time);
+        }
+        if (++time % 100 == 0) builder.flush();
+    }
+}
@@ -0,0 +1,153 @@
+package benchmark;
+
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import disruptor.MarketDataConsumer;
+import eventdriven.BlockingQueueMarketDataProcessor;
+import journal.TickHandler;
+import metrics.MetricsSnapshot;
+import sharded.ShardedMarketDataProcessor;
+import standard.DequeMarketDataProcessor;
+import throttle.GcraRateLimiter;
+import throttle.SharedTokenBucket;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Builds any of the processors behind one interface, so the end-to-end benchmarks drive them all with
+ * identical workloads: ticks go in through onMessage(ByteBuffer, offset), every publish comes out as a
+ * batch into the current PublishLatencyRecorder.
+ *
+ * Throttle modes:
+ * - "unthrottled": no global budget and no per-symbol interval, so latency is the pipeline alone
+ *   (ring hand-off, or waiting for the next 10ms scheduler tick).
+ * - "defaults": the production limits (100/sec global, 1/sec per symbol); latency then includes
+ *   the time an update waits for its symbol's cooldown and the global budget.
+ */
+final class ProcessorHarness {
+
+    private static final int SHARDS = 4;
+
+    private final TickHandler target;
+    private final Supplier<MetricsSnapshot> metrics;
+    private final Runnable shutdown;
+    private volatile PublishLatencyRecorder recorder = new PublishLatencyRecorder();
+
+    private ProcessorHarness(String type, SymbolRegistry registry, String throttle) {
+        boolean unthrottled = isUnthrottled(throttle);
+        switch (type) {
+            case "disruptor": {
+                MarketDataConsumer consumer = new MarketDataConsumer() {
+                    @Override
+                    public void publish(MarketData data) {
+                        throw new IllegalStateException("Expected publishBatch");
+                    }
+
+                    @Override
+                    public void publishBatch(MarketDataBatch batch) {
+                        recorder.record(batch);
+                    }
+                };
+                LmaxDisruptorMarketDataProcessor processor =
+                        new LmaxDisruptorMarketDataProcessor(consumer, registry, policy(unthrottled));
+                target = processor::onMessage;
+                metrics = processor::metrics;
+                shutdown = processor::shutdown;
+                break;
+            }
+            case "deque": {
+                DequeMarketDataProcessor processor = new DequeMarketDataProcessor(registry, policy(unthrottled)) {
+                    @Override
+                    public void publishAggregatedBatch(MarketDataBatch batch) {
+                        recorder.record(batch);
+                    }
+                };
+                target = processor::onMessage;
+                metrics = processor::metrics;
+                shutdown = processor::shutdown;
+                break;
+            }
+            case "blockingQueue": {
+                BlockingQueueMarketDataProcessor processor =
+                        new BlockingQueueMarketDataProcessor(registry, policy(unthrottled)) {
+                            @Override
+                            public void publishAggregatedBatch(MarketDataBatch batch) {
+                                recorder.record(batch);
+                            }
+                        };
+                target = processor::onMessage;
+                metrics = processor::metrics;
+                shutdown = processor::shutdown;
+                break;
+            }
+            case "sharded": {
+                SharedTokenBucket budget = unthrottled
+                        ? new SharedTokenBucket(100_000_000, ThrottlePolicy.DEFAULT_GLOBAL_WINDOW_MS, 1_000_000)
+                        : new SharedTokenBucket(ThrottlePolicy.DEFAULT_MAX_GLOBAL_RATE,
+                        ThrottlePolicy.DEFAULT_GLOBAL_WINDOW_MS, ThrottlePolicy.DEFAULT_MAX_GLOBAL_RATE / 10);
+                SymbolIntervals intervals = new SymbolIntervals(unthrottled ? 0 : ThrottlePolicy.DEFAULT_SYMBOL_INTERVAL_MS);
+                ShardedMarketDataProcessor processor = new ShardedMarketDataProcessor(SHARDS, registry, budget,
+                        intervals, Executors.defaultThreadFactory()) {
+                    @Override
+                    public void publishAggregatedBatch(MarketDataBatch batch) {
+                        recorder.record(batch);
+                    }
+                };
+                target = processor::onMessage;
+                metrics = processor::metrics;
+                shutdown = processor::shutdown;
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown processor type: " + type);
+        }
+    }
+
+    /**
+     * @param registry Must already hold every symbol the workload sends.
+     */
+    static ProcessorHarness create(String type, SymbolRegistry registry, String throttle) {
+        return new ProcessorHarness(type, registry, throttle);
+    }
+
+    private static boolean isUnthrottled(String throttle) {
+        switch (throttle) {
+            case "unthrottled":
+                return true;
+            case "defaults":
+                return false;
+            default:
+                throw new IllegalArgumentException("Unknown throttle mode: " + throttle);
+        }
+    }
+
+    private static ThrottlePolicy policy(boolean unthrottled) {
+        return unthrottled
+                ? new ThrottlePolicy(new GcraRateLimiter(Integer.MAX_VALUE, 1, Integer.MAX_VALUE), 0)
+                : ThrottlePolicy.defaults();
+    }
+
+    TickHandler target() {
+        return target;
+    }
+
+    /**
+     * Publishes from now on are recorded into the given recorder, e.g. a fresh one per iteration.
+     */
+    void recordInto(PublishLatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    MetricsSnapshot metrics() {
+        return metrics.get();
+    }
+
+    void shutdown() {
+        shutdown.run();
+    }
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import metrics.HistogramSnapshot;
+import metrics.LatencyHistogram;
+import utils.MarketDataBatch;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Downstream sink for the end-to-end benchmarks. The driver stamps System.nanoTime() into each tick's
+ * updateTime, which every processor passes through untouched, so at the publish callback
+ * now - updateTime is the tick-to-publish latency of the update that went out.
+ *
+ * LatencyHistogram has a single writer, so each publishing thread (consumer, scheduler or shard thread)
+ * records into its own and snapshot() merges them. Only a thread's first publish allocates.
+ */
+final class PublishLatencyRecorder {
+
+    private final List<LatencyHistogram> histograms = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<LatencyHistogram> histogram = ThreadLocal.withInitial(() -> {
+        LatencyHistogram created = new LatencyHistogram();
+        histograms.add(created);
+        return created;
+    });
+    private final LongAdder published = new LongAdder();
+
+    void record(MarketDataBatch batch) {
+        long now = System.nanoTime();
+        LatencyHistogram recorder = histogram.get();
+        for (int i = 0; i < batch.size(); i++) {
+            recorder.record(now - batch.updateTime(i));
+        }
+        published.add(batch.size());
+    }
+
+    long published() {
+        return published.sum();
+    }
+
+    HistogramSnapshot snapshot() {
+        HistogramSnapshot total = HistogramSnapshot.EMPTY;
+        for (LatencyHistogram recorder : histograms) {
+            total = total.plus(recorder.snapshot());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import throttle.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one global throttle decision for each RateLimiter implementation.
+ * The clock advances 1ms every 8 calls, so every limiter spends most calls rejecting at its cap,
+ * like a publisher under saturation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+public class RateLimiterBenchmark {
+
+    @Param({"SLIDING_WINDOW", "FIXED_WINDOW", "TOKEN_BUCKET", "GCRA"})
+    private String limiterType;
+
+    private RateLimiter limiter;
+    private long calls;
+
+    @Setup
+    public void setup() {
+        switch (limiterType) {
+            case "SLIDING_WINDOW": limiter = new SlidingWindowRateLimiter(100, 1000); break;
+            case "FIXED_WINDOW": limiter = new FixedWindowRateLimiter(100, 1000); break;
+            case "TOKEN_BUCKET": limiter = new TokenBucketRateLimiter(100, 1000, 100); break;
+            case "GCRA": limiter = new GcraRateLimiter(100, 1000, 100); break;
+            default: throw new IllegalArgumentException(limiterType);
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return limiter.tryAcquire(calls++ >> 3);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sharded.ShardedMarketDataProcessor;
+import throttle.SharedTokenBucket;
+import throttle.SymbolIntervals;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how the sharded processor scales with the number of shards.
+ *
+ * All benchmark threads feed random ticks over a realistic symbol universe. The global budget
+ * is set high enough that publishing, not the limiter, is the bottleneck, and publishes go to
+ * a LongAdder instead of stdout. Each iteration prints published/sec; compare it across shardCount.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(Threads.MAX)
+@Warmup(iterations = 2, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+public class ShardedMarketDataProcessorBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int shardCount;
+
+    @Param({"10000", "50000"})
+    private int symbolCount;
+
+    private ShardedMarketDataProcessor processor;
+    private MarketData[] ticks;
+    private final LongAdder published = new LongAdder();
+    private long iterationStartNanos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry(symbolCount);
+        ticks = new MarketData[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            ticks[i] = registry.marketData("SYM" + i, 100.0 + i, System.currentTimeMillis());
+        }
+        SymbolIntervals intervals = new SymbolIntervals(10); // Short interval so every symbol keeps publishing
+        processor = new ShardedMarketDataProcessor(shardCount, registry,
+                new SharedTokenBucket(100_000_000, 1000, 1_000_000), intervals, Executors.defaultThreadFactory()) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+                published.increment();
+            }
+        };
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        published.reset();
+        iterationStartNanos = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportPublished() {
+        double seconds = (System.nanoTime() - iterationStartNanos) / 1e9;
+        System.out.printf("%n  shards=%d symbols=%d published/sec=%.0f%n", shardCount, symbolCount, published.sum() / seconds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        processor.shutdown();
+    }
+
+    @Benchmark
+    public void shardedOnMessage() {
+        processor.onMessage(ticks[ThreadLocalRandom.current().nextInt(symbolCount)]);
+    }
+}
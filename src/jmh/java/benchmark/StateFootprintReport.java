@@ -0,0 +1,197 @@
+package benchmark;
+
+import utils.MarketData;
+import utils.OffHeapSymbolState;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Heap footprint and GC cost of the per-symbol state layouts at large universes, which JMH does not report:
+ * - maps: the original String-keyed ConcurrentHashMaps of latest MarketData and boxed last publish times.
+ * - arrays: the id-indexed AtomicReferenceArray of MarketData and long arrays of the Deque, BlockingQueue and
+ *   sharded processors.
+ * - offHeap: the OffHeapSymbolState records of OffHeapMarketDataProcessor.
+ *
+ * For each layout and symbol count the state is filled with one update per symbol, as after the first second of
+ * a full universe, and then updated churnFactor times per symbol on random symbols. The heap layouts get a new
+ * MarketData per update, as onMessage(MarketData) does; offHeap gets the primitives, as onMessage(ByteBuffer)
+ * does. The symbol strings exist before the baseline, since the registry holds them in every layout.
+ *
+ * Each row prints the retained heap and direct memory of the state, the collections and their total time during
+ * the churn, and the time of a full System.gc() with the state live, which grows with the objects to mark.
+ * Run with the same -Xmx for every layout; the numbers are only comparable within one JVM configuration.
+ *
+ * Usage: ./gradlew stateFootprint -PstateFootprintArgs="key=value ..."
+ * Keys (defaults): layouts (maps,arrays,offHeap), symbols (100000,1000000), churnFactor (10).
+ */
+public final class StateFootprintReport {
+
+    /**
+     * The per-symbol state of one layout: what onMessage stores and what the publisher records.
+     */
+    private interface State {
+        void update(int id, String symbol, double price, long updateTime);
+
+        long offHeapBytes();
+    }
+
+    private static final class Maps implements State {
+        private final Map<String, MarketData> latestBySymbol = new ConcurrentHashMap<>();
+        private final Map<String, Long> lastPublishedTime = new ConcurrentHashMap<>();
+
+        @Override
+        public void update(int id, String symbol, double price, long updateTime) {
+            latestBySymbol.put(symbol, new MarketData(symbol, price, updateTime));
+            lastPublishedTime.put(symbol, updateTime);
+        }
+
+        @Override
+        public long offHeapBytes() {
+            return 0;
+        }
+    }
+
+    private static final class IdArrays implements State {
+        private final AtomicReferenceArray<MarketData> latestBySymbol;
+        private final long[] lastPublishedTime;
+        private final long[] pendingSince;
+        private final long[] pendingSinceNanos;
+
+        IdArrays(int capacity) {
+            latestBySymbol = new AtomicReferenceArray<>(capacity);
+            lastPublishedTime = new long[capacity];
+            pendingSince = new long[capacity];
+            pendingSinceNanos = new long[capacity];
+        }
+
+        @Override
+        public void update(int id, String symbol, double price, long updateTime) {
+            latestBySymbol.set(id, new MarketData(id, symbol, price, updateTime));
+            lastPublishedTime[id] = updateTime;
+            pendingSince[id] = updateTime;
+            pendingSinceNanos[id] = updateTime;
+        }
+
+        @Override
+        public long offHeapBytes() {
+            return 0;
+        }
+    }
+
+    private static final class OffHeap implements State {
+        private final OffHeapSymbolState state;
+
+        OffHeap(int capacity) {
+            state = new OffHeapSymbolState(capacity);
+        }
+
+        @Override
+        public void update(int id, String symbol, double price, long updateTime) {
+            state.update(id, price, updateTime);
+            state.setLastPublished(id, updateTime);
+            state.setPendingSinceNanos(id, updateTime);
+        }
+
+        @Override
+        public long offHeapBytes() {
+            return state.offHeapBytes();
+        }
+    }
+
+    private static State create(String layout, int capacity) {
+        switch (layout) {
+            case "maps":
+                return new Maps();
+            case "arrays":
+                return new IdArrays(capacity);
+            case "offHeap":
+                return new OffHeap(capacity);
+            default:
+                throw new IllegalArgumentException("Unknown layout " + layout);
+        }
+    }
+
+    public static void main(String[] args) {
+        OpenLoopLoadGenerator.Arguments arguments = new OpenLoopLoadGenerator.Arguments(args);
+        String[] layouts = arguments.get("layouts", "maps,arrays,offHeap").split(",");
+        String[] symbolCounts = arguments.get("symbols", "100000,1000000").split(",");
+        int churnFactor = Integer.parseInt(arguments.get("churnFactor", "10"));
+
+        System.out.println("layout,symbols,retainedHeapMB,offHeapMB,churnUpdates,churnGcCount,churnGcMs,fullGcMs");
+        for (String count : symbolCounts) {
+            int symbolCount = Integer.parseInt(count);
+            String[] symbols = new String[symbolCount];
+            for (int i = 0; i < symbolCount; i++) {
+                symbols[i] = "SYM" + i;
+            }
+            for (String layout : layouts) {
+                report(layout, symbols, churnFactor);
+            }
+        }
+    }
+
+    private static void report(String layout, String[] symbols, int churnFactor) {
+        int symbolCount = symbols.length;
+        long baseline = usedHeapAfterGc();
+        State state = create(layout, symbolCount);
+        for (int id = 0; id < symbolCount; id++) {
+            state.update(id, symbols[id], 100.0 + id, id);
+        }
+        long retained = Math.max(0, usedHeapAfterGc() - baseline);
+
+        SplittableRandom random = new SplittableRandom(42);
+        long churnUpdates = (long) symbolCount * churnFactor;
+        long collections = gcCount();
+        long gcMillis = gcMillis();
+        for (long i = 0; i < churnUpdates; i++) {
+            int id = random.nextInt(symbolCount);
+            state.update(id, symbols[id], 100.0 + (i & 1023), i);
+        }
+        collections = gcCount() - collections;
+        gcMillis = gcMillis() - gcMillis;
+
+        long start = System.nanoTime();
+        System.gc();
+        long fullGcNanos = System.nanoTime() - start;
+        Reference.reachabilityFence(state);
+
+        System.out.printf("%s,%d,%.1f,%.1f,%d,%d,%d,%.1f%n", layout, symbolCount, retained / 1e6,
+                state.offHeapBytes() / 1e6, churnUpdates, collections, gcMillis,
+                fullGcNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : gcBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : gcBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static List<GarbageCollectorMXBean> gcBeans() {
+        return ManagementFactory.getGarbageCollectorMXBeans();
+    }
+}
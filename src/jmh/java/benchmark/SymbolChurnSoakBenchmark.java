@@ -0,0 +1,91 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import standard.DequeMarketDataProcessor;
+import throttle.ThrottlePolicy;
+import throttle.TokenBucketRateLimiter;
+import utils.EvictionPolicy;
+import utils.ManualClock;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Soak test for symbol eviction: hours of churning symbols on simulated time.
+ *
+ * Each invocation is one simulated 10ms tick. A fixed set of 1,000 steady symbols keeps ticking while
+ * newSymbolsPerTick never-seen-before symbols arrive, tick once and go quiet (think expiring option
+ * series). Without eviction the registry would be full after capacity / (newSymbolsPerTick * 100) simulated
+ * seconds; with it, live symbols settle around churn rate * TTL.
+ *
+ * After every iteration the benchmark prints the simulated time, live and evicted symbols, and the heap
+ * used after a GC. Live symbols and heap should stay flat from one iteration to the next.
+ * Run it longer with -i / -r to soak for more simulated hours.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+@State(Scope.Thread)
+public class SymbolChurnSoakBenchmark {
+
+    private static final int CAPACITY = 1 << 18;
+    private static final int STEADY_SYMBOLS = 1_000;
+    private static final long TICK_MS = 10;
+
+    @Param({"60", "300"})
+    private int idleTtlSeconds;
+
+    @Param({"5"})
+    private int newSymbolsPerTick;
+
+    private final ManualClock clock = new ManualClock(TimeUnit.DAYS.toNanos(1));
+    private final SplittableRandom random = new SplittableRandom(7);
+    private final long startNanos = clock.nanoTime();
+    private SymbolRegistry registry;
+    private DequeMarketDataProcessor processor;
+    private String[] steady;
+    private long nextNewSymbol;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        registry = new SymbolRegistry(CAPACITY, EvictionPolicy.idleFor(TimeUnit.SECONDS.toMillis(idleTtlSeconds)));
+        steady = new String[STEADY_SYMBOLS];
+        for (int i = 0; i < STEADY_SYMBOLS; i++) {
+            steady[i] = "STEADY" + i;
+        }
+        // Budget well above the arrival rate, so new symbols are published and then free to go idle
+        ThrottlePolicy policy = new ThrottlePolicy(new TokenBucketRateLimiter(10_000, 1000, 1000),
+                ThrottlePolicy.DEFAULT_SYMBOL_INTERVAL_MS);
+        processor = new DequeMarketDataProcessor(registry, policy, clock, false) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+            }
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long usedMb = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+        double simulatedHours = (clock.nanoTime() - startNanos) / 3.6e12;
+        System.out.printf("%n  simulated=%.1fh live=%d evicted=%d seen=%d heapUsed=%dMB%n",
+                simulatedHours, registry.size(), registry.evictedSymbols(), nextNewSymbol + STEADY_SYMBOLS, usedMb);
+    }
+
+    @Benchmark
+    public void churnedTick() {
+        for (int i = 0; i < newSymbolsPerTick; i++) {
+            processor.onMessage(registry.marketData("NEW" + nextNewSymbol++, 1.0, 0));
+        }
+        for (int i = 0; i < 10; i++) {
+            processor.onMessage(registry.marketData(steady[random.nextInt(STEADY_SYMBOLS)], 100.0, 0));
+        }
+        clock.advanceMillis(TICK_MS);
+        processor.tick();
+    }
+}
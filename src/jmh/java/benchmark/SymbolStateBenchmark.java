@@ -0,0 +1,82 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import utils.MarketData;
+import utils.OffHeapSymbolState;
+import utils.SymbolRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compares the per-tick state update of the previous String-keyed ConcurrentHashMap layout
+ * against the SymbolRegistry id-indexed array layout now used by the processors, and the OffHeapSymbolState
+ * records of OffHeapMarketDataProcessor. For heap footprint and GC pauses at these sizes see StateFootprintReport.
+ *
+ * Each invocation stores the latest tick and reads the symbol's last publish time,
+ * which is the work onMessage and the eligibility check do per symbol.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+public class SymbolStateBenchmark {
+
+    @Param({"100", "10000", "50000", "100000", "1000000"})
+    private int symbolCount;
+
+    private MarketData[] ticks;
+
+    private final Map<String, MarketData> latestBySymbol = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastPublishedTime = new ConcurrentHashMap<>();
+
+    private AtomicReferenceArray<MarketData> latestById;
+    private long[] lastPublishedById;
+    private OffHeapSymbolState offHeapState;
+
+    @Setup
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry(symbolCount);
+        ticks = new MarketData[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            String symbol = "SYM" + i;
+            ticks[i] = registry.marketData(symbol, 100.0 + i, System.currentTimeMillis());
+            lastPublishedTime.put(symbol, 0L);
+        }
+        latestById = new AtomicReferenceArray<>(registry.capacity());
+        lastPublishedById = new long[registry.capacity()];
+        offHeapState = new OffHeapSymbolState(registry.capacity());
+    }
+
+    private MarketData randomTick() {
+        return ticks[ThreadLocalRandom.current().nextInt(symbolCount)];
+    }
+
+    @Benchmark
+    public long mapBased() {
+        MarketData data = randomTick();
+        latestBySymbol.put(data.getSymbol(), data);
+        return lastPublishedTime.getOrDefault(data.getSymbol(), 0L);
+    }
+
+    @Benchmark
+    public long idBased() {
+        MarketData data = randomTick();
+        int id = data.getSymbolId();
+        latestById.set(id, data);
+        return lastPublishedById[id];
+    }
+
+    @Benchmark
+    public long offHeap() {
+        MarketData data = randomTick();
+        int id = data.getSymbolId();
+        offHeapState.update(id, data.getPrice(), data.getUpdateTime());
+        return offHeapState.lastPublished(id);
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import disruptor.MarketDataEvent;
+import disruptor.MarketDataEventHandler;
+import org.openjdk.jmh.annotations.*;
+import standard.DequeMarketDataProcessor;
+import throttle.ThrottlePolicy;
+import utils.ManualClock;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the throttling logic alone on simulated time: no scheduler, no ring, no sleeping.
+ *
+ * Each invocation is one simulated 10ms tick: a burst of updates over a 10,000-symbol universe,
+ * then the clock advances and the tick publishes whatever is eligible. Simulated seconds per
+ * second = ops/s / 100.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ThrottleSimulationBenchmark {
+
+    private static final int SYMBOL_COUNT = 10_000;
+    private static final long TICK_MS = 10;
+
+    @Param({"10", "100"})
+    private int updatesPerTick;
+
+    private final ManualClock clock = new ManualClock(TimeUnit.DAYS.toNanos(1));
+    private final SplittableRandom random = new SplittableRandom(7);
+    private final MarketDataEvent event = new MarketDataEvent();
+    private MarketData[] ticks;
+    private DequeMarketDataProcessor deque;
+    private MarketDataEventHandler handler;
+    private long sequence;
+
+    @Setup
+    public void setup() {
+        SymbolRegistry registry = new SymbolRegistry(SYMBOL_COUNT);
+        ticks = new MarketData[SYMBOL_COUNT];
+        for (int i = 0; i < SYMBOL_COUNT; i++) {
+            ticks[i] = registry.marketData("SYM" + i, 100.0 + i, 0);
+        }
+        deque = new DequeMarketDataProcessor(registry, ThrottlePolicy.defaults(), clock, false) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+            }
+        };
+        handler = new MarketDataEventHandler(data -> { }, registry, ThrottlePolicy.defaults(), clock);
+    }
+
+    @Benchmark
+    public void dequeSimulatedTick() {
+        for (int i = 0; i < updatesPerTick; i++) {
+            deque.onMessage(ticks[random.nextInt(SYMBOL_COUNT)]);
+        }
+        clock.advanceMillis(TICK_MS);
+        deque.tick();
+    }
+
+    @Benchmark
+    public void disruptorHandlerSimulatedTick() {
+        for (int i = 0; i < updatesPerTick; i++) {
+            event.set(random.nextInt(SYMBOL_COUNT), 100.0, 0);
+            handler.onEvent(event, sequence++, i == updatesPerTick - 1);
+        }
+        clock.advanceMillis(TICK_MS);
+        handler.onTimeout(sequence);
+    }
+}
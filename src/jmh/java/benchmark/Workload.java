@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Precomputed stream of symbol ids shared by the end-to-end benchmarks, so every processor sees the
+ * same ticks in the same order and drawing the next symbol costs one array read.
+ *
+ * Symbols are drawn from a Zipf distribution over symbolCount ids: rank k is drawn with weight
+ * 1 / k^exponent, so exponent 0 is uniform and exponent ~1 matches the few-liquid-names skew of
+ * real feeds. Ranks are scattered over the ids, so hot symbols do not all land in the same shard.
+ */
+final class Workload {
+
+    private static final int LENGTH = 1 << 20;
+    private static final int MASK = LENGTH - 1;
+
+    private final int[] symbolIds = new int[LENGTH];
+    private int next;
+
+    Workload(int symbolCount, double zipfExponent, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] cumulative = new double[symbolCount];
+        double total = 0;
+        for (int rank = 0; rank < symbolCount; rank++) {
+            total += 1.0 / Math.pow(rank + 1, zipfExponent);
+            cumulative[rank] = total;
+        }
+        int[] idOfRank = shuffledIds(symbolCount, random);
+        for (int i = 0; i < LENGTH; i++) {
+            symbolIds[i] = idOfRank[rankOf(cumulative, random.nextDouble() * total)];
+        }
+    }
+
+    int nextSymbolId() {
+        return symbolIds[next++ & MASK];
+    }
+
+    /**
+     * @return the first rank whose cumulative weight exceeds the target.
+     */
+    private static int rankOf(double[] cumulative, double target) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] > target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int[] shuffledIds(int count, SplittableRandom random) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+}
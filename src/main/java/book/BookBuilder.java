@@ -0,0 +1,223 @@
+package book;
+
+import metrics.MetricsSnapshot;
+import metrics.ProcessorMetrics;
+import scheduler.PublishScheduler;
+import throttle.ThrottlePolicy;
+import utils.Clock;
+import utils.SymbolRegistry;
+
+/**
+ * BookBuilder maintains a price-level order book per symbol from incremental add/modify/delete/trade updates,
+ * and publishes throttled, coalesced book snapshots instead of last prices.
+ *
+ * Key Features:
+ * - Every update is applied to the book at once; only publishing is throttled. However many updates a symbol
+ *   receives during its cooldown, the consumer gets one snapshot of the book as it stands when it is published.
+ * - The same rate-limit path as the processors, a PublishScheduler: the per-symbol interval and global (or
+ *   tiered) budget of a ThrottlePolicy, oldest-eligible first (within each priority lane, if the policy has
+ *   lanes), and ProcessorMetrics. A book has no single price, so a SignificanceFilter in the policy is ignored.
+ * - Books are indexed by SymbolRegistry id and allocated on a symbol's first update; after that, updates and
+ *   flushes allocate nothing.
+ *
+ * Single-threaded, like the Disruptor handler: the thread decoding the feed applies updates and calls flush()
+ * at the end of each packet, and periodically while the feed is quiet so throttled books are still published.
+ *
+ * Time Complexity: O(log d) per update to an already changed book, O(log n) when a book becomes changed,
+ * plus O(k (log n + s)) per flush - Where d is the book depth, n the changed books, k the published books
+ * and s the snapshot depth.
+ */
+public class BookBuilder {
+
+    public static final int DEFAULT_MAX_DEPTH = 50;
+    public static final int DEFAULT_SNAPSHOT_DEPTH = 10;
+
+    private static final long SWEEP_INTERVAL_MS = 10;
+
+    private final OrderBook[] books;
+    private final int maxDepth;
+    private final long[] latestUpdateTime;
+    private final boolean[] pending;
+    private final Scheduler scheduler;
+    private final BookSnapshot snapshot;
+
+    private final BookSnapshotConsumer consumer;
+    private final SymbolRegistry registry;
+    private final Clock clock;
+    private final ProcessorMetrics metrics;
+
+    public BookBuilder(BookSnapshotConsumer consumer, SymbolRegistry registry, ThrottlePolicy policy) {
+        this(consumer, registry, policy, DEFAULT_MAX_DEPTH, DEFAULT_SNAPSHOT_DEPTH, Clock.system());
+    }
+
+    /**
+     * @param maxDepth      Levels tracked per side of each book.
+     * @param snapshotDepth Levels per side copied into each published snapshot, at most maxDepth.
+     */
+    public BookBuilder(BookSnapshotConsumer consumer, SymbolRegistry registry, ThrottlePolicy policy,
+                       int maxDepth, int snapshotDepth, Clock clock) {
+        if (maxDepth <= 0 || snapshotDepth <= 0 || snapshotDepth > maxDepth) {
+            throw new IllegalArgumentException("Need 0 < snapshotDepth <= maxDepth: " + snapshotDepth + ", " + maxDepth);
+        }
+        this.consumer = consumer;
+        this.registry = registry;
+        this.clock = clock;
+        this.maxDepth = maxDepth;
+        policy.bind(registry.capacity());
+        this.books = new OrderBook[registry.capacity()];
+        this.latestUpdateTime = new long[registry.capacity()];
+        this.pending = new boolean[registry.capacity()];
+        this.metrics = new ProcessorMetrics(false, policy.laneCount());
+        this.scheduler = new Scheduler(registry.capacity(), policy, metrics);
+        this.snapshot = new BookSnapshot(snapshotDepth);
+    }
+
+    public void add(int symbolId, Side side, double price, long quantity, long updateTime) {
+        if (book(symbolId).add(side, price, quantity)) changed(symbolId, updateTime);
+    }
+
+    public void modify(int symbolId, Side side, double price, long quantity, long updateTime) {
+        if (book(symbolId).modify(side, price, quantity)) changed(symbolId, updateTime);
+    }
+
+    public void delete(int symbolId, Side side, double price, long updateTime) {
+        if (book(symbolId).delete(side, price)) changed(symbolId, updateTime);
+    }
+
+    /**
+     * @param restingSide The side of the passive order the trade executed against.
+     */
+    public void trade(int symbolId, Side restingSide, double price, long quantity, long updateTime) {
+        if (book(symbolId).trade(restingSide, price, quantity)) changed(symbolId, updateTime);
+    }
+
+    /**
+     * @return the live book of a symbol, or null if it has had no updates. Only read it on the updating thread.
+     */
+    public OrderBook bookOf(int symbolId) {
+        return books[symbolId];
+    }
+
+    private OrderBook book(int symbolId) {
+        OrderBook book = books[symbolId];
+        if (book == null) {
+            book = new OrderBook(maxDepth);
+            books[symbolId] = book;
+        }
+        registry.touch(symbolId);
+        return book;
+    }
+
+    private void changed(int symbolId, long updateTime) {
+        // An update for an evicted symbol is never published; the book it touched is cleared before the id is reused
+        if (registry.symbolOf(symbolId) == null) return;
+        latestUpdateTime[symbolId] = updateTime;
+        if (pending[symbolId]) {
+            metrics.recordCoalesced();
+            return;
+        }
+        pending[symbolId] = true;
+        scheduler.becamePending(symbolId, clock.nanoTime());
+    }
+
+    /**
+     * Publishes a snapshot of every changed book that is eligible now, most urgent lane and oldest-eligible first,
+     * until the global quota runs out.
+     */
+    public void flush() {
+        scheduler.flush(clock.nanoTime());
+    }
+
+    /**
+     * Updates count as ingested; an update to a book that already has an unpublished change counts as coalesced.
+     */
+    public MetricsSnapshot metrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * The PublishScheduler over the changed books: every change is worth a snapshot, and intervals and lanes do
+     * not depend on a price.
+     */
+    private final class Scheduler extends PublishScheduler {
+
+        private final SymbolRegistry.SlotReclaimer reclaimer = this::reclaim;
+        private long lastSweepMs = NEVER_PUBLISHED;
+        private boolean published;
+
+        Scheduler(int capacity, ThrottlePolicy policy, ProcessorMetrics metrics) {
+            super(capacity, policy, metrics);
+        }
+
+        void becamePending(int symbolId, long nanos) {
+            setPendingSinceNanos(symbolId, nanos);
+            schedule(symbolId);
+        }
+
+        void flush(long nowNanos) {
+            published = false;
+            publishEligible(nowNanos);
+            long now = nowNanos / 1_000_000;
+            if (now - lastSweepMs >= SWEEP_INTERVAL_MS) {
+                lastSweepMs = now;
+                registry.sweep(now, reclaimer);
+            }
+            if (published) consumer.endOfFlush();
+        }
+
+        @Override
+        protected void capture(int symbolId) {
+            // The book is copied as it stands when it is published
+        }
+
+        @Override
+        protected double capturedPrice() {
+            return Double.NaN;
+        }
+
+        @Override
+        protected void publishCaptured(int symbolId) {
+            snapshot.copyFrom(symbolId, registry.symbolOf(symbolId), books[symbolId], latestUpdateTime[symbolId]);
+            consumer.publish(snapshot);
+            published = true;
+        }
+
+        @Override
+        protected boolean clearCaptured(int symbolId) {
+            pending[symbolId] = false;
+            return true;
+        }
+
+        @Override
+        protected double pendingPrice(int symbolId) {
+            return Double.NaN;
+        }
+
+        @Override
+        protected boolean isSignificant(int symbolId) {
+            return true;
+        }
+
+        @Override
+        protected long intervalMs(int symbolId) {
+            return policy.intervalMs(symbolId);
+        }
+
+        @Override
+        protected int lane(int symbolId) {
+            return policy.laneOf(symbolId);
+        }
+
+        /**
+         * Empties the book of a symbol the registry is evicting, unless it has an unpublished change.
+         * The book object is kept for whichever symbol gets the id next.
+         */
+        private boolean reclaim(int symbolId) {
+            if (pending[symbolId]) return false;
+            if (books[symbolId] != null) books[symbolId].clear();
+            resetSlot(symbolId);
+            policy.reset(symbolId);
+            return true;
+        }
+    }
+}
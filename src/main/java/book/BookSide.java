@@ -0,0 +1,162 @@
+package book;
+
+/**
+ * BookSide holds the price levels of one side of an order book in two parallel primitive arrays,
+ * sorted from the worst level to the best, so most updates (which land at or near the top of the book)
+ * shift few or no elements.
+ *
+ * Key Features:
+ * - No boxing and no allocation after construction: a double[] of prices and a long[] of quantities.
+ * - Bounded depth: when the side is full, a new level better than the worst one pushes the worst one out,
+ *   and a level worse than all of them is not tracked. maxDepth should comfortably exceed the published depth.
+ * - Levels are read best first: price(0) is the best bid or the best ask.
+ *
+ * Time Complexity: O(log d) to find a level, plus O(k) to insert or remove it - Where d is the depth and
+ * k is the number of levels better than it.
+ * Space Complexity: O(maxDepth)
+ * Not thread-safe: owned by the thread applying updates.
+ */
+public final class BookSide {
+
+    private final boolean bid;
+    private final double[] prices;
+    private final long[] quantities;
+    private int depth;
+
+    BookSide(Side side, int maxDepth) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        this.bid = side == Side.BID;
+        this.prices = new double[maxDepth];
+        this.quantities = new long[maxDepth];
+    }
+
+    /**
+     * Adds quantity to the level at price, creating it if needed.
+     *
+     * @return false if the level is beyond the tracked depth and was ignored.
+     */
+    boolean add(double price, long quantity) {
+        int index = search(price);
+        if (index >= 0) {
+            quantities[index] += quantity;
+            return true;
+        }
+        return insert(-index - 1, price, quantity);
+    }
+
+    /**
+     * Sets the level at price to quantity: creates it if needed, removes it if quantity is not positive.
+     *
+     * @return false if nothing tracked changed.
+     */
+    boolean set(double price, long quantity) {
+        int index = search(price);
+        if (quantity <= 0) {
+            if (index < 0) return false;
+            removeAt(index);
+            return true;
+        }
+        if (index >= 0) {
+            quantities[index] = quantity;
+            return true;
+        }
+        return insert(-index - 1, price, quantity);
+    }
+
+    /**
+     * Takes quantity off the level at price, removing the level once it is used up.
+     *
+     * @return false if no such level is tracked.
+     */
+    boolean reduce(double price, long quantity) {
+        int index = search(price);
+        if (index < 0) return false;
+        quantities[index] -= quantity;
+        if (quantities[index] <= 0) removeAt(index);
+        return true;
+    }
+
+    /**
+     * @return false if no such level is tracked.
+     */
+    boolean remove(double price) {
+        int index = search(price);
+        if (index < 0) return false;
+        removeAt(index);
+        return true;
+    }
+
+    void clear() {
+        depth = 0;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * @param level 0 for the best level.
+     */
+    public double price(int level) {
+        return prices[depth - 1 - level];
+    }
+
+    /**
+     * @param level 0 for the best level.
+     */
+    public long quantity(int level) {
+        return quantities[depth - 1 - level];
+    }
+
+    /**
+     * @return the best price, or NaN if the side is empty.
+     */
+    public double bestPrice() {
+        return depth == 0 ? Double.NaN : prices[depth - 1];
+    }
+
+    /**
+     * @return the array index of the level, or -(insertion point) - 1 if it is not tracked.
+     */
+    private int search(double price) {
+        int low = 0;
+        int high = depth - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            double candidate = prices[mid];
+            if (candidate == price) return mid;
+            if (bid ? candidate > price : candidate < price) {
+                high = mid - 1; // candidate is the better level, so price sits below it
+            } else {
+                low = mid + 1;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private boolean insert(int index, double price, long quantity) {
+        if (quantity <= 0) return false;
+        if (depth == prices.length) {
+            if (index == 0) return false; // Worse than every tracked level
+            // Drop the worst level and shift the worse half down into its place
+            System.arraycopy(prices, 1, prices, 0, index - 1);
+            System.arraycopy(quantities, 1, quantities, 0, index - 1);
+            index--;
+        } else {
+            System.arraycopy(prices, index, prices, index + 1, depth - index);
+            System.arraycopy(quantities, index, quantities, index + 1, depth - index);
+            depth++;
+        }
+        prices[index] = price;
+        quantities[index] = quantity;
+        return true;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(prices, index + 1, prices, index, depth - index - 1);
+        System.arraycopy(quantities, index + 1, quantities, index, depth - index - 1);
+        depth--;
+    }
+}
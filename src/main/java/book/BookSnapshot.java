@@ -0,0 +1,111 @@
+package book;
+
+/**
+ * BookSnapshot is a reusable copy of the top levels of one symbol's book, as handed to a BookSnapshotConsumer.
+ *
+ * Key Features:
+ * - Fixed-size primitive columns sized to the builder's snapshot depth; filling it allocates nothing.
+ * - Owned and reused by the publishing thread; a consumer must copy anything it keeps after publish returns.
+ */
+public final class BookSnapshot {
+
+    private final double[] bidPrices;
+    private final long[] bidQuantities;
+    private final double[] askPrices;
+    private final long[] askQuantities;
+    private int bidDepth;
+    private int askDepth;
+    private int symbolId;
+    private String symbol;
+    private double lastTradePrice;
+    private long lastTradeQuantity;
+    private long tradedVolume;
+    private long updateTime;
+
+    BookSnapshot(int depth) {
+        this.bidPrices = new double[depth];
+        this.bidQuantities = new long[depth];
+        this.askPrices = new double[depth];
+        this.askQuantities = new long[depth];
+    }
+
+    void copyFrom(int symbolId, String symbol, OrderBook book, long updateTime) {
+        this.symbolId = symbolId;
+        this.symbol = symbol;
+        this.bidDepth = copy(book.bids(), bidPrices, bidQuantities);
+        this.askDepth = copy(book.asks(), askPrices, askQuantities);
+        this.lastTradePrice = book.lastTradePrice();
+        this.lastTradeQuantity = book.lastTradeQuantity();
+        this.tradedVolume = book.tradedVolume();
+        this.updateTime = updateTime;
+    }
+
+    private static int copy(BookSide side, double[] prices, long[] quantities) {
+        int depth = Math.min(side.depth(), prices.length);
+        for (int level = 0; level < depth; level++) {
+            prices[level] = side.price(level);
+            quantities[level] = side.quantity(level);
+        }
+        return depth;
+    }
+
+    public int symbolId() {
+        return symbolId;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public int bidDepth() {
+        return bidDepth;
+    }
+
+    public int askDepth() {
+        return askDepth;
+    }
+
+    /**
+     * @param level 0 for the best bid.
+     */
+    public double bidPrice(int level) {
+        return bidPrices[level];
+    }
+
+    public long bidQuantity(int level) {
+        return bidQuantities[level];
+    }
+
+    /**
+     * @param level 0 for the best ask.
+     */
+    public double askPrice(int level) {
+        return askPrices[level];
+    }
+
+    public long askQuantity(int level) {
+        return askQuantities[level];
+    }
+
+    /**
+     * @return the last trade price, or NaN if the symbol has not traded.
+     */
+    public double lastTradePrice() {
+        return lastTradePrice;
+    }
+
+    public long lastTradeQuantity() {
+        return lastTradeQuantity;
+    }
+
+    public long tradedVolume() {
+        return tradedVolume;
+    }
+
+    /**
+     * @return the update time of the latest update applied before this snapshot.
+     */
+    public long updateTime() {
+        return updateTime;
+    }
+}
@@ -0,0 +1,16 @@
+package book;
+
+@FunctionalInterface
+public interface BookSnapshotConsumer {
+
+    /**
+     * Receives one symbol's book. The snapshot is reused afterwards, so copy anything that must outlive this call.
+     */
+    void publish(BookSnapshot snapshot);
+
+    /**
+     * Called once after every flush that published at least one snapshot, e.g. to write them out with one syscall.
+     */
+    default void endOfFlush() {
+    }
+}
@@ -0,0 +1,92 @@
+package book;
+
+/**
+ * OrderBook is the aggregated price-level (L2) book of one symbol: bids, asks and the last trade.
+ *
+ * Key Features:
+ * - Applies incremental updates in place: add and modify a level, delete a level, and trades, which take
+ *   quantity off the resting level they executed against.
+ * - Each update reports whether it changed anything tracked, so a builder only republishes real changes.
+ *
+ * Space Complexity: O(maxDepth) per side.
+ * Not thread-safe: owned by the thread applying updates.
+ */
+public final class OrderBook {
+
+    private final BookSide bids;
+    private final BookSide asks;
+    private double lastTradePrice = Double.NaN;
+    private long lastTradeQuantity;
+    private long tradedVolume;
+
+    public OrderBook(int maxDepth) {
+        this.bids = new BookSide(Side.BID, maxDepth);
+        this.asks = new BookSide(Side.ASK, maxDepth);
+    }
+
+    /**
+     * Adds quantity to a level, e.g. for a new order.
+     */
+    public boolean add(Side side, double price, long quantity) {
+        return side(side).add(price, quantity);
+    }
+
+    /**
+     * Replaces a level's total quantity; a quantity of 0 deletes the level.
+     */
+    public boolean modify(Side side, double price, long quantity) {
+        return side(side).set(price, quantity);
+    }
+
+    public boolean delete(Side side, double price) {
+        return side(side).remove(price);
+    }
+
+    /**
+     * Records a trade and takes its quantity off the resting level it executed against.
+     *
+     * @param restingSide The side of the passive order, e.g. ASK when a buyer lifted the offer.
+     */
+    public boolean trade(Side restingSide, double price, long quantity) {
+        lastTradePrice = price;
+        lastTradeQuantity = quantity;
+        tradedVolume += quantity;
+        side(restingSide).reduce(price, quantity);
+        return true; // The last trade itself always changes
+    }
+
+    /**
+     * Empties both sides and forgets the last trade.
+     */
+    public void clear() {
+        bids.clear();
+        asks.clear();
+        lastTradePrice = Double.NaN;
+        lastTradeQuantity = 0;
+        tradedVolume = 0;
+    }
+
+    public BookSide bids() {
+        return bids;
+    }
+
+    public BookSide asks() {
+        return asks;
+    }
+
+    public double lastTradePrice() {
+        return lastTradePrice;
+    }
+
+    public long lastTradeQuantity() {
+        return lastTradeQuantity;
+    }
+
+    public long tradedVolume() {
+        return tradedVolume;
+    }
+
+    private BookSide side(Side side) {
+        return side == Side.BID ? bids : asks;
+    }
+}
@@ -0,0 +1,6 @@
+package book;
+
+public enum Side {
+    BID,
+    ASK
+}
@@ -0,0 +1,72 @@
+package codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The 8-byte header in front of every message, in the SBE layout:
+ *
+ * <pre>
+ * offset 0  uint16 blockLength  length of the fixed block that follows
+ * offset 2  uint16 templateId   which message this is
+ * offset 4  uint16 schemaId
+ * offset 6  uint16 version
+ * </pre>
+ *
+ * All fields are little-endian. A decoder checks the template id and reads the block length,
+ * so later versions can append fields without breaking older readers.
+ *
+ * Schema versions:
+ * - 1: the first layout.
+ * - 2: appended the tick's quantity (TickEncoder block length 20 to 28). Decoders still accept version 1 ticks
+ *   and read their quantity as 0.
+ * - 3: added the symbol definition (SymbolEncoder, template 3), journaled ahead of the first record of each id.
+ *   Earlier templates are unchanged.
+ */
+public final class MessageHeader {
+
+    public static final int ENCODED_LENGTH = 8;
+    public static final int SCHEMA_ID = 1;
+    public static final int SCHEMA_VERSION = 3;
+
+    private static final int BLOCK_LENGTH_OFFSET = 0;
+    private static final int TEMPLATE_ID_OFFSET = 2;
+    private static final int SCHEMA_ID_OFFSET = 4;
+    private static final int VERSION_OFFSET = 6;
+
+    private MessageHeader() {
+    }
+
+    static void write(ByteBuffer buffer, int offset, int blockLength, int templateId) {
+        Wire.putUnsignedShort(buffer, offset + BLOCK_LENGTH_OFFSET, blockLength);
+        Wire.putUnsignedShort(buffer, offset + TEMPLATE_ID_OFFSET, templateId);
+        Wire.putUnsignedShort(buffer, offset + SCHEMA_ID_OFFSET, SCHEMA_ID);
+        Wire.putUnsignedShort(buffer, offset + VERSION_OFFSET, SCHEMA_VERSION);
+    }
+
+    public static int blockLength(ByteBuffer buffer, int offset) {
+        return Wire.getUnsignedShort(buffer, offset + BLOCK_LENGTH_OFFSET);
+    }
+
+    public static int templateId(ByteBuffer buffer, int offset) {
+        return Wire.getUnsignedShort(buffer, offset + TEMPLATE_ID_OFFSET);
+    }
+
+    public static int schemaId(ByteBuffer buffer, int offset) {
+        return Wire.getUnsignedShort(buffer, offset + SCHEMA_ID_OFFSET);
+    }
+
+    public static int version(ByteBuffer buffer, int offset) {
+        return Wire.getUnsignedShort(buffer, offset + VERSION_OFFSET);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the message at offset is not the expected template of this schema.
+     */
+    static void check(ByteBuffer buffer, int offset, int templateId, int minBlockLength) {
+        if (schemaId(buffer, offset) != SCHEMA_ID || templateId(buffer, offset) != templateId
+                || blockLength(buffer, offset) < minBlockLength) {
+            throw new IllegalArgumentException("Not a template " + templateId + " message at offset " + offset
+                    + ": schema " + schemaId(buffer, offset) + ", template " + templateId(buffer, offset));
+        }
+    }
+}
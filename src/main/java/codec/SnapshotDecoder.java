@@ -0,0 +1,47 @@
+package codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight decoder for a snapshot written by SnapshotEncoder. Reads fields in place without allocating.
+ */
+public final class SnapshotDecoder {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int encodedLength;
+
+    /**
+     * @throws IllegalArgumentException if the buffer does not hold a snapshot at offset.
+     */
+    public SnapshotDecoder wrap(ByteBuffer buffer, int offset) {
+        MessageHeader.check(buffer, offset, SnapshotEncoder.TEMPLATE_ID, SnapshotEncoder.BLOCK_LENGTH);
+        this.buffer = buffer;
+        this.offset = offset;
+        this.encodedLength = MessageHeader.ENCODED_LENGTH + MessageHeader.blockLength(buffer, offset);
+        return this;
+    }
+
+    public int symbolId() {
+        return Wire.getInt(buffer, offset + SnapshotEncoder.SYMBOL_ID_OFFSET);
+    }
+
+    public double price() {
+        return Wire.getDouble(buffer, offset + SnapshotEncoder.PRICE_OFFSET);
+    }
+
+    public long updateTime() {
+        return Wire.getLong(buffer, offset + SnapshotEncoder.UPDATE_TIME_OFFSET);
+    }
+
+    public long publishTime() {
+        return Wire.getLong(buffer, offset + SnapshotEncoder.PUBLISH_TIME_OFFSET);
+    }
+
+    /**
+     * @return the length of the wrapped message, which may be longer than this version's layout.
+     */
+    public int encodedLength() {
+        return encodedLength;
+    }
+}
@@ -0,0 +1,79 @@
+package codec;
+
+import utils.MarketDataBatch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight encoder for a published snapshot: the coalesced tick plus the time it was published.
+ *
+ * <pre>
+ * offset 0   header    (MessageHeader, templateId 2)
+ * offset 8   int32     symbolId
+ * offset 12  double    price
+ * offset 20  int64     updateTime   epoch millis of the tick
+ * offset 28  int64     publishTime  epoch millis when the processor published it
+ * </pre>
+ */
+public final class SnapshotEncoder {
+
+    public static final int TEMPLATE_ID = 2;
+    public static final int BLOCK_LENGTH = 28;
+    public static final int ENCODED_LENGTH = MessageHeader.ENCODED_LENGTH + BLOCK_LENGTH;
+
+    static final int SYMBOL_ID_OFFSET = MessageHeader.ENCODED_LENGTH;
+    static final int PRICE_OFFSET = SYMBOL_ID_OFFSET + Integer.BYTES;
+    static final int UPDATE_TIME_OFFSET = PRICE_OFFSET + Double.BYTES;
+    static final int PUBLISH_TIME_OFFSET = UPDATE_TIME_OFFSET + Long.BYTES;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    public SnapshotEncoder wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        MessageHeader.write(buffer, offset, BLOCK_LENGTH, TEMPLATE_ID);
+        return this;
+    }
+
+    public SnapshotEncoder symbolId(int symbolId) {
+        Wire.putInt(buffer, offset + SYMBOL_ID_OFFSET, symbolId);
+        return this;
+    }
+
+    public SnapshotEncoder price(double price) {
+        Wire.putDouble(buffer, offset + PRICE_OFFSET, price);
+        return this;
+    }
+
+    public SnapshotEncoder updateTime(long updateTime) {
+        Wire.putLong(buffer, offset + UPDATE_TIME_OFFSET, updateTime);
+        return this;
+    }
+
+    public SnapshotEncoder publishTime(long publishTime) {
+        Wire.putLong(buffer, offset + PUBLISH_TIME_OFFSET, publishTime);
+        return this;
+    }
+
+    public int encodedLength() {
+        return ENCODED_LENGTH;
+    }
+
+    /**
+     * Encodes every entry of a published batch back to back, e.g. for a single write downstream.
+     *
+     * @return the offset just past the last snapshot written.
+     */
+    public int encode(MarketDataBatch batch, long publishTime, ByteBuffer buffer, int offset) {
+        for (int i = 0; i < batch.size(); i++) {
+            wrap(buffer, offset)
+                    .symbolId(batch.symbolId(i))
+                    .price(batch.price(i))
+                    .updateTime(batch.updateTime(i))
+                    .publishTime(publishTime);
+            offset += ENCODED_LENGTH;
+        }
+        return offset;
+    }
+}
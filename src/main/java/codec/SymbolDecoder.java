@@ -0,0 +1,45 @@
+package codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight decoder for a symbol definition written by SymbolEncoder. Only symbol() allocates, for the name.
+ */
+public final class SymbolDecoder {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int symbolOffset;
+
+    /**
+     * @throws IllegalArgumentException if the buffer does not hold a symbol definition at offset.
+     */
+    public SymbolDecoder wrap(ByteBuffer buffer, int offset) {
+        MessageHeader.check(buffer, offset, SymbolEncoder.TEMPLATE_ID, SymbolEncoder.BLOCK_LENGTH);
+        this.buffer = buffer;
+        this.offset = offset;
+        // The name follows the fixed block, wherever a later version ends it
+        this.symbolOffset = offset + MessageHeader.ENCODED_LENGTH + MessageHeader.blockLength(buffer, offset);
+        return this;
+    }
+
+    public int symbolId() {
+        return Wire.getInt(buffer, offset + SymbolEncoder.SYMBOL_ID_OFFSET);
+    }
+
+    public int symbolLength() {
+        return Wire.getUnsignedShort(buffer, offset + SymbolEncoder.LENGTH_OFFSET);
+    }
+
+    public String symbol() {
+        return new String(Wire.getBytes(buffer, symbolOffset, symbolLength()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the length of the wrapped message, name included.
+     */
+    public int encodedLength() {
+        return symbolOffset - offset + symbolLength();
+    }
+}
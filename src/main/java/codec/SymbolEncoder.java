@@ -0,0 +1,84 @@
+package codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight encoder for a symbol definition: the name behind a SymbolRegistry id, so a reader in another process
+ * can map the ids of the ticks and snapshots that follow back to their symbols.
+ *
+ * <pre>
+ * offset 0   header    (MessageHeader, templateId 3)
+ * offset 8   int32     symbolId
+ * offset 12  uint16    length     bytes of the name that follows
+ * offset 14  bytes     symbol     UTF-8, up to MAX_SYMBOL_LENGTH bytes
+ * </pre>
+ *
+ * The name is variable-length data after the fixed block, so the message is ENCODED_LENGTH plus its name.
+ */
+public final class SymbolEncoder {
+
+    public static final int TEMPLATE_ID = 3;
+    public static final int BLOCK_LENGTH = 6;
+    public static final int ENCODED_LENGTH = MessageHeader.ENCODED_LENGTH + BLOCK_LENGTH;
+    public static final int MAX_SYMBOL_LENGTH = 255;
+    public static final int MAX_ENCODED_LENGTH = ENCODED_LENGTH + MAX_SYMBOL_LENGTH;
+
+    static final int SYMBOL_ID_OFFSET = MessageHeader.ENCODED_LENGTH;
+    static final int LENGTH_OFFSET = SYMBOL_ID_OFFSET + Integer.BYTES;
+    static final int SYMBOL_OFFSET = LENGTH_OFFSET + Short.BYTES;
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int symbolLength;
+
+    public SymbolEncoder wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.symbolLength = 0;
+        MessageHeader.write(buffer, offset, BLOCK_LENGTH, TEMPLATE_ID);
+        Wire.putUnsignedShort(buffer, offset + LENGTH_OFFSET, 0);
+        return this;
+    }
+
+    public SymbolEncoder symbolId(int symbolId) {
+        Wire.putInt(buffer, offset + SYMBOL_ID_OFFSET, symbolId);
+        return this;
+    }
+
+    /**
+     * @param utf8 The name as returned by encode().
+     */
+    public SymbolEncoder symbol(byte[] utf8) {
+        encodedLength(utf8.length);
+        Wire.putUnsignedShort(buffer, offset + LENGTH_OFFSET, utf8.length);
+        Wire.putBytes(buffer, offset + SYMBOL_OFFSET, utf8);
+        symbolLength = utf8.length;
+        return this;
+    }
+
+    public int encodedLength() {
+        return ENCODED_LENGTH + symbolLength;
+    }
+
+    /**
+     * @return the UTF-8 bytes of the name, to size the message before writing it.
+     * @throws IllegalArgumentException if the name is longer than MAX_SYMBOL_LENGTH bytes.
+     */
+    public static byte[] encode(String symbol) {
+        byte[] utf8 = symbol.getBytes(StandardCharsets.UTF_8);
+        encodedLength(utf8.length);
+        return utf8;
+    }
+
+    /**
+     * @return the length of a definition whose name is symbolLength bytes.
+     * @throws IllegalArgumentException if the name is longer than MAX_SYMBOL_LENGTH bytes.
+     */
+    public static int encodedLength(int symbolLength) {
+        if (symbolLength > MAX_SYMBOL_LENGTH) {
+            throw new IllegalArgumentException("Symbol longer than " + MAX_SYMBOL_LENGTH + " bytes: " + symbolLength);
+        }
+        return ENCODED_LENGTH + symbolLength;
+    }
+}
@@ -0,0 +1,74 @@
+package codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight decoder for a tick written by TickEncoder. Reads fields in place without allocating.
+ *
+ * The static accessors read a message without a flyweight instance, so code shared between
+ * producer threads (e.g. a multi-producer onMessage) can decode without per-thread state.
+ */
+public final class TickDecoder {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int encodedLength;
+
+    /**
+     * @throws IllegalArgumentException if the buffer does not hold a tick at offset.
+     */
+    public TickDecoder wrap(ByteBuffer buffer, int offset) {
+        check(buffer, offset);
+        this.buffer = buffer;
+        this.offset = offset;
+        this.encodedLength = MessageHeader.ENCODED_LENGTH + MessageHeader.blockLength(buffer, offset);
+        return this;
+    }
+
+    public int symbolId() {
+        return symbolId(buffer, offset);
+    }
+
+    public double price() {
+        return price(buffer, offset);
+    }
+
+    public long updateTime() {
+        return updateTime(buffer, offset);
+    }
+
+    public long quantity() {
+        return quantity(buffer, offset);
+    }
+
+    /**
+     * @return the length of the wrapped message, which may be longer than this version's layout.
+     */
+    public int encodedLength() {
+        return encodedLength;
+    }
+
+    public static void check(ByteBuffer buffer, int offset) {
+        MessageHeader.check(buffer, offset, TickEncoder.TEMPLATE_ID, TickEncoder.MIN_BLOCK_LENGTH);
+    }
+
+    public static int symbolId(ByteBuffer buffer, int offset) {
+        return Wire.getInt(buffer, offset + TickEncoder.SYMBOL_ID_OFFSET);
+    }
+
+    public static double price(ByteBuffer buffer, int offset) {
+        return Wire.getDouble(buffer, offset + TickEncoder.PRICE_OFFSET);
+    }
+
+    public static long updateTime(ByteBuffer buffer, int offset) {
+        return Wire.getLong(buffer, offset + TickEncoder.UPDATE_TIME_OFFSET);
+    }
+
+    /**
+     * @return the traded quantity, or 0 for a tick written before the field was added.
+     */
+    public static long quantity(ByteBuffer buffer, int offset) {
+        return MessageHeader.blockLength(buffer, offset) < TickEncoder.BLOCK_LENGTH ? 0
+                : Wire.getLong(buffer, offset + TickEncoder.QUANTITY_OFFSET);
+    }
+}
@@ -0,0 +1,70 @@
+package codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight encoder for an incoming tick. Writes straight into the wrapped buffer, so encoding
+ * allocates nothing; one instance can be re-wrapped for every message by one thread.
+ *
+ * <pre>
+ * offset 0   header    (MessageHeader, templateId 1)
+ * offset 8   int32     symbolId    SymbolRegistry id shared by sender and processor
+ * offset 12  double    price
+ * offset 20  int64     updateTime  epoch millis
+ * offset 28  int64     quantity    traded quantity, 0 if the feed has none (since schema version 2)
+ * </pre>
+ *
+ * The quantity is an optional trailing field: wrap() writes 0, and a version 1 tick, whose block ends after
+ * updateTime, decodes with quantity 0. Only LmaxDisruptorMarketDataProcessor uses it, for aggregated bars;
+ * the other processors publish the latest price and ignore it.
+ */
+public final class TickEncoder {
+
+    public static final int TEMPLATE_ID = 1;
+    public static final int BLOCK_LENGTH = 28;
+    public static final int MIN_BLOCK_LENGTH = 20; // ticks written before quantity was added
+    public static final int ENCODED_LENGTH = MessageHeader.ENCODED_LENGTH + BLOCK_LENGTH;
+
+    static final int SYMBOL_ID_OFFSET = MessageHeader.ENCODED_LENGTH;
+    static final int PRICE_OFFSET = SYMBOL_ID_OFFSET + Integer.BYTES;
+    static final int UPDATE_TIME_OFFSET = PRICE_OFFSET + Double.BYTES;
+    static final int QUANTITY_OFFSET = UPDATE_TIME_OFFSET + Long.BYTES;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Writes the header at offset and a zero quantity; the fields follow through the setters.
+     */
+    public TickEncoder wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        MessageHeader.write(buffer, offset, BLOCK_LENGTH, TEMPLATE_ID);
+        Wire.putLong(buffer, offset + QUANTITY_OFFSET, 0);
+        return this;
+    }
+
+    public TickEncoder symbolId(int symbolId) {
+        Wire.putInt(buffer, offset + SYMBOL_ID_OFFSET, symbolId);
+        return this;
+    }
+
+    public TickEncoder price(double price) {
+        Wire.putDouble(buffer, offset + PRICE_OFFSET, price);
+        return this;
+    }
+
+    public TickEncoder updateTime(long updateTime) {
+        Wire.putLong(buffer, offset + UPDATE_TIME_OFFSET, updateTime);
+        return this;
+    }
+
+    public TickEncoder quantity(long quantity) {
+        Wire.putLong(buffer, offset + QUANTITY_OFFSET, quantity);
+        return this;
+    }
+
+    public int encodedLength() {
+        return ENCODED_LENGTH;
+    }
+}
@@ -0,0 +1,67 @@
+package codec;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Little-endian absolute reads and writes on a ByteBuffer, independent of the buffer's own
+ * byte order and position, for heap and direct buffers alike.
+ */
+final class Wire {
+
+    private static final VarHandle SHORT = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle DOUBLE = MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Wire() {
+    }
+
+    static int getUnsignedShort(ByteBuffer buffer, int index) {
+        return Short.toUnsignedInt((short) SHORT.get(buffer, index));
+    }
+
+    static void putUnsignedShort(ByteBuffer buffer, int index, int value) {
+        SHORT.set(buffer, index, (short) value);
+    }
+
+    static int getInt(ByteBuffer buffer, int index) {
+        return (int) INT.get(buffer, index);
+    }
+
+    static void putInt(ByteBuffer buffer, int index, int value) {
+        INT.set(buffer, index, value);
+    }
+
+    static long getLong(ByteBuffer buffer, int index) {
+        return (long) LONG.get(buffer, index);
+    }
+
+    static void putLong(ByteBuffer buffer, int index, long value) {
+        LONG.set(buffer, index, value);
+    }
+
+    static double getDouble(ByteBuffer buffer, int index) {
+        return (double) DOUBLE.get(buffer, index);
+    }
+
+    static void putDouble(ByteBuffer buffer, int index, double value) {
+        DOUBLE.set(buffer, index, value);
+    }
+
+    static void putBytes(ByteBuffer buffer, int index, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(index + i, bytes[i]);
+        }
+    }
+
+    static byte[] getBytes(ByteBuffer buffer, int index, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(index + i);
+        }
+        return bytes;
+    }
+}
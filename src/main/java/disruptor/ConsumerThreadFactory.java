@@ -0,0 +1,42 @@
+package disruptor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ThreadFactory for the Disruptor consumer thread: names it, sets daemon status and runs an
+ * optional hook on the new thread before it starts consuming.
+ *
+ * The hook is where CPU pinning goes, since affinity libraries bind the calling thread, e.g.
+ * {@code new ConsumerThreadFactory("md-consumer", true, () -> AffinityLock.acquireLock(3))}.
+ * No affinity library is bundled; pair BUSY_SPIN or YIELDING with an isolated core.
+ */
+public class ConsumerThreadFactory implements ThreadFactory {
+    private final String namePrefix;
+    private final boolean daemon;
+    private final Runnable onThreadStart;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ConsumerThreadFactory(String namePrefix, boolean daemon) {
+        this(namePrefix, daemon, () -> { });
+    }
+
+    /**
+     * @param onThreadStart Runs on the consumer thread itself, before the event loop.
+     */
+    public ConsumerThreadFactory(String namePrefix, boolean daemon, Runnable onThreadStart) {
+        this.namePrefix = namePrefix;
+        this.daemon = daemon;
+        this.onThreadStart = onThreadStart;
+    }
+
+    @Override
+    public Thread newThread(Runnable eventLoop) {
+        Thread thread = new Thread(() -> {
+            onThreadStart.run();
+            eventLoop.run();
+        }, namePrefix + "-" + counter.getAndIncrement());
+        thread.setDaemon(daemon);
+        return thread;
+    }
+}
@@ -0,0 +1,65 @@
+package disruptor;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking wait strategy that gives up after a timeout, so the consumer gets a TimeoutHandler
+ * callback while the ring is idle. The stock busy-spin, yielding and sleeping strategies wait forever.
+ *
+ * The idle step decides the latency/CPU trade-off, like the stock strategies it replaces:
+ * SPIN hints the CPU, YIELD gives up the time slice, SLEEP parks for a short fixed period.
+ */
+public class DeadlineWaitStrategy implements WaitStrategy {
+
+    public enum Idle { SPIN, YIELD, SLEEP }
+
+    private static final long SLEEP_NANOS = 100_000;
+
+    private final Idle idle;
+    private final long timeoutNanos;
+
+    public DeadlineWaitStrategy(Idle idle, long timeout, TimeUnit unit) {
+        this.idle = idle;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor, Sequence dependentSequence, SequenceBarrier barrier)
+            throws AlertException, InterruptedException, TimeoutException {
+        long available = dependentSequence.get();
+        if (available >= sequence) {
+            return available; // Common case under load: no clock read at all
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        while ((available = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            if (System.nanoTime() - deadline > 0) {
+                throw TimeoutException.INSTANCE;
+            }
+            switch (idle) {
+                case SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELD:
+                    Thread.yield();
+                    break;
+                default:
+                    LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        // Nothing blocks
+    }
+}
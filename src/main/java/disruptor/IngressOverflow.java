@@ -0,0 +1,120 @@
+package disruptor;
+
+/**
+ * Ticks parked on the producer side while the ring is full, in the order they must enter the ring.
+ * Preallocated, so parking and draining allocate nothing. Not thread-safe: the processor guards it with its monitor,
+ * since the producer parks and drains, and the consumer drains too once the ring is idle.
+ *
+ * Implementations:
+ * - conflating: one slot per symbol plus a FIFO of parked symbol ids; each symbol is queued at most once,
+ *   so the FIFO can never overflow.
+ * - dropOldest: a bounded FIFO of whole ticks that overwrites its oldest entry when full.
+ */
+abstract class IngressOverflow {
+
+    /**
+     * @return true if an older parked tick was overwritten or dropped to make room.
+     */
+    abstract boolean park(int symbolId, double price, long quantity, long updateTime);
+
+    abstract boolean isEmpty();
+
+    /**
+     * Moves the oldest parked tick into the ring slot. Only called when not empty.
+     */
+    abstract void pollInto(MarketDataEvent event);
+
+    static IngressOverflow conflating(int symbolCapacity) {
+        return new Conflating(symbolCapacity);
+    }
+
+    static IngressOverflow dropOldest(int capacity) {
+        return new DropOldest(capacity);
+    }
+
+    private static final class Conflating extends IngressOverflow {
+        private final double[] price;
+        private final long[] quantity;
+        private final long[] updateTime;
+        private final boolean[] parked;
+        private final int[] order;
+        private int head;
+        private int size;
+
+        Conflating(int symbolCapacity) {
+            this.price = new double[symbolCapacity];
+            this.quantity = new long[symbolCapacity];
+            this.updateTime = new long[symbolCapacity];
+            this.parked = new boolean[symbolCapacity];
+            this.order = new int[symbolCapacity];
+        }
+
+        @Override
+        boolean park(int symbolId, double price, long quantity, long updateTime) {
+            this.price[symbolId] = price;
+            this.quantity[symbolId] = quantity;
+            this.updateTime[symbolId] = updateTime;
+            if (parked[symbolId]) return true; // Keeps its place in the FIFO
+            parked[symbolId] = true;
+            order[(head + size++) % order.length] = symbolId;
+            return false;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        void pollInto(MarketDataEvent event) {
+            int symbolId = order[head];
+            head = (head + 1) % order.length;
+            size--;
+            parked[symbolId] = false;
+            event.set(symbolId, price[symbolId], quantity[symbolId], updateTime[symbolId]);
+        }
+    }
+
+    private static final class DropOldest extends IngressOverflow {
+        private final int[] symbolId;
+        private final double[] price;
+        private final long[] quantity;
+        private final long[] updateTime;
+        private int head;
+        private int size;
+
+        DropOldest(int capacity) {
+            this.symbolId = new int[capacity];
+            this.price = new double[capacity];
+            this.quantity = new long[capacity];
+            this.updateTime = new long[capacity];
+        }
+
+        @Override
+        boolean park(int symbolId, double price, long quantity, long updateTime) {
+            boolean full = size == this.symbolId.length;
+            if (full) {
+                head = (head + 1) % this.symbolId.length; // The new tick takes the oldest one's slot
+                size--;
+            }
+            int slot = (head + size++) % this.symbolId.length;
+            this.symbolId[slot] = symbolId;
+            this.price[slot] = price;
+            this.quantity[slot] = quantity;
+            this.updateTime[slot] = updateTime;
+            return full;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        void pollInto(MarketDataEvent event) {
+            event.set(symbolId[head], price[head], quantity[head], updateTime[head]);
+            head = (head + 1) % symbolId.length;
+            size--;
+        }
+    }
+}
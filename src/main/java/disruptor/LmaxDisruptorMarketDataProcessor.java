@@ -1,12 +1,27 @@
 package disruptor;
 
-import com.lmax.disruptor.BlockingWaitStrategy;
+import codec.TickDecoder;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutHandler;
+import metrics.Counter;
+import metrics.MetricsSnapshot;
+import throttle.ThrottlePolicy;
+import utils.Clock;
 import utils.MarketData;
+import utils.SymbolRegistry;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * LmaxDisruptorMarketDataProcessor is a high-performance market data processor
@@ -15,54 +30,472 @@ import java.util.concurrent.Executors;
  *
  * Key Features:
  * - Uses a ring buffer to efficiently handle market data events.
- * - Supports single-producer and multi-consumer configurations.
+ * - Single-producer by default; ProducerType.MULTI lets several gateway threads call onMessage concurrently.
  * - Enforces rate limits and ensures the latest data is published.
+ * - Ring size, wait strategy and consumer thread are configurable through {@link #builder(MarketDataConsumer)};
+ *   the constructors keep the original 1024-slot ring with a blocking wait strategy.
+ * - What onMessage does on a full ring is an OverloadPolicy; by default it blocks.
+ * - Optional conflating ingress (ConflatingIngress): a symbol that is already waiting in the ring only has
+ *   its slot updated, so hot symbols stop consuming ring sequences.
+ * - Optional bar aggregation: each publish carries the OHLCV/VWAP bar of every tick since the previous one.
  */
 public class LmaxDisruptorMarketDataProcessor {
     private final Disruptor<MarketDataEvent> disruptor;
-    /**
-     * Considering the onMessage is single-threaded,
-     * RingBufferUnsafe can be used for better performance.
-     */
     private final RingBuffer<MarketDataEvent> ringBuffer;
     private final MarketDataEventHandler handler;
+    private final SymbolRegistry registry;
+    private final ProducerType producerType;
+    /**
+     * Stages the tick in shared fields, so it is only used in ProducerType.SINGLE mode.
+     */
+    private final MarketDataEventTranslator translator = new MarketDataEventTranslator();
+    private final OverloadPolicy overloadPolicy;
+    /**
+     * Null unless the policy parks ticks. Guarded by its own monitor: the producer parks, and the producer or the
+     * consumer, once the ring is idle, moves parked ticks into the ring.
+     */
+    private final IngressOverflow overflow;
+    /**
+     * True from a park until the overflow is empty again; while false, onMessage claims ring slots without the lock.
+     */
+    private volatile boolean overflowParked;
+    private final ConflatingIngress ingress; // null unless conflating at ingress
+    private final Counter conflatedTicks = new Counter(); // single producer
+    private final LongAdder droppedTicks = new LongAdder(); // DROP_NEWEST also works with several producers
 
+    /**
+     * Default limits and a registry of SymbolRegistry.DEFAULT_CAPACITY (65,536) symbols. The registry does not grow:
+     * once it is full, onMessage throws IllegalStateException for every new symbol, on the calling thread.
+     * Use the symbolCapacity constructor, or a registry with an EvictionPolicy, for larger or churning universes.
+     */
     public LmaxDisruptorMarketDataProcessor(MarketDataConsumer publisher) {
-        this.handler = new MarketDataEventHandler(publisher);
+        this(publisher, SymbolRegistry.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Default limits and a registry for up to symbolCapacity distinct symbols; per-symbol arrays are sized to it.
+     */
+    public LmaxDisruptorMarketDataProcessor(MarketDataConsumer publisher, int symbolCapacity) {
+        this(publisher, new SymbolRegistry(symbolCapacity), ThrottlePolicy.defaults());
+    }
+
+    /**
+     * @param registry Resolves symbol ids; MarketData carrying an id must have obtained it from this registry.
+     * @param policy   Global budget and per-symbol cooldown; owned by this processor from now on.
+     */
+    public LmaxDisruptorMarketDataProcessor(MarketDataConsumer publisher, SymbolRegistry registry, ThrottlePolicy policy) {
+        this(publisher, registry, policy, ProducerType.SINGLE);
+    }
+
+    /**
+     * @param producerType SINGLE if onMessage is only ever called from one thread,
+     *                     MULTI if several threads (e.g. one per venue gateway) publish concurrently.
+     */
+    public LmaxDisruptorMarketDataProcessor(MarketDataConsumer publisher, SymbolRegistry registry, ThrottlePolicy policy,
+                                            ProducerType producerType) {
+        this(builder(publisher).registry(registry).policy(policy).producerType(producerType));
+    }
+
+    private LmaxDisruptorMarketDataProcessor(Builder builder) {
+        this.registry = builder.registry != null ? builder.registry : new SymbolRegistry();
+        this.producerType = builder.producerType;
+        this.overloadPolicy = builder.overloadPolicy;
+        if (overloadPolicy.parksTicks() && producerType != ProducerType.SINGLE) {
+            throw new IllegalArgumentException(overloadPolicy + " keeps producer-side state and needs ProducerType.SINGLE");
+        }
+        if (overloadPolicy == OverloadPolicy.CONFLATE) {
+            this.overflow = IngressOverflow.conflating(registry.capacity());
+        } else if (overloadPolicy == OverloadPolicy.DROP_OLDEST) {
+            this.overflow = IngressOverflow.dropOldest(builder.ringSize);
+        } else {
+            this.overflow = null;
+        }
+        if (builder.conflateAtIngress && (overloadPolicy != OverloadPolicy.BLOCK || !builder.sideHandlers.isEmpty())) {
+            throw new IllegalArgumentException("Conflating ingress needs OverloadPolicy.BLOCK and no side handlers,"
+                    + " since the ring only carries symbol ids");
+        }
+        this.ingress = builder.conflateAtIngress ? new ConflatingIngress(registry.capacity()) : null;
+        if (builder.aggregateBars && (builder.conflateAtIngress || overloadPolicy != OverloadPolicy.BLOCK)) {
+            throw new IllegalArgumentException("Bars must see every tick, so they need OverloadPolicy.BLOCK and no"
+                    + " conflation at ingress");
+        }
+        ThrottlePolicy policy = builder.policy != null ? builder.policy : ThrottlePolicy.defaults();
+        this.handler = new MarketDataEventHandler(builder.publisher, registry, policy, builder.clock,
+                builder.aggregateBars);
 
         disruptor = new Disruptor<>(
                 MarketDataEvent::new,
-                1024,
-                Executors.defaultThreadFactory(),
-                ProducerType.SINGLE,
-                new BlockingWaitStrategy()
+                builder.ringSize,
+                builder.threadFactory,
+                producerType,
+                builder.waitStrategy != null ? builder.waitStrategy
+                        : builder.waitStrategyType.create(builder.retryIntervalMs, TimeUnit.MILLISECONDS)
         );
 
-        disruptor.handleEventsWith(handler);
+        if (ingress != null) {
+            disruptor.handleEventsWith(new ConflatingIngress.Handler(ingress, handler));
+        } else if (overflow != null) {
+            disruptor.handleEventsWith(new OverflowDrainingHandler());
+        } else {
+            disruptor.handleEventsWith(handler);
+        }
+        for (EventHandler<MarketDataEvent> sideHandler : builder.sideHandlers) {
+            disruptor.handleEventsWith(sideHandler);
+        }
         disruptor.start();
         ringBuffer = disruptor.getRingBuffer();
     }
 
+    public static Builder builder(MarketDataConsumer publisher) {
+        return new Builder(publisher);
+    }
+
     /**
      * Publishes a new market data event to the ring buffer.
+     * The fields are copied into the preallocated slot, so the MarketData is not retained.
      *
      * Time Complexity: O(1) - Ring buffer operations are constant time.
      * Space Complexity: O(1) - No additional space is used.
      *
      * @param data The market data to process.
+     * @throws IllegalArgumentException if the id it carries does not belong to this processor's registry.
      */
     public void onMessage(MarketData data) {
+        onMessage(registry.idOf(data), data.getPrice(), data.getUpdateTime());
+    }
+
+    /**
+     * Allocation-free publish path: writes the tick straight into a preallocated ring slot.
+     * Safe to call from several threads only when constructed with ProducerType.MULTI.
+     * On a full ring the OverloadPolicy decides whether this blocks, parks the tick or drops it.
+     *
+     * Time Complexity: O(1) amortized - Ring buffer operations are constant time; each parked tick is moved once.
+     * Space Complexity: O(1) - No objects are allocated per tick.
+     *
+     * @param symbolId The id assigned to the symbol by this processor's SymbolRegistry.
+     * @throws IllegalArgumentException if the id is not registered; checked here, not on the consumer thread.
+     */
+    public void onMessage(int symbolId, double price, long updateTime) {
+        onMessage(symbolId, price, 0, updateTime);
+    }
+
+    /**
+     * As onMessage(int, double, long), for feeds that carry a traded quantity; it feeds the volume and VWAP
+     * of aggregated bars.
+     */
+    public void onMessage(int symbolId, double price, long quantity, long updateTime) {
+        registry.checkRegistered(symbolId);
+        if (ingress != null) {
+            if (ingress.offer(symbolId, price, updateTime)) {
+                publishSymbolId(symbolId); // First tick since the consumer last read this symbol
+            }
+            return;
+        }
+        switch (overloadPolicy) {
+            case BLOCK:
+                publishBlocking(symbolId, price, quantity, updateTime);
+                break;
+            case DROP_NEWEST:
+                if (!tryPublish(symbolId, price, quantity, updateTime)) {
+                    droppedTicks.increment();
+                }
+                break;
+            default:
+                if (!overflowParked && tryPublish(symbolId, price, quantity, updateTime)) {
+                    break; // Nothing parked and room in the ring: the common case takes no lock
+                }
+                synchronized (overflow) {
+                    // Parked ticks are older, so they go first; if they do not all fit, this one is parked behind them
+                    if (!drainOverflow() || !tryPublish(symbolId, price, quantity, updateTime)) {
+                        park(symbolId, price, quantity, updateTime);
+                    }
+                }
+        }
+    }
+
+    /**
+     * Moves ticks parked by CONFLATE or DROP_OLDEST into the ring, oldest first, as far as there is room.
+     * onMessage does this itself, and so does the consumer thread whenever the ring goes idle for the wait
+     * strategy's timeout, so parked ticks of a feed that went quiet reach the ring within one retryIntervalMs
+     * of the consumer catching up. Call it to push them sooner, from any thread.
+     *
+     * @return true if nothing is left parked.
+     */
+    public boolean flushOverflow() {
+        if (overflow == null || !overflowParked) return true;
+        synchronized (overflow) {
+            return drainOverflow();
+        }
+    }
+
+    /**
+     * Holding the overflow's monitor, which also orders ring claims made from different threads.
+     */
+    private boolean drainOverflow() {
+        while (!overflow.isEmpty()) {
+            long sequence;
+            try {
+                sequence = ringBuffer.tryNext();
+            } catch (InsufficientCapacityException e) {
+                return false; // Preallocated singleton, so a full ring costs no allocation
+            }
+            try {
+                overflow.pollInto(ringBuffer.get(sequence));
+            } finally {
+                ringBuffer.publish(sequence);
+            }
+        }
+        overflowParked = false; // Only once every drained tick is published, so lock-free claims follow them
+        return true;
+    }
+
+    /**
+     * Holding the overflow's monitor.
+     */
+    private void park(int symbolId, double price, long quantity, long updateTime) {
+        overflowParked = true;
+        if (overflow.park(symbolId, price, quantity, updateTime)) {
+            if (overloadPolicy == OverloadPolicy.CONFLATE) {
+                conflatedTicks.increment();
+            } else {
+                droppedTicks.increment();
+            }
+        }
+    }
+
+    /**
+     * @return false, without waiting, if the ring is full.
+     */
+    private boolean tryPublish(int symbolId, double price, long quantity, long updateTime) {
+        long sequence;
+        try {
+            sequence = ringBuffer.tryNext();
+        } catch (InsufficientCapacityException e) {
+            return false;
+        }
+        try {
+            ringBuffer.get(sequence).set(symbolId, price, quantity, updateTime);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+        return true;
+    }
+
+    /**
+     * Conflating ingress: the consumer reads the price and time from the symbol's slot.
+     */
+    private void publishSymbolId(int symbolId) {
+        long sequence = ringBuffer.next();
+        try {
+            ringBuffer.get(sequence).symbolId = symbolId;
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    private void publishBlocking(int symbolId, double price, long quantity, long updateTime) {
+        if (producerType == ProducerType.SINGLE) {
+            ringBuffer.publishEvent(translator.stage(symbolId, price, quantity, updateTime));
+            return;
+        }
+        // Claim and fill the slot directly; nothing shared between producers except the sequencer
         long sequence = ringBuffer.next();
         try {
-            ringBuffer.get(sequence).set(data);
+            ringBuffer.get(sequence).set(symbolId, price, quantity, updateTime);
         } finally {
             ringBuffer.publish(sequence);
         }
     }
 
+    /**
+     * Accepts a tick encoded by TickEncoder and copies its fields straight into a ring slot,
+     * so an encoded feed reaches the handler without allocating. The tick's quantity feeds aggregated bars.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a tick at offset.
+     */
+    public void onMessage(ByteBuffer buffer, int offset) {
+        TickDecoder.check(buffer, offset);
+        onMessage(TickDecoder.symbolId(buffer, offset), TickDecoder.price(buffer, offset),
+                TickDecoder.quantity(buffer, offset), TickDecoder.updateTime(buffer, offset));
+    }
+
+    /**
+     * @return the longest time any update waited between arriving and being published.
+     */
+    public long maxObservedStalenessMs() {
+        return handler.maxObservedStalenessMs();
+    }
+
+    /**
+     * @return the handler's counters and publish latency plus the ring's free capacity; safe to call from any thread.
+     */
+    public MetricsSnapshot metrics() {
+        return handler.metrics().snapshot()
+                .withRingRemainingCapacity(ringBuffer.remainingCapacity())
+                .withIngressOverload(conflatedTicks.get() + (ingress != null ? ingress.conflated() : 0), droppedTicks.sum());
+    }
+
     public void shutdown() {
-        handler.shutdown();
         disruptor.shutdown();
     }
-}
 
+    /**
+     * The throttling handler, plus a drain of the ticks parked by CONFLATE or DROP_OLDEST when the ring goes idle:
+     * the consumer has caught up, so there is room, and a quiet producer would otherwise leave them parked.
+     */
+    private final class OverflowDrainingHandler implements EventHandler<MarketDataEvent>, TimeoutHandler {
+
+        @Override
+        public void onEvent(MarketDataEvent event, long sequence, boolean endOfBatch) {
+            handler.onEvent(event, sequence, endOfBatch);
+        }
+
+        @Override
+        public void onTimeout(long sequence) {
+            flushOverflow(); // Drained ticks are handled on the next turn of the consumer loop
+            handler.onTimeout(sequence);
+        }
+    }
+
+    /**
+     * Configures the ring and consumer thread. Unset options keep the constructor defaults.
+     */
+    public static class Builder {
+        private final MarketDataConsumer publisher;
+        private SymbolRegistry registry;
+        private ThrottlePolicy policy;
+        private ProducerType producerType = ProducerType.SINGLE;
+        private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+        private boolean conflateAtIngress;
+        private boolean aggregateBars;
+        private int ringSize = 1024;
+        private WaitStrategyType waitStrategyType = WaitStrategyType.BLOCKING;
+        private WaitStrategy waitStrategy;
+        private long retryIntervalMs = 10;
+        private Clock clock = Clock.system();
+        private final List<EventHandler<MarketDataEvent>> sideHandlers = new ArrayList<>();
+        private ThreadFactory threadFactory = Executors.defaultThreadFactory();
+
+        private Builder(MarketDataConsumer publisher) {
+            this.publisher = publisher;
+        }
+
+        public Builder registry(SymbolRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        /**
+         * @param policy Global budget and per-symbol cooldown; owned by the processor once built.
+         */
+        public Builder policy(ThrottlePolicy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        public Builder producerType(ProducerType producerType) {
+            this.producerType = producerType;
+            return this;
+        }
+
+        /**
+         * @param overloadPolicy What onMessage does when the ring is full; CONFLATE and DROP_OLDEST need
+         *                       ProducerType.SINGLE, checked by build().
+         */
+        public Builder overloadPolicy(OverloadPolicy overloadPolicy) {
+            this.overloadPolicy = overloadPolicy;
+            return this;
+        }
+
+        /**
+         * @param conflateAtIngress true to route ticks through a ConflatingIngress: a symbol already waiting in
+         *                          the ring only has its slot updated. Works with both producer types; needs
+         *                          OverloadPolicy.BLOCK and no side handlers, checked by build(). A ring at least
+         *                          as large as the symbol universe then never fills.
+         */
+        public Builder conflateAtIngress(boolean conflateAtIngress) {
+            this.conflateAtIngress = conflateAtIngress;
+            return this;
+        }
+
+        /**
+         * @param aggregateBars true to publish batches with bars (MarketDataBatch.hasBars()): open, high, low,
+         *                      tick count, volume and VWAP of every tick since the symbol's previous publish.
+         *                      Needs OverloadPolicy.BLOCK and no conflateAtIngress, since the other policies
+         *                      skip or drop ticks; checked by build().
+         */
+        public Builder aggregateBars(boolean aggregateBars) {
+            this.aggregateBars = aggregateBars;
+            return this;
+        }
+
+        /**
+         * @param ringSize Number of preallocated slots; must be a power of two.
+         */
+        public Builder ringSize(int ringSize) {
+            if (ringSize <= 0 || Integer.bitCount(ringSize) != 1) {
+                throw new IllegalArgumentException("ringSize must be a positive power of two: " + ringSize);
+            }
+            this.ringSize = ringSize;
+            return this;
+        }
+
+        public Builder waitStrategy(WaitStrategyType type) {
+            this.waitStrategyType = type;
+            this.waitStrategy = null;
+            return this;
+        }
+
+        /**
+         * For strategies not covered by WaitStrategyType. The strategy should time out (e.g.
+         * TimeoutBlockingWaitStrategy or DeadlineWaitStrategy); otherwise throttled symbols are
+         * only retried when new events arrive.
+         */
+        public Builder waitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * @param retryIntervalMs How long an idle consumer waits before retrying throttled symbols;
+         *                        used as the timeout of WaitStrategyType strategies.
+         */
+        public Builder retryIntervalMs(long retryIntervalMs) {
+            if (retryIntervalMs <= 0) {
+                throw new IllegalArgumentException("retryIntervalMs must be positive: " + retryIntervalMs);
+            }
+            this.retryIntervalMs = retryIntervalMs;
+            return this;
+        }
+
+        /**
+         * @param threadFactory Creates the consumer thread; see ConsumerThreadFactory for naming, daemon and pinning.
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * @param clock Time source for cooldowns, the global budget and staleness. The retry timeout
+         *              itself is real time, since it comes from the wait strategy.
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Adds a consumer that sees every event on its own thread, in parallel with the throttling handler,
+         * e.g. a journal.JournalEventHandler. The ring only wraps once every consumer has caught up.
+         */
+        public Builder sideHandler(EventHandler<MarketDataEvent> sideHandler) {
+            this.sideHandlers.add(sideHandler);
+            return this;
+        }
+
+        public LmaxDisruptorMarketDataProcessor build() {
+            return new LmaxDisruptorMarketDataProcessor(this);
+        }
+    }
+}
@@ -1,9 +1,20 @@
 package disruptor;
 
 import utils.MarketData;
+import utils.MarketDataBatch;
 
 @FunctionalInterface
 public interface MarketDataConsumer {
     void publish(MarketData data);
-}
 
+    /**
+     * Receives every update published in one flush. The batch is reused afterwards, so copy
+     * anything that must outlive this call. Override it to amortize syscalls or serialization
+     * across the batch; the default hands each update to publish(MarketData).
+     */
+    default void publishBatch(MarketDataBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            publish(batch.marketData(i));
+        }
+    }
+}
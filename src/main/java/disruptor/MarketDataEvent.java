@@ -1,12 +1,23 @@
 package disruptor;
 
-import utils.MarketData;
-
+/**
+ * Preallocated ring buffer slot. Ticks are copied into the primitive fields
+ * so the ring never retains a reference to a per-tick object.
+ */
 public class MarketDataEvent {
-    public MarketData data;
+    public int symbolId;
+    public double price;
+    public long quantity; // 0 when the feed carries no trade size
+    public long updateTime;
 
-    public void set(MarketData data) {
-        this.data = data;
+    public void set(int symbolId, double price, long updateTime) {
+        set(symbolId, price, 0, updateTime);
     }
-}
 
+    public void set(int symbolId, double price, long quantity, long updateTime) {
+        this.symbolId = symbolId;
+        this.price = price;
+        this.quantity = quantity;
+        this.updateTime = updateTime;
+    }
+}
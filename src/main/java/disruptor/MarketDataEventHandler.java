@@ -1,90 +1,259 @@
 package disruptor;
 
 import com.lmax.disruptor.EventHandler;
-import utils.MarketData;
-
-import java.util.Deque;
-import java.util.Map;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.concurrent.*;
+import com.lmax.disruptor.TimeoutHandler;
+import metrics.ProcessorMetrics;
+import scheduler.PublishScheduler;
+import throttle.ThrottlePolicy;
+import utils.BarAccumulator;
+import utils.Clock;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
 
 /**
  * MarketDataEventHandler processes market data events with rate limiting
  * and ensures the latest data is published
  * while adhering to global and per-symbol constraints.
  *
+ * Coalesced state lives in reusable per-symbol primitive slots indexed by the symbol id
+ * from a SymbolRegistry, so a tick is absorbed without allocating or retaining objects.
+ * Everything published in one flush is handed to the consumer as one reusable MarketDataBatch;
+ * a MarketData is only created if the consumer asks for one.
+ *
+ * Everything runs on the Disruptor consumer thread: pending symbols are flushed at the end of
+ * every batch, and on wait-strategy timeouts while the ring is idle (see WaitStrategyType), so
+ * no state is shared with another thread and retries are not tied to a polling period.
+ *
+ * Pending symbols are ordered by the time they became eligible (cooldown expired and data pending),
+ * so under global saturation the longest-waiting symbol goes first and frequently ticking symbols
+ * cannot take every freed permit.
+ *
+ * Optionally the pending slot also aggregates a bar (open/high/low, tick count, volume, VWAP) of every tick
+ * since the symbol's last publish, so a publish summarizes the whole throttle interval (see BarAccumulator).
+ * Ticks held back by a SignificanceFilter still count in the bar.
+ *
+ * With a SignificanceFilter in the policy, a tick that barely moved from the symbol's last published price
+ * does not make the symbol pending, and a pending symbol whose price has moved back is dropped without taking
+ * a permit. A large move pulls its symbol's deadline forward to the filter's large-move interval.
+ *
+ * With priority lanes in the policy, each tier is a lane: eligible symbols of the most urgent lane are tried
+ * first, and a large move is tried in lane 0. Publish latency is also recorded per lane.
  */
-public class MarketDataEventHandler implements EventHandler<MarketDataEvent> {
+public class MarketDataEventHandler implements EventHandler<MarketDataEvent>, TimeoutHandler {
+
+    private static final long SWEEP_INTERVAL_MS = 10; // flushes can run per event, eviction sweeps need not
 
-    private final Map<String, Long> lastPublishedPerSymbol = new ConcurrentHashMap<>();
-    private final Deque<Long> publishTimestamps = new ConcurrentLinkedDeque<>();
-    private final Map<String, MarketData> latestDataBySymbol = new ConcurrentHashMap<>();
-    private final Set<String> retrySymbols = ConcurrentHashMap.newKeySet();
+    private final ThrottlePolicy policy;
 
-    private static final int MAX_GLOBAL_PUBLISHES_PER_SEC = 100;
-    private static final long SYMBOL_COOLDOWN_MS = 1000;
-    private static final long GLOBAL_WINDOW_MS = 1000;
+    // Pending coalesced slot per symbol; a pending symbol is always queued or parked in the scheduler
+    private final double[] pendingPrice;
+    private final long[] pendingUpdateTime;
+    private final boolean[] pending;
+    private final Scheduler scheduler;
+    private final BarAccumulator bars; // null unless aggregating bars
+    private final MarketDataBatch batch;
 
     private final MarketDataConsumer publisher;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Clock clock;
+    private final ProcessorMetrics metrics; // consumer thread only
+    private final SymbolRegistry registry;
 
+    /**
+     * Default limits and a registry of SymbolRegistry.DEFAULT_CAPACITY (65,536) symbols, which does not grow.
+     */
     public MarketDataEventHandler(MarketDataConsumer publisher) {
+        this(publisher, new SymbolRegistry(), ThrottlePolicy.defaults());
+    }
+
+    public MarketDataEventHandler(MarketDataConsumer publisher, SymbolRegistry registry, ThrottlePolicy policy) {
+        this(publisher, registry, policy, Clock.system());
+    }
+
+    /**
+     * The handler can also be driven directly, without a ring: call onEvent for each tick and onTimeout
+     * to retry throttled symbols. With a ManualClock that runs the throttling logic deterministically.
+     */
+    public MarketDataEventHandler(MarketDataConsumer publisher, SymbolRegistry registry, ThrottlePolicy policy,
+                                  Clock clock) {
+        this(publisher, registry, policy, clock, false);
+    }
+
+    /**
+     * @param aggregateBars true to publish batches with bars: each entry summarizes every tick of its symbol
+     *                      since the previous publish, and price is the bar's close.
+     */
+    public MarketDataEventHandler(MarketDataConsumer publisher, SymbolRegistry registry, ThrottlePolicy policy,
+                                  Clock clock, boolean aggregateBars) {
         this.publisher = publisher;
-        scheduler.scheduleAtFixedRate(this::flushRetries, 50, 50, TimeUnit.MILLISECONDS);
+        this.clock = clock;
+        this.registry = registry;
+        this.policy = policy;
+        policy.bind(registry.capacity());
+        this.pendingPrice = new double[registry.capacity()];
+        this.pendingUpdateTime = new long[registry.capacity()];
+        this.pending = new boolean[registry.capacity()];
+        this.metrics = new ProcessorMetrics(false, policy.laneCount());
+        this.scheduler = new Scheduler(registry.capacity(), policy, metrics);
+        this.bars = aggregateBars ? new BarAccumulator(registry.capacity()) : null;
+        this.batch = new MarketDataBatch(registry, aggregateBars);
     }
 
+    /**
+     * Time Complexity: O(1) for a symbol that is already pending, O(log n) when it becomes pending,
+     * plus one flush per batch.
+     */
     @Override
     public void onEvent(MarketDataEvent event, long sequence, boolean endOfBatch) {
-        MarketData data = event.data;
-        if (data == null) return;
+        int symbolId = event.symbolId;
+        if (registry.symbolOf(symbolId) == null) {
+            // Evicted after the producer checked it: its id may go to another symbol, so drop the update
+            if (endOfBatch) flush(clock.nanoTime());
+            return;
+        }
+        registry.touch(symbolId);
+        if (bars != null) {
+            bars.add(symbolId, event.price, event.quantity); // Even if suppressed below: the bar covers every tick
+        }
+        boolean wasPending = pending[symbolId];
+        if (!wasPending && !policy.isSignificant(symbolId, event.price)) {
+            metrics.recordSuppressedOnArrival(); // Too close to the last published price to start a publish
+            if (endOfBatch) flush(clock.nanoTime());
+            return;
+        }
+        // Always keep the latest
+        pendingPrice[symbolId] = event.price;
+        pendingUpdateTime[symbolId] = event.updateTime;
+        if (!wasPending) {
+            pending[symbolId] = true;
+            scheduler.becamePending(symbolId, clock.nanoTime());
+        } else {
+            metrics.recordCoalesced();
+            if (policy.filtersSignificance()) {
+                scheduler.moved(symbolId); // A large move (or its reversal) changes the deadline and lane
+            }
+        }
+
+        if (endOfBatch) {
+            flush(clock.nanoTime());
+        }
+    }
 
-        String symbol = data.getSymbol();
-        latestDataBySymbol.put(symbol, data); // Always keep the latest
+    /**
+     * Called by the consumer thread when the ring has been idle for the wait strategy's timeout,
+     * so symbols waiting out a cooldown or the global quota are published without new events.
+     */
+    @Override
+    public void onTimeout(long sequence) {
+        flush(clock.nanoTime());
+    }
 
-        if (!tryPublish(symbol)) {
-            retrySymbols.add(symbol);
+    /**
+     * Publishes every pending symbol that is eligible now, most urgent lane first and oldest-eligible first
+     * within a lane, until the global quota runs out.
+     * The publisher receives them in a single publishBatch call.
+     *
+     * Time Complexity: O(k log n) - Where k symbols are published, dropped or parked and n symbols are pending.
+     * Space Complexity: O(1) - The eligibility queue and per-symbol arrays are preallocated.
+     */
+    private void flush(long nowNanos) {
+        scheduler.flush(nowNanos);
+        if (!batch.isEmpty()) {
+            try {
+                publisher.publishBatch(batch);
+            } finally {
+                batch.clear();
+            }
         }
     }
 
-    private boolean tryPublish(String symbol) {
-        long now = System.currentTimeMillis();
+    /**
+     * @return the longest time any update waited between arriving and being published.
+     */
+    public long maxObservedStalenessMs() {
+        return scheduler.maxObservedStalenessMs();
+    }
+
+    /**
+     * The handler records on the consumer thread; the recorder can be read from any thread.
+     */
+    ProcessorMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * The PublishScheduler over the pending slots, publishing into the handler's batch. The slots are only written
+     * on the consumer thread, so a captured update cannot be replaced before it is published.
+     */
+    private final class Scheduler extends PublishScheduler {
+
+        private final SymbolRegistry.SlotReclaimer reclaimer = this::reclaim;
+        private long lastSweepMs = NEVER_PUBLISHED;
+        private int captured;
 
-        // Enforce global rate limit window
-        while (!publishTimestamps.isEmpty() && now - publishTimestamps.peekFirst() > GLOBAL_WINDOW_MS) {
-            publishTimestamps.pollFirst();
+        Scheduler(int capacity, ThrottlePolicy policy, ProcessorMetrics metrics) {
+            super(capacity, policy, metrics);
         }
 
-        if (publishTimestamps.size() >= MAX_GLOBAL_PUBLISHES_PER_SEC) {
-            return false; // Global throttle
+        void becamePending(int symbolId, long nanos) {
+            setPendingSinceNanos(symbolId, nanos);
+            schedule(symbolId);
         }
 
-        Long lastPublished = lastPublishedPerSymbol.getOrDefault(symbol, 0L);
-        if (now - lastPublished < SYMBOL_COOLDOWN_MS) {
-            return false; // Per-symbol cooldown
+        void moved(int symbolId) {
+            reschedule(symbolId);
         }
 
-        MarketData latest = latestDataBySymbol.get(symbol);
-        if (latest == null) return true; // No data to publish
+        void flush(long nowNanos) {
+            publishEligible(nowNanos);
+            long now = nowNanos / 1_000_000;
+            if (now - lastSweepMs >= SWEEP_INTERVAL_MS) {
+                lastSweepMs = now;
+                registry.sweep(now, reclaimer); // Bounded work, a no-op unless the registry evicts
+            }
+        }
 
-        // ✅ Publish and update state
-        publisher.publish(latest);
-        lastPublishedPerSymbol.put(symbol, now);
-        publishTimestamps.addLast(now);
+        @Override
+        protected void capture(int symbolId) {
+            captured = symbolId;
+        }
 
-        latestDataBySymbol.remove(symbol);
-        retrySymbols.remove(symbol);
+        @Override
+        protected double capturedPrice() {
+            return pendingPrice[captured];
+        }
 
-        return true;
-    }
+        @Override
+        protected void publishCaptured(int symbolId) {
+            if (bars != null) {
+                bars.addTo(batch, symbolId, pendingPrice[symbolId], pendingUpdateTime[symbolId]);
+            } else {
+                batch.add(symbolId, pendingPrice[symbolId], pendingUpdateTime[symbolId]);
+            }
+        }
 
-    private void flushRetries() {
-        for (String symbol : new HashSet<>(retrySymbols)) {
-            tryPublish(symbol);
+        /**
+         * Published or dropped as too small; a dropped symbol's bar stays open until its next publish.
+         */
+        @Override
+        protected boolean clearCaptured(int symbolId) {
+            pending[symbolId] = false;
+            return true;
+        }
+
+        @Override
+        protected double pendingPrice(int symbolId) {
+            return pendingPrice[symbolId];
         }
-    }
 
-    public void shutdown() {
-        scheduler.shutdownNow();
+        /**
+         * Clears the state of a symbol the registry is evicting, unless it still has data to publish.
+         */
+        private boolean reclaim(int symbolId) {
+            if (pending[symbolId]) return false;
+            if (bars != null) bars.clear(symbolId);
+            resetSlot(symbolId);
+            policy.reset(symbolId);
+            return true;
+        }
     }
 }
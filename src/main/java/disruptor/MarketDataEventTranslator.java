@@ -0,0 +1,34 @@
+package disruptor;
+
+import com.lmax.disruptor.EventTranslator;
+
+/**
+ * Reusable translator that copies a primitive tick into a preallocated MarketDataEvent.
+ *
+ * EventTranslatorThreeArg would box the int/double/long arguments on every call, so the
+ * tick is staged in this translator's fields instead. One instance must only be used by
+ * one producer thread at a time.
+ */
+public class MarketDataEventTranslator implements EventTranslator<MarketDataEvent> {
+    private int symbolId;
+    private double price;
+    private long quantity;
+    private long updateTime;
+
+    public MarketDataEventTranslator stage(int symbolId, double price, long updateTime) {
+        return stage(symbolId, price, 0, updateTime);
+    }
+
+    public MarketDataEventTranslator stage(int symbolId, double price, long quantity, long updateTime) {
+        this.symbolId = symbolId;
+        this.price = price;
+        this.quantity = quantity;
+        this.updateTime = updateTime;
+        return this;
+    }
+
+    @Override
+    public void translateTo(MarketDataEvent event, long sequence) {
+        event.set(symbolId, price, quantity, updateTime);
+    }
+}
@@ -0,0 +1,27 @@
+package disruptor;
+
+/**
+ * What onMessage does when the consumer has fallen behind and the ring is full.
+ *
+ * - BLOCK: waits for a free slot, stalling the calling feed thread. The original behaviour.
+ * - CONFLATE: never waits. While the ring is full, each symbol's latest tick is parked in a per-symbol slot;
+ *   a newer tick for a parked symbol overwrites it in place. For market data only the latest value matters,
+ *   so nothing the consumer would publish is lost. Counted as ingressConflated.
+ * - DROP_OLDEST: never waits. While the ring is full, ticks queue in a bounded overflow of one ring's worth;
+ *   when that is full too, the oldest queued tick is dropped. Counted as ingressDropped.
+ * - DROP_NEWEST: never waits. A tick that finds the ring full is dropped. Counted as ingressDropped.
+ *
+ * Parked ticks (CONFLATE, DROP_OLDEST) enter the ring ahead of newer ticks on the next onMessage, or, when the
+ * feed goes quiet, on the first wait-strategy timeout after the consumer has caught up, i.e. within one
+ * retryIntervalMs. Both keep producer-side state, so they need ProducerType.SINGLE.
+ */
+public enum OverloadPolicy {
+    BLOCK,
+    CONFLATE,
+    DROP_OLDEST,
+    DROP_NEWEST;
+
+    boolean parksTicks() {
+        return this == CONFLATE || this == DROP_OLDEST;
+    }
+}
@@ -0,0 +1,59 @@
+package disruptor;
+
+import com.lmax.disruptor.PhasedBackoffWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The standard Disruptor wait strategies, ordered roughly from lowest CPU use to lowest latency.
+ *
+ * - BLOCKING: lock and condition variable; idle consumer uses no CPU, but every wake-up pays for the signal.
+ * - SLEEPING: spins briefly between short parks; low CPU with modest latency, no producer-side signalling.
+ * - PHASED_BACKOFF: spins, then yields, then falls back to blocking; a compromise for bursty feeds.
+ * - YIELDING: spins with Thread.yield(); low latency, but keeps a core busy while idle.
+ * - BUSY_SPIN: tight spin; lowest latency, needs a dedicated (ideally isolated and pinned) core.
+ *
+ * Every strategy created here times out after the given idle period, which is what lets the
+ * MarketDataEventHandler publish throttled symbols while no new events arrive.
+ */
+public enum WaitStrategyType {
+    BLOCKING {
+        @Override
+        public WaitStrategy create(long timeout, TimeUnit unit) {
+            return new TimeoutBlockingWaitStrategy(timeout, unit);
+        }
+    },
+    SLEEPING {
+        @Override
+        public WaitStrategy create(long timeout, TimeUnit unit) {
+            return new DeadlineWaitStrategy(DeadlineWaitStrategy.Idle.SLEEP, timeout, unit);
+        }
+    },
+    PHASED_BACKOFF {
+        @Override
+        public WaitStrategy create(long timeout, TimeUnit unit) {
+            return new PhasedBackoffWaitStrategy(100, 1000, TimeUnit.MICROSECONDS,
+                    new TimeoutBlockingWaitStrategy(timeout, unit));
+        }
+    },
+    YIELDING {
+        @Override
+        public WaitStrategy create(long timeout, TimeUnit unit) {
+            return new DeadlineWaitStrategy(DeadlineWaitStrategy.Idle.YIELD, timeout, unit);
+        }
+    },
+    BUSY_SPIN {
+        @Override
+        public WaitStrategy create(long timeout, TimeUnit unit) {
+            return new DeadlineWaitStrategy(DeadlineWaitStrategy.Idle.SPIN, timeout, unit);
+        }
+    };
+
+    /**
+     * @param timeout How long the consumer may stay idle before it gets a timeout callback.
+     * @return a new instance; wait strategies hold per-ring state and must not be shared.
+     */
+    public abstract WaitStrategy create(long timeout, TimeUnit unit);
+}
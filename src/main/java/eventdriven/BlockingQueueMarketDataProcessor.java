@@ -1,75 +1,156 @@
 package eventdriven;
 
+import codec.TickDecoder;
+import journal.Journal;
+import metrics.MetricsSnapshot;
+import metrics.ProcessorMetrics;
+import scheduler.LatestValueScheduler;
+import throttle.ThrottlePolicy;
+import utils.Clock;
 import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
 
-import java.util.Map;
+import java.nio.ByteBuffer;
 import java.util.concurrent.*;
 
 /**
  * BlockingQueueMarketDataProcessor is responsible for processing and publishing market data
  * while adhering to rate limits for both global and per-symbol publishing.
  *
- * Uses ArrayBlockingQueue to efficiently and thread-safely track global publish timestamps.
+ * The class name is historical: no ArrayBlockingQueue is used any more. The global budget comes from the
+ * ThrottlePolicy's RateLimiter, whose default sliding-window log is a bounded primitive ring, and pending symbols
+ * are ordered and published by a LatestValueScheduler, the same one DequeMarketDataProcessor uses.
+ * Per-symbol state lives in flat arrays indexed by the symbol id from a SymbolRegistry, and the scheduler
+ * orders pending symbols by the time they became eligible so a tick never scans idle symbols and
+ * the longest-waiting symbol is published first when the global quota is short.
+ * With priority lanes in the policy, that order applies within each lane and the most urgent lane goes first.
  */
 public class BlockingQueueMarketDataProcessor {
 
-    private final Map<String, MarketData> latestBySymbol = new ConcurrentHashMap<>();
-    private final Map<String, Long> lastPublishedTime = new ConcurrentHashMap<>();
-    private final BlockingQueue<Long> publishTimestamps = new ArrayBlockingQueue<>(MAX_GLOBAL_RATE + 10);
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-
-    private static final int MAX_GLOBAL_RATE = 100; // max publishes/sec
-    private static final long SYMBOL_PUBLISH_INTERVAL_MS = 1000; // 1/sec per symbol
-    private static final long GLOBAL_WINDOW_MS = 1000; // sliding window
+    private final SymbolRegistry registry;
+    private final LatestValueScheduler publisher;
+    private final ScheduledExecutorService scheduler; // null when ticks are driven through tick()
+    private final ProcessorMetrics metrics; // single producer
+    private final Journal inbound; // null unless incoming ticks are journaled
 
+    /**
+     * Default limits and a registry of SymbolRegistry.DEFAULT_CAPACITY (65,536) symbols. The registry does not grow:
+     * once it is full, onMessage throws IllegalStateException for every new symbol, on the calling thread.
+     * Use the symbolCapacity constructor, or a registry with an EvictionPolicy, for larger or churning universes.
+     */
     public BlockingQueueMarketDataProcessor() {
-        scheduler.scheduleAtFixedRate(this::processAndPublish, 0, 10, TimeUnit.MILLISECONDS);
+        this(SymbolRegistry.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Default limits and a registry for up to symbolCapacity distinct symbols; per-symbol arrays are sized to it.
+     */
+    public BlockingQueueMarketDataProcessor(int symbolCapacity) {
+        this(new SymbolRegistry(symbolCapacity), ThrottlePolicy.defaults());
+    }
+
+    /**
+     * @param policy Global budget and per-symbol interval; owned by this processor from now on.
+     */
+    public BlockingQueueMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy) {
+        this(registry, policy, Clock.system(), true);
+    }
+
+    /**
+     * @param clock    Time source for cooldowns, the global budget and staleness.
+     * @param autoTick false to publish only when tick() is called, e.g. with a ManualClock
+     *                 for deterministic tests, replay or simulation; no scheduler thread is started.
+     */
+    public BlockingQueueMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy, Clock clock, boolean autoTick) {
+        this(registry, policy, clock, autoTick, null);
+    }
+
+    /**
+     * @param inbound Journal for every incoming tick, written on the onMessage thread, which must then be its
+     *                only writer; a JournalReplayer can feed it back into a processor in another process.
+     *                Null to journal nothing.
+     */
+    public BlockingQueueMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy, Clock clock,
+                                            boolean autoTick, Journal inbound) {
+        this.registry = registry;
+        this.inbound = inbound;
+        policy.bind(registry.capacity());
+        this.metrics = new ProcessorMetrics(false, policy.laneCount());
+        this.publisher = new LatestValueScheduler(registry, policy, clock, metrics, this::publishAggregatedBatch);
+        this.scheduler = autoTick ? Executors.newSingleThreadScheduledExecutor() : null;
+        if (autoTick) {
+            scheduler.scheduleAtFixedRate(publisher::tick, 0, 10, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
      * Receives incoming market data and stores the latest value per symbol.
      *
      * @param data The incoming market data to process.
+     * @throws IllegalArgumentException if the id it carries does not belong to this processor's registry.
      */
     public void onMessage(MarketData data) {
-        latestBySymbol.put(data.getSymbol(), data);
+        accept(registry.idOf(data), data, 0);
     }
 
     /**
-     * Periodically processes and publishes market data while adhering to global and per-symbol rate limits.
+     * Accepts a tick encoded by TickEncoder, whose symbol id must come from this processor's registry.
+     * Skips the symbol lookup; the only allocation is the MarketData kept as the symbol's latest value.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a tick at offset, or its symbol id is not
+     *                                  registered.
      */
-    private void processAndPublish() {
-        long now = System.currentTimeMillis();
-
-        // Clean up expired global timestamps
-        while (!publishTimestamps.isEmpty()) {
-            Long ts = publishTimestamps.peek();
-            if (ts != null && now - ts > GLOBAL_WINDOW_MS) {
-                publishTimestamps.poll();
-            } else {
-                break;
-            }
-        }
+    public void onMessage(ByteBuffer buffer, int offset) {
+        TickDecoder.check(buffer, offset);
+        int id = registry.checkRegistered(TickDecoder.symbolId(buffer, offset));
+        accept(id, new MarketData(id, registry.symbolOf(id),
+                TickDecoder.price(buffer, offset), TickDecoder.updateTime(buffer, offset)),
+                TickDecoder.quantity(buffer, offset));
+    }
 
-        int remainingQuota = MAX_GLOBAL_RATE - publishTimestamps.size();
-        if (remainingQuota <= 0) return;
+    /**
+     * The quantity is only journaled; this processor publishes the latest price.
+     */
+    private void accept(int id, MarketData data, long quantity) {
+        if (inbound != null) {
+            inbound.appendTick(id, data.getSymbol(), data.getPrice(), quantity, data.getUpdateTime());
+        }
+        registry.touch(id);
+        publisher.offer(id, data);
+    }
 
-        int publishedCount = 0;
+    /**
+     * Runs one publish tick on the calling thread; only available when constructed with autoTick false.
+     */
+    public void tick() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Ticks are driven by the scheduler");
+        }
+        publisher.tick();
+    }
 
-        for (Map.Entry<String, MarketData> entry : latestBySymbol.entrySet()) {
-            if (publishedCount >= remainingQuota) break;
+    /**
+     * @return the longest time any update waited between arriving and being published.
+     */
+    public long maxObservedStalenessMs() {
+        return publisher.maxObservedStalenessMs();
+    }
 
-            String symbol = entry.getKey();
-            MarketData data = entry.getValue();
-            Long lastTime = lastPublishedTime.getOrDefault(symbol, 0L);
+    /**
+     * @return the counters and publish latency recorded so far; safe to call from any thread.
+     */
+    public MetricsSnapshot metrics() {
+        return metrics.snapshot();
+    }
 
-            if (now - lastTime >= SYMBOL_PUBLISH_INTERVAL_MS) {
-                publishAggregatedMarketData(data);
-                lastPublishedTime.put(symbol, now);
-                publishTimestamps.offer(now);
-                latestBySymbol.remove(symbol); // avoid re-publishing
-                publishedCount++;
-            }
+    /**
+     * Receives everything published in one tick; the batch is reused after this returns.
+     * The default hands each update to publishAggregatedMarketData.
+     */
+    public void publishAggregatedBatch(MarketDataBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            publishAggregatedMarketData(batch.marketData(i));
         }
     }
 
@@ -84,6 +165,8 @@ public class BlockingQueueMarketDataProcessor {
      * Clean shutdown for the scheduler.
      */
     public void shutdown() {
-        scheduler.shutdownNow();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
     }
 }
@@ -0,0 +1,208 @@
+package journal;
+
+import codec.SnapshotEncoder;
+import codec.SymbolEncoder;
+import codec.TickEncoder;
+import utils.Clock;
+import utils.MarketDataBatch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Journal is an append-only record of ticks or published snapshots, written to a series of
+ * memory-mapped segment files ({@code <name>-00000.journal}, {@code <name>-00001.journal}, ...).
+ *
+ * Each record is a frame holding one codec message:
+ *
+ * <pre>
+ * offset 0   int32   frameLength   length of the message that follows; 0 marks the end of the segment
+ * offset 4   int32   reserved
+ * offset 8   int64   recordedNanos the journal's Clock.nanoTime() when the record was appended
+ * offset 16  message TickEncoder, SnapshotEncoder or SymbolEncoder layout, padded to 8 bytes
+ * </pre>
+ *
+ * Ticks and snapshots carry SymbolRegistry ids, which only mean something to the registry that assigned them.
+ * So the journal writes a symbol definition (id and name) ahead of the first record of each id, and again
+ * if the id is later reused for another symbol; a reader in another process rebuilds its registry from them
+ * (see JournalReplayer). A definition costs one frame per symbol, not per record.
+ *
+ * Appending encodes straight into the mapped segment, so it allocates nothing except when a segment
+ * fills up and the next one is mapped. The frame length is written last, after the message.
+ * Not thread-safe: each journal has a single writer (e.g. one for inbound ticks, one for snapshots).
+ * A new Journal on an existing directory continues after the last segment it finds.
+ */
+public class Journal implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final int FRAME_HEADER_LENGTH = 16;
+    static final int LENGTH_OFFSET = 0;
+    static final int RECORDED_NANOS_OFFSET = 8;
+
+    private final Path directory;
+    private final String name;
+    private final int segmentSize;
+    private final Clock clock;
+    private final TickEncoder tickEncoder = new TickEncoder();
+    private final SnapshotEncoder snapshotEncoder = new SnapshotEncoder();
+    private final SymbolEncoder symbolEncoder = new SymbolEncoder();
+    private String[] definedSymbols = new String[1024]; // by symbol id: the name last journaled for it
+
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int position;
+
+    public Journal(Path directory, String name) throws IOException {
+        this(directory, name, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize Bytes per segment file; every segment is mapped at this size up front.
+     */
+    public Journal(Path directory, String name, int segmentSize) throws IOException {
+        this(directory, name, segmentSize, Clock.system());
+    }
+
+    /**
+     * @param clock Stamps each record with the time it was appended, which RECORDED replay paces itself by.
+     */
+    public Journal(Path directory, String name, int segmentSize, Clock clock) throws IOException {
+        if (segmentSize < FRAME_HEADER_LENGTH + Math.max(TickEncoder.ENCODED_LENGTH,
+                Math.max(SnapshotEncoder.ENCODED_LENGTH, SymbolEncoder.MAX_ENCODED_LENGTH))) {
+            throw new IllegalArgumentException("segmentSize too small for one record: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.clock = clock;
+        int next = 0;
+        while (Files.exists(segmentPath(directory, name, next))) {
+            next++;
+        }
+        map(next);
+    }
+
+    /**
+     * Time Complexity: O(1) - One frame written into the mapped segment, two for the first tick of a symbol.
+     * Space Complexity: O(1) - No allocation unless the segment rolls over or the symbol is new to the journal.
+     *
+     * @param symbol The registry's name for symbolId, journaled once per id; null if the registry no longer
+     *               knows the id, and then the tick is journaled under whatever name the id was last defined with.
+     * @throws IllegalArgumentException if the symbol is longer than SymbolEncoder.MAX_SYMBOL_LENGTH bytes.
+     */
+    public void appendTick(int symbolId, String symbol, double price, long updateTime) {
+        appendTick(symbolId, symbol, price, 0, updateTime);
+    }
+
+    /**
+     * Records the traded quantity too, so a replay rebuilds the same bar volume and VWAP.
+     */
+    public void appendTick(int symbolId, String symbol, double price, long quantity, long updateTime) {
+        define(symbolId, symbol);
+        int frame = claim(TickEncoder.ENCODED_LENGTH);
+        tickEncoder.wrap(segment, frame + FRAME_HEADER_LENGTH)
+                .symbolId(symbolId)
+                .price(price)
+                .updateTime(updateTime)
+                .quantity(quantity);
+        commit(frame, TickEncoder.ENCODED_LENGTH);
+    }
+
+    public void appendSnapshot(int symbolId, String symbol, double price, long updateTime, long publishTime) {
+        define(symbolId, symbol);
+        int frame = claim(SnapshotEncoder.ENCODED_LENGTH);
+        snapshotEncoder.wrap(segment, frame + FRAME_HEADER_LENGTH)
+                .symbolId(symbolId)
+                .price(price)
+                .updateTime(updateTime)
+                .publishTime(publishTime);
+        commit(frame, SnapshotEncoder.ENCODED_LENGTH);
+    }
+
+    /**
+     * Records every entry of a published batch, one snapshot frame each.
+     */
+    public void appendSnapshots(MarketDataBatch batch, long publishTime) {
+        for (int i = 0; i < batch.size(); i++) {
+            appendSnapshot(batch.symbolId(i), batch.symbol(i), batch.price(i), batch.updateTime(i), publishTime);
+        }
+    }
+
+    /**
+     * Journals the symbol's definition unless it is already the last one journaled for the id.
+     */
+    private void define(int symbolId, String symbol) {
+        if (symbolId >= definedSymbols.length) {
+            definedSymbols = Arrays.copyOf(definedSymbols, Math.max(symbolId + 1, definedSymbols.length * 2));
+        }
+        if (symbol == null || symbol.equals(definedSymbols[symbolId])) {
+            return; // Usually the registry's own instance, so equals() returns on the reference check
+        }
+        byte[] utf8 = SymbolEncoder.encode(symbol);
+        int length = SymbolEncoder.encodedLength(utf8.length);
+        int frame = claim(length);
+        symbolEncoder.wrap(segment, frame + FRAME_HEADER_LENGTH)
+                .symbolId(symbolId)
+                .symbol(utf8);
+        commit(frame, length);
+        definedSymbols[symbolId] = symbol;
+    }
+
+    /**
+     * Flushes the current segment to the storage device. Not needed for other readers on the same machine,
+     * which see the mapped pages directly.
+     */
+    public void force() {
+        segment.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    private int claim(int messageLength) {
+        int frameLength = align(FRAME_HEADER_LENGTH + messageLength);
+        if (position + frameLength > segmentSize) {
+            segment.force();
+            map(segmentIndex + 1); // The rest of the old segment stays zero, which readers take as its end
+        }
+        int frame = position;
+        position += frameLength;
+        return frame;
+    }
+
+    private void commit(int frame, int messageLength) {
+        segment.putLong(frame + RECORDED_NANOS_OFFSET, clock.nanoTime());
+        segment.putInt(frame + LENGTH_OFFSET, messageLength);
+    }
+
+    private void map(int index) {
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, name, index),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map journal segment " + index + " of " + name, e);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segmentIndex = index;
+        position = 0;
+    }
+
+    static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    static Path segmentPath(Path directory, String name, int index) {
+        return directory.resolve(String.format("%s-%05d.journal", name, index));
+    }
+}
@@ -0,0 +1,34 @@
+package journal;
+
+import com.lmax.disruptor.EventHandler;
+import disruptor.MarketDataEvent;
+import utils.SymbolRegistry;
+
+/**
+ * Disruptor consumer that journals every inbound tick. It runs on its own thread alongside the
+ * throttling handler, so journaling adds no work to onMessage or to publishing. Quantities are kept, so a replay
+ * into a processor with aggregateBars(true) rebuilds the same bars.
+ *
+ * The ring only carries symbol ids, so the names the journal defines them with are looked up in the processor's
+ * registry when the tick is journaled. An evicting registry quarantines an id before reusing it, which keeps
+ * that lookup right as long as this handler is less than a quarantine behind the producers.
+ */
+public class JournalEventHandler implements EventHandler<MarketDataEvent> {
+
+    private final Journal journal;
+    private final SymbolRegistry registry;
+
+    /**
+     * @param registry The registry of the processor this handler is added to.
+     */
+    public JournalEventHandler(Journal journal, SymbolRegistry registry) {
+        this.journal = journal;
+        this.registry = registry;
+    }
+
+    @Override
+    public void onEvent(MarketDataEvent event, long sequence, boolean endOfBatch) {
+        journal.appendTick(event.symbolId, registry.symbolOf(event.symbolId), event.price, event.quantity,
+                event.updateTime);
+    }
+}
@@ -0,0 +1,89 @@
+package journal;
+
+import codec.MessageHeader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cursor over the records of a Journal, in append order across all of its segments.
+ *
+ * After next() returns true, buffer() and messageOffset() locate the record's codec message,
+ * which can be handed to a decoder or to a processor's onMessage(ByteBuffer, offset) as-is.
+ * Reading allocates nothing except when moving to the next segment.
+ */
+public class JournalReader {
+
+    private final Path directory;
+    private final String name;
+
+    private MappedByteBuffer segment;
+    private int segmentIndex = -1;
+    private int position;
+    private int frame = -1;
+
+    public JournalReader(Path directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false once every segment has been read.
+     */
+    public boolean next() {
+        while (true) {
+            if (segment == null && !mapNextSegment()) {
+                return false;
+            }
+            if (position + Journal.FRAME_HEADER_LENGTH <= segment.capacity()) {
+                int length = segment.getInt(position + Journal.LENGTH_OFFSET);
+                if (length > 0) {
+                    frame = position;
+                    position += Journal.align(Journal.FRAME_HEADER_LENGTH + length);
+                    return true;
+                }
+            }
+            segment = null; // End of this segment
+        }
+    }
+
+    public long recordedNanos() {
+        return segment.getLong(frame + Journal.RECORDED_NANOS_OFFSET);
+    }
+
+    public int templateId() {
+        return MessageHeader.templateId(segment, messageOffset());
+    }
+
+    public MappedByteBuffer buffer() {
+        return segment;
+    }
+
+    public int messageOffset() {
+        return frame + Journal.FRAME_HEADER_LENGTH;
+    }
+
+    private boolean mapNextSegment() {
+        Path path = Journal.segmentPath(directory, name, segmentIndex + 1);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map journal segment " + path, e);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segmentIndex++;
+        position = 0;
+        return true;
+    }
+}
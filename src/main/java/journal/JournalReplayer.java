@@ -0,0 +1,113 @@
+package journal;
+
+import codec.MessageHeader;
+import codec.SymbolDecoder;
+import codec.SymbolEncoder;
+import codec.TickDecoder;
+import codec.TickEncoder;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds the ticks of a journal back into a processor, either as fast as the processor accepts them
+ * or with the gaps between ticks as they were recorded. Snapshot records are skipped.
+ *
+ * The journal's symbol definitions are registered in the processor's registry as they come, so a replay works
+ * in a fresh process: a tick whose recorded id maps to another id there is re-encoded with that id first.
+ * Ticks journaled before schema version 3, which has no definitions, keep their recorded ids, and those must
+ * then be registered already.
+ *
+ * Max-speed replay of a production capture doubles as a throughput benchmark with a realistic
+ * symbol mix and burst pattern.
+ */
+public final class JournalReplayer {
+
+    public enum Speed { MAX, RECORDED }
+
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+    private static final int DEFINITIONS_SINCE_VERSION = 3;
+    private static final int UNDEFINED = -1;
+
+    private JournalReplayer() {
+    }
+
+    /**
+     * @param registry The registry of the processor behind target.
+     * @return the number of ticks replayed; ticks of an id the journal never defined are skipped, since the
+     * recording registry had already evicted it.
+     * @throws IllegalStateException if the registry is too small for the journal's symbols.
+     */
+    public static long replay(JournalReader reader, SymbolRegistry registry, TickHandler target, Speed speed) {
+        SymbolDecoder definition = new SymbolDecoder();
+        TickEncoder remapped = new TickEncoder();
+        ByteBuffer scratch = ByteBuffer.allocate(TickEncoder.ENCODED_LENGTH);
+        int[] liveIds = new int[1024]; // by recorded id: the id of the same symbol in registry
+        Arrays.fill(liveIds, UNDEFINED);
+        long ticks = 0;
+        long firstRecorded = 0;
+        long start = 0;
+        while (reader.next()) {
+            ByteBuffer buffer = reader.buffer();
+            int offset = reader.messageOffset();
+            int templateId = reader.templateId();
+            if (templateId == SymbolEncoder.TEMPLATE_ID) {
+                definition.wrap(buffer, offset);
+                int recorded = definition.symbolId();
+                if (recorded >= liveIds.length) {
+                    int length = liveIds.length;
+                    liveIds = Arrays.copyOf(liveIds, Math.max(recorded + 1, length * 2));
+                    Arrays.fill(liveIds, length, liveIds.length, UNDEFINED);
+                }
+                liveIds[recorded] = registry.idOf(definition.symbol());
+                continue;
+            }
+            if (templateId != TickEncoder.TEMPLATE_ID) {
+                continue;
+            }
+
+            int recorded = TickDecoder.symbolId(buffer, offset);
+            int live = recorded < liveIds.length ? liveIds[recorded] : UNDEFINED;
+            if (live == UNDEFINED) {
+                if (MessageHeader.version(buffer, offset) >= DEFINITIONS_SINCE_VERSION) {
+                    continue; // Journaled after its symbol was evicted, so there is no name to publish it under
+                }
+                live = recorded;
+            }
+            if (live != recorded) {
+                remapped.wrap(scratch, 0)
+                        .symbolId(live)
+                        .price(TickDecoder.price(buffer, offset))
+                        .updateTime(TickDecoder.updateTime(buffer, offset))
+                        .quantity(TickDecoder.quantity(buffer, offset));
+                buffer = scratch;
+                offset = 0;
+            }
+
+            if (speed == Speed.RECORDED) {
+                if (ticks == 0) {
+                    firstRecorded = reader.recordedNanos();
+                    start = System.nanoTime();
+                } else {
+                    awaitOffset(start, reader.recordedNanos() - firstRecorded);
+                }
+            }
+            target.onTick(buffer, offset);
+            ticks++;
+        }
+        return ticks;
+    }
+
+    private static void awaitOffset(long start, long offsetNanos) {
+        long remaining;
+        while ((remaining = start + offsetNanos - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package journal;
+
+import disruptor.MarketDataConsumer;
+import utils.MarketData;
+import utils.MarketDataBatch;
+
+/**
+ * Records every published snapshot in a journal before passing it on to the real consumer.
+ * Runs on the publishing thread, which is then the journal's single writer.
+ */
+public class JournalingConsumer implements MarketDataConsumer {
+
+    private final Journal journal;
+    private final MarketDataConsumer delegate;
+
+    public JournalingConsumer(Journal journal, MarketDataConsumer delegate) {
+        this.journal = journal;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void publish(MarketData data) {
+        journal.appendSnapshot(data.getSymbolId(), data.getSymbol(), data.getPrice(), data.getUpdateTime(),
+                System.currentTimeMillis());
+        delegate.publish(data);
+    }
+
+    @Override
+    public void publishBatch(MarketDataBatch batch) {
+        journal.appendSnapshots(batch, System.currentTimeMillis());
+        delegate.publishBatch(batch);
+    }
+}
@@ -0,0 +1,11 @@
+package journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives an encoded tick; every processor's onMessage(ByteBuffer, offset) fits, e.g. {@code processor::onMessage}.
+ */
+@FunctionalInterface
+public interface TickHandler {
+    void onTick(ByteBuffer buffer, int offset);
+}
@@ -0,0 +1,37 @@
+package metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Counter for a value incremented by a single thread and read by any thread, e.g. a scraper.
+ *
+ * The increment is a plain add followed by an opaque store: no lock prefix and no fence, so it costs
+ * about as much as a field increment. Increments from more than one thread may be lost; use a
+ * LongAdder where several threads count the same thing.
+ */
+public final class Counter {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Counter.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private long value;
+    // Keeps counters written by different threads off each other's cache line
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+
+    public void increment() {
+        VALUE.setOpaque(this, value + 1); // The owning thread reads its own last write, so a plain read is enough
+    }
+
+    public long get() {
+        return (long) VALUE.getOpaque(this);
+    }
+}
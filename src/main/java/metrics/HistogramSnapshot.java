@@ -0,0 +1,59 @@
+package metrics;
+
+/**
+ * Immutable copy of a LatencyHistogram, with percentile queries. Values are in nanoseconds.
+ */
+public final class HistogramSnapshot {
+
+    public static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[LatencyHistogram.BUCKET_COUNT], 0);
+
+    private final long[] counts;
+    private final long totalCount;
+    private final long maxValue;
+
+    HistogramSnapshot(long[] counts, long maxValue) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        this.counts = counts;
+        this.totalCount = total;
+        this.maxValue = maxValue;
+    }
+
+    public long count() {
+        return totalCount;
+    }
+
+    public long max() {
+        return maxValue;
+    }
+
+    /**
+     * @param percentile In [0, 100], e.g. 99.9.
+     * @return a value at or above the given percentile of recordings, within the histogram's precision; 0 if empty.
+     */
+    public long valueAtPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValueIn(bucket), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * @return the combined distribution, e.g. across shards.
+     */
+    public HistogramSnapshot plus(HistogramSnapshot other) {
+        long[] sum = new long[counts.length];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = counts[i] + other.counts[i];
+        }
+        return new HistogramSnapshot(sum, Math.max(maxValue, other.maxValue));
+    }
+}
@@ -0,0 +1,186 @@
+package metrics;
+
+/**
+ * Immutable point-in-time view of a processor's metrics, for scraping.
+ * Counters are cumulative since the processor started; take differences between snapshots for rates.
+ */
+public final class MetricsSnapshot {
+
+    /**
+     * Ring remaining capacity of a processor without a ring.
+     */
+    public static final long NO_RING = -1;
+
+    private final long ingested;
+    private final long coalesced;
+    private final long published;
+    private final long symbolThrottled;
+    private final long globalRejections;
+    private final long tierRejections;
+    private final long suppressed;
+    private final long waitingSymbols;
+    private final long ringRemainingCapacity;
+    private final long ingressConflated;
+    private final long ingressDropped;
+    private final HistogramSnapshot publishLatency;
+    private final HistogramSnapshot[] laneLatency; // one per lane; just publishLatency with a single lane
+
+    MetricsSnapshot(long ingested, long coalesced, long published, long symbolThrottled, long globalRejections,
+                    long tierRejections, long suppressed, long waitingSymbols, long ringRemainingCapacity,
+                    long ingressConflated, long ingressDropped, HistogramSnapshot publishLatency,
+                    HistogramSnapshot[] laneLatency) {
+        this.ingested = ingested;
+        this.coalesced = coalesced;
+        this.published = published;
+        this.symbolThrottled = symbolThrottled;
+        this.globalRejections = globalRejections;
+        this.tierRejections = tierRejections;
+        this.suppressed = suppressed;
+        this.waitingSymbols = waitingSymbols;
+        this.ringRemainingCapacity = ringRemainingCapacity;
+        this.ingressConflated = ingressConflated;
+        this.ingressDropped = ingressDropped;
+        this.publishLatency = publishLatency;
+        this.laneLatency = laneLatency;
+    }
+
+    public long ingested() {
+        return ingested;
+    }
+
+    /**
+     * @return updates replaced by a newer one for the same symbol before they were published.
+     */
+    public long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return the fraction of ingested updates that were coalesced away, 0 before the first update.
+     */
+    public double coalesceRatio() {
+        return ingested == 0 ? 0 : (double) coalesced / ingested;
+    }
+
+    public long published() {
+        return published;
+    }
+
+    public long symbolThrottled() {
+        return symbolThrottled;
+    }
+
+    public long globalRejections() {
+        return globalRejections;
+    }
+
+    public long tierRejections() {
+        return tierRejections;
+    }
+
+    /**
+     * @return publishes skipped by the policy's SignificanceFilter because the price had barely moved, whether
+     * the update was dropped on arrival or while its symbol waited; each one saved a global permit.
+     */
+    public long suppressed() {
+        return suppressed;
+    }
+
+    public long waitingSymbols() {
+        return waitingSymbols;
+    }
+
+    /**
+     * @return free slots in the Disruptor ring, or NO_RING for the other processors.
+     */
+    public long ringRemainingCapacity() {
+        return ringRemainingCapacity;
+    }
+
+    /**
+     * @return ticks overwritten in place before reaching the Disruptor ring: while the ring was full
+     * (OverloadPolicy.CONFLATE), or while their symbol was already waiting in it (conflating ingress).
+     */
+    public long ingressConflated() {
+        return ingressConflated;
+    }
+
+    /**
+     * @return ticks dropped while the Disruptor ring was full (OverloadPolicy.DROP_OLDEST or DROP_NEWEST).
+     */
+    public long ingressDropped() {
+        return ingressDropped;
+    }
+
+    public HistogramSnapshot publishLatency() {
+        return publishLatency;
+    }
+
+    /**
+     * @return the priority lanes the processor published from; 1 without priority lanes.
+     */
+    public int laneCount() {
+        return laneLatency.length;
+    }
+
+    /**
+     * @return the publish latency of the symbols published from one priority lane, lane 0 being the most urgent.
+     */
+    public HistogramSnapshot publishLatency(int lane) {
+        return laneLatency[lane];
+    }
+
+    public MetricsSnapshot withRingRemainingCapacity(long remaining) {
+        return new MetricsSnapshot(ingested, coalesced, published, symbolThrottled, globalRejections, tierRejections,
+                suppressed, waitingSymbols, remaining, ingressConflated, ingressDropped, publishLatency, laneLatency);
+    }
+
+    public MetricsSnapshot withIngressOverload(long conflated, long dropped) {
+        return new MetricsSnapshot(ingested, coalesced, published, symbolThrottled, globalRejections, tierRejections,
+                suppressed, waitingSymbols, ringRemainingCapacity, conflated, dropped, publishLatency, laneLatency);
+    }
+
+    /**
+     * @return the sum of both snapshots, e.g. across the shards of one processor.
+     */
+    public MetricsSnapshot plus(MetricsSnapshot other) {
+        return new MetricsSnapshot(ingested + other.ingested, coalesced + other.coalesced,
+                published + other.published, symbolThrottled + other.symbolThrottled,
+                globalRejections + other.globalRejections, tierRejections + other.tierRejections,
+                suppressed + other.suppressed, waitingSymbols + other.waitingSymbols, ringRemainingCapacity, ingressConflated + other.ingressConflated,
+                ingressDropped + other.ingressDropped, publishLatency.plus(other.publishLatency),
+                plus(laneLatency, other.laneLatency));
+    }
+
+    private static HistogramSnapshot[] plus(HistogramSnapshot[] lanes, HistogramSnapshot[] otherLanes) {
+        HistogramSnapshot[] longer = lanes.length >= otherLanes.length ? lanes : otherLanes;
+        HistogramSnapshot[] shorter = longer == lanes ? otherLanes : lanes;
+        HistogramSnapshot[] sum = longer.clone();
+        for (int lane = 0; lane < shorter.length; lane++) {
+            sum[lane] = sum[lane].plus(shorter[lane]);
+        }
+        return sum;
+    }
+
+    /**
+     * One line of key=value pairs, latencies in microseconds.
+     */
+    @Override
+    public String toString() {
+        String line = String.format("ingested=%d coalesced=%d coalesceRatio=%.3f published=%d symbolThrottled=%d"
+                        + " globalRejections=%d tierRejections=%d suppressed=%d waitingSymbols=%d ringRemaining=%d"
+                        + " ingressConflated=%d ingressDropped=%d publishLatencyUs.p50=%.1f p99=%.1f p999=%.1f max=%.1f",
+                ingested, coalesced, coalesceRatio(), published, symbolThrottled, globalRejections, tierRejections,
+                suppressed, waitingSymbols, ringRemainingCapacity, ingressConflated, ingressDropped,
+                publishLatency.valueAtPercentile(50) / 1e3, publishLatency.valueAtPercentile(99) / 1e3,
+                publishLatency.valueAtPercentile(99.9) / 1e3, publishLatency.max() / 1e3);
+        if (laneLatency.length == 1) return line;
+
+        StringBuilder lanes = new StringBuilder(line);
+        for (int lane = 0; lane < laneLatency.length; lane++) {
+            lanes.append(String.format(" lane%dLatencyUs.p50=%.1f p99=%.1f", lane,
+                    laneLatency[lane].valueAtPercentile(50) / 1e3, laneLatency[lane].valueAtPercentile(99) / 1e3));
+        }
+        return lanes.toString();
+    }
+}
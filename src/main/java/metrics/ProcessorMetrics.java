@@ -0,0 +1,142 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ProcessorMetrics is the instrumentation recorded by one processor (or one shard) on its hot paths.
+ *
+ * Key Features:
+ * - Allocation-free recording: counters and a fixed-size latency histogram, no locks.
+ * - Counters match their writers: single-writer Counters for state owned by one thread, a striped
+ *   LongAdder for coalesced updates when several producers call onMessage concurrently.
+ * - Recording can be switched off for the whole JVM with -Dmarketdata.metrics=false; the flag is a
+ *   static final, so the JIT removes the recording code entirely.
+ * - snapshot() may be called from any thread, e.g. by a scraper, and returns an immutable MetricsSnapshot.
+ *
+ * What is recorded:
+ * - pendingStarts / coalesced: an update either made its symbol pending or replaced a pending update.
+ * - symbolThrottled: a symbol had to wait out its per-symbol interval before it could be published.
+ * - globalRejections / tierRejections: a publish attempt refused by the global budget or by its tier's budget.
+ * - suppressed: an update the SignificanceFilter found too small to publish, either on arrival (it never made
+ *   its symbol pending) or when its waiting symbol came up for a permit.
+ * - publishLatency: from the oldest unpublished update of a symbol arriving to its publish, in nanoseconds;
+ *   with priority lanes, also one histogram per lane.
+ * - waitingSymbols: symbols with pending data at the end of the last tick (the retry set).
+ */
+public final class ProcessorMetrics {
+
+    public static final boolean ENABLED = !"false".equals(System.getProperty("marketdata.metrics"));
+
+    private final LongAdder concurrentCoalesced; // null with a single producer
+    private final Counter coalesced = new Counter();
+    private final Counter pendingStarts = new Counter();
+    private final Counter published = new Counter();
+    private final Counter symbolThrottled = new Counter();
+    private final Counter globalRejections = new Counter();
+    private final Counter tierRejections = new Counter();
+    private final Counter suppressedOnArrival = new Counter();
+    private final Counter suppressedPending = new Counter();
+    private final LatencyHistogram publishLatency = new LatencyHistogram();
+    private final LatencyHistogram[] laneLatency; // null with a single lane
+    private volatile int waitingSymbols;
+
+    /**
+     * @param concurrentProducers true if coalesced updates are recorded from more than one thread.
+     */
+    public ProcessorMetrics(boolean concurrentProducers) {
+        this(concurrentProducers, 1);
+    }
+
+    /**
+     * @param laneCount Priority lanes of the processor, each with its own publish latency histogram.
+     */
+    public ProcessorMetrics(boolean concurrentProducers, int laneCount) {
+        this.concurrentCoalesced = concurrentProducers ? new LongAdder() : null;
+        if (laneCount > 1) {
+            laneLatency = new LatencyHistogram[laneCount];
+            for (int lane = 0; lane < laneCount; lane++) {
+                laneLatency[lane] = new LatencyHistogram();
+            }
+        } else {
+            laneLatency = null;
+        }
+    }
+
+    public void recordCoalesced() {
+        if (!ENABLED) return;
+        if (concurrentCoalesced != null) {
+            concurrentCoalesced.increment();
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    public void recordPendingStart() {
+        if (ENABLED) pendingStarts.increment();
+    }
+
+    public void recordSymbolThrottled() {
+        if (ENABLED) symbolThrottled.increment();
+    }
+
+    public void recordGlobalRejection() {
+        if (ENABLED) globalRejections.increment();
+    }
+
+    public void recordTierRejection() {
+        if (ENABLED) tierRejections.increment();
+    }
+
+    /**
+     * An update dropped before it made its symbol pending; it still counts as ingested.
+     */
+    public void recordSuppressedOnArrival() {
+        if (ENABLED) suppressedOnArrival.increment();
+    }
+
+    /**
+     * A pending symbol dropped without spending a permit.
+     */
+    public void recordSuppressedPending() {
+        if (ENABLED) suppressedPending.increment();
+    }
+
+    public void recordPublish(long latencyNanos) {
+        if (!ENABLED) return;
+        published.increment();
+        publishLatency.record(latencyNanos);
+    }
+
+    /**
+     * A publish from a priority lane; the same as recordPublish(latencyNanos) with a single lane.
+     */
+    public void recordPublish(long latencyNanos, int lane) {
+        if (!ENABLED) return;
+        published.increment();
+        publishLatency.record(latencyNanos);
+        if (laneLatency != null) laneLatency[lane].record(latencyNanos);
+    }
+
+    public void recordWaitingSymbols(int count) {
+        if (ENABLED) waitingSymbols = count;
+    }
+
+    public MetricsSnapshot snapshot() {
+        long coalescedCount = concurrentCoalesced != null ? concurrentCoalesced.sum() : coalesced.get();
+        long arrivals = suppressedOnArrival.get();
+        HistogramSnapshot latency = publishLatency.snapshot();
+        HistogramSnapshot[] lanes;
+        if (laneLatency == null) {
+            lanes = new HistogramSnapshot[] {latency};
+        } else {
+            lanes = new HistogramSnapshot[laneLatency.length];
+            for (int lane = 0; lane < lanes.length; lane++) {
+                lanes[lane] = laneLatency[lane].snapshot();
+            }
+        }
+        return new MetricsSnapshot(pendingStarts.get() + coalescedCount + arrivals, coalescedCount, published.get(),
+                symbolThrottled.get(), globalRejections.get(), tierRejections.get(),
+                arrivals + suppressedPending.get(), waitingSymbols,
+                MetricsSnapshot.NO_RING, 0, 0, latency, lanes);
+    }
+}
@@ -0,0 +1,266 @@
+package offheap;
+
+import codec.TickDecoder;
+import metrics.MetricsSnapshot;
+import metrics.ProcessorMetrics;
+import scheduler.PublishScheduler;
+import throttle.ThrottlePolicy;
+import utils.Clock;
+import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.OffHeapSymbolState;
+import utils.SymbolIdQueue;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OffHeapMarketDataProcessor is the DequeMarketDataProcessor algorithm with its per-symbol state in an
+ * OffHeapSymbolState instead of an AtomicReferenceArray of MarketData and long arrays, for universes of hundreds
+ * of thousands of symbols and more.
+ *
+ * Key Features:
+ * - No MarketData is retained per pending symbol: the latest price and update time, the last publish time and
+ *   the pending flag live in one direct buffer, so the heap only holds the registry and a few primitive arrays
+ *   (eligibility heap, handoff queue), whatever the number of pending symbols.
+ * - onMessage(symbolId, price, updateTime) and onMessage(ByteBuffer, offset) allocate nothing; a MarketData is
+ *   only created for a publish, if publishAggregatedMarketData is used.
+ * - Same throttling as the other processors: a ThrottlePolicy (global or tiered budget, per-symbol intervals,
+ *   significance filter, priority lanes), oldest-eligible first, one batch per tick, and ProcessorMetrics.
+ * - onMessage may be called from several threads; updates of one symbol take turns on its record's stamp.
+ *
+ * Time Complexity: O(1) per onMessage, O((p + k) log n) per tick - Where p symbols became pending since the
+ * last tick, k symbols are published, dropped or parked, and n symbols are pending overall.
+ * Space Complexity: O(capacity) - OffHeapSymbolState.RECORD_SIZE bytes off-heap and about 30 bytes on-heap
+ * per registry slot, preallocated.
+ */
+public class OffHeapMarketDataProcessor {
+
+    private final SymbolRegistry registry;
+    private final OffHeapSymbolState state;
+    private final SymbolIdQueue newlyPending; // symbols handed from onMessage to the scheduler thread
+    private final Publisher publisher; // scheduler thread only
+    private final MarketDataBatch batch; // scheduler thread only, reused every tick
+    private final ScheduledExecutorService scheduler; // null when ticks are driven through tick()
+    private final Clock clock;
+    private final ProcessorMetrics metrics;
+
+    public OffHeapMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy) {
+        this(registry, policy, Clock.system(), true);
+    }
+
+    /**
+     * @param policy   Global budget and per-symbol interval; owned by this processor from now on.
+     * @param autoTick false to publish only when tick() is called, e.g. with a ManualClock.
+     */
+    public OffHeapMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy, Clock clock, boolean autoTick) {
+        this.registry = registry;
+        this.clock = clock;
+        policy.bind(registry.capacity());
+        this.state = new OffHeapSymbolState(registry.capacity());
+        this.newlyPending = new SymbolIdQueue(registry.capacity());
+        this.batch = new MarketDataBatch(registry);
+        this.metrics = new ProcessorMetrics(true, policy.laneCount());
+        this.publisher = new Publisher(registry.capacity(), policy, metrics);
+        this.scheduler = autoTick ? Executors.newSingleThreadScheduledExecutor() : null;
+        if (autoTick) {
+            scheduler.scheduleAtFixedRate(publisher::tick, 0, 10, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stores the latest price of a symbol registered in this processor's registry.
+     *
+     * Time Complexity: O(1) - One CAS and a release store on the symbol's record.
+     *
+     * @throws IllegalArgumentException if symbolId is outside the registry or not assigned to a symbol.
+     */
+    public void onMessage(int symbolId, double price, long updateTime) {
+        registry.touch(registry.checkRegistered(symbolId));
+        if (state.update(symbolId, price, updateTime)) {
+            state.setPendingSinceNanos(symbolId, clock.nanoTime());
+            newlyPending.offer(symbolId); // Nothing was pending, so the scheduler does not know this symbol yet
+        } else {
+            metrics.recordCoalesced();
+        }
+    }
+
+    public void onMessage(MarketData data) {
+        onMessage(registry.idOf(data), data.getPrice(), data.getUpdateTime());
+    }
+
+    /**
+     * Accepts a tick encoded by TickEncoder, whose symbol id must come from this processor's registry.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a tick at offset, or its symbol id is not
+     *                                  registered.
+     */
+    public void onMessage(ByteBuffer buffer, int offset) {
+        TickDecoder.check(buffer, offset);
+        onMessage(TickDecoder.symbolId(buffer, offset), TickDecoder.price(buffer, offset),
+                TickDecoder.updateTime(buffer, offset));
+    }
+
+    /**
+     * Runs one publish tick on the calling thread, at the clock's current time.
+     * Only available when constructed with autoTick false; the caller then owns the tick loop.
+     */
+    public void tick() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Ticks are driven by the scheduler");
+        }
+        publisher.tick();
+    }
+
+    /**
+     * @return the longest time any update waited between arriving and being published.
+     */
+    public long maxObservedStalenessMs() {
+        return publisher.maxObservedStalenessMs();
+    }
+
+    /**
+     * @return the counters and publish latency recorded so far; safe to call from any thread.
+     */
+    public MetricsSnapshot metrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * @return the direct memory holding the per-symbol state, in bytes.
+     */
+    public long offHeapBytes() {
+        return state.offHeapBytes();
+    }
+
+    /**
+     * Receives everything published in one tick. Override it to write the tick downstream in one go;
+     * the batch is reused after this returns. The default hands each update to publishAggregatedMarketData.
+     */
+    public void publishAggregatedBatch(MarketDataBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            publishAggregatedMarketData(batch.marketData(i));
+        }
+    }
+
+    // Publish aggregated and throttled market data
+    public void publishAggregatedMarketData(MarketData data) {
+        // Placeholder for actual downstream publishing
+        System.out.printf("Published: %s -> %.2f at %d%n", data.getSymbol(), data.getPrice(), System.currentTimeMillis());
+    }
+
+    // For test or shutdown
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * The PublishScheduler over the off-heap records: times are kept in the records too, and a pending update is
+     * read and cleared through its record's stamp.
+     */
+    private final class Publisher extends PublishScheduler {
+
+        private final SymbolRegistry.SlotReclaimer reclaimer = this::reclaim;
+        private long capturedStamp;
+        private double capturedPrice;
+        private long capturedUpdateTime;
+
+        Publisher(int capacity, ThrottlePolicy policy, ProcessorMetrics metrics) {
+            super(capacity, policy, metrics, false);
+        }
+
+        void tick() {
+            long nowNanos = clock.nanoTime();
+
+            for (int id = newlyPending.poll(); id >= 0; id = newlyPending.poll()) {
+                if (registry.symbolOf(id) == null) {
+                    // A late update for an evicted symbol: its id may go to another symbol, so never publish it
+                    long stamp;
+                    do {
+                        stamp = state.readStamp(id);
+                    } while (!state.clearPending(id, stamp));
+                    continue;
+                }
+                schedule(id);
+            }
+
+            publishEligible(nowNanos);
+            registry.sweep(nowNanos / 1_000_000, reclaimer);
+
+            if (!batch.isEmpty()) {
+                try {
+                    publishAggregatedBatch(batch);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        @Override
+        protected void capture(int id) {
+            do {
+                capturedStamp = state.readStamp(id);
+                capturedPrice = state.price(id);
+                capturedUpdateTime = state.updateTime(id);
+            } while (!state.validate(id, capturedStamp));
+        }
+
+        @Override
+        protected double capturedPrice() {
+            return capturedPrice;
+        }
+
+        @Override
+        protected void publishCaptured(int id) {
+            batch.add(id, capturedPrice, capturedUpdateTime);
+        }
+
+        @Override
+        protected boolean clearCaptured(int id) {
+            return state.clearPending(id, capturedStamp);
+        }
+
+        /**
+         * May be one update newer than the captured price; interval and lane are rechecked anyway.
+         */
+        @Override
+        protected double pendingPrice(int id) {
+            return state.price(id);
+        }
+
+        @Override
+        protected long lastPublished(int id) {
+            return state.lastPublished(id);
+        }
+
+        @Override
+        protected void setLastPublished(int id, long now) {
+            state.setLastPublished(id, now);
+        }
+
+        @Override
+        protected long pendingSinceNanos(int id) {
+            return state.pendingSinceNanos(id);
+        }
+
+        @Override
+        protected void setPendingSinceNanos(int id, long nanos) {
+            state.setPendingSinceNanos(id, nanos);
+        }
+
+        /**
+         * Clears the state of a symbol the registry is evicting, unless it still has data to publish.
+         */
+        private boolean reclaim(int id) {
+            if (OffHeapSymbolState.isPending(state.readStamp(id))) return false;
+            state.reset(id);
+            policy.reset(id);
+            return true;
+        }
+    }
+}
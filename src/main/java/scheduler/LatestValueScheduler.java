@@ -0,0 +1,161 @@
+package scheduler;
+
+import metrics.ProcessorMetrics;
+import throttle.ThrottlePolicy;
+import utils.Clock;
+import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.SymbolIdQueue;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * LatestValueScheduler is the PublishScheduler of the processors that keep each symbol's latest MarketData:
+ * producers swap it into a slot, and the publishing thread runs tick() to publish what is eligible as one batch.
+ *
+ * Key Features:
+ * - offer() is one array swap; only the update that makes a slot pending hands it to the publishing thread,
+ *   through a SymbolIdQueue, and later updates just replace the pending value.
+ * - A late update for a symbol the registry has evicted is dropped when it is handed over, never published.
+ * - Can cover the whole registry, and then also sweeps it for eviction every tick, or one partition of it:
+ *   slot s holds symbol id s * stride + offset.
+ *
+ * offer() may be called from any number of threads; tick() from one thread at a time.
+ */
+public class LatestValueScheduler extends PublishScheduler {
+
+    private final SymbolRegistry registry;
+    private final AtomicReferenceArray<MarketData> latestBySlot;
+    private final SymbolIdQueue newlyPending; // slots that just got pending data, handed to the publishing thread
+    private final MarketDataBatch batch; // publishing thread only, reused every tick
+    private final Clock clock;
+    private final Consumer<MarketDataBatch> sink;
+    private final int stride;
+    private final int offset;
+    private final boolean sweeps;
+    private final SymbolRegistry.SlotReclaimer reclaimer = this::reclaim;
+    private MarketData captured;
+
+    /**
+     * Covers every symbol of the registry, and sweeps it for eviction every tick.
+     *
+     * @param sink Receives everything published in one tick; the batch is reused after it returns.
+     */
+    public LatestValueScheduler(SymbolRegistry registry, ThrottlePolicy policy, Clock clock, ProcessorMetrics metrics,
+                                Consumer<MarketDataBatch> sink) {
+        this(registry, policy, clock, metrics, sink, registry.capacity(), 1, 0, true);
+    }
+
+    /**
+     * Covers one partition of the registry, slot s being symbol id s * stride + offset; does not sweep.
+     */
+    public LatestValueScheduler(SymbolRegistry registry, ThrottlePolicy policy, Clock clock, ProcessorMetrics metrics,
+                                Consumer<MarketDataBatch> sink, int slotCount, int stride, int offset) {
+        this(registry, policy, clock, metrics, sink, slotCount, stride, offset, false);
+    }
+
+    private LatestValueScheduler(SymbolRegistry registry, ThrottlePolicy policy, Clock clock, ProcessorMetrics metrics,
+                                 Consumer<MarketDataBatch> sink, int slotCount, int stride, int offset, boolean sweeps) {
+        super(slotCount, policy, metrics);
+        this.registry = registry;
+        this.clock = clock;
+        this.sink = sink;
+        this.stride = stride;
+        this.offset = offset;
+        this.sweeps = sweeps;
+        this.latestBySlot = new AtomicReferenceArray<>(slotCount);
+        this.newlyPending = new SymbolIdQueue(slotCount);
+        this.batch = new MarketDataBatch(registry);
+    }
+
+    /**
+     * Stores the latest update of the slot's symbol.
+     *
+     * Time Complexity: O(1) - A single array swap, plus a handoff when the slot becomes pending.
+     */
+    public void offer(int slot, MarketData data) {
+        if (latestBySlot.getAndSet(slot, data) == null) {
+            setPendingSinceNanos(slot, clock.nanoTime());
+            newlyPending.offer(slot); // Nothing was pending, so the publishing thread does not know this slot yet
+        } else {
+            metrics.recordCoalesced();
+        }
+    }
+
+    /**
+     * Runs one publish tick at the clock's current time and hands the published updates to the sink.
+     *
+     * Time Complexity: O((p + k) log n) - Where p slots became pending since the last tick,
+     * k slots are published, dropped or parked, and n slots are pending overall.
+     */
+    public void tick() {
+        long nowNanos = clock.nanoTime();
+
+        for (int slot = newlyPending.poll(); slot >= 0; slot = newlyPending.poll()) {
+            if (registry.symbolOf(symbolId(slot)) == null) {
+                // A late update for an evicted symbol: its id may go to another symbol, so never publish it
+                latestBySlot.set(slot, null);
+                continue;
+            }
+            schedule(slot);
+        }
+
+        publishEligible(nowNanos);
+        if (sweeps) {
+            registry.sweep(nowNanos / 1_000_000, reclaimer); // Bounded work per tick, a no-op unless the registry evicts
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                sink.accept(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @Override
+    protected int symbolId(int slot) {
+        return slot * stride + offset;
+    }
+
+    @Override
+    protected void capture(int slot) {
+        captured = latestBySlot.get(slot);
+    }
+
+    @Override
+    protected double capturedPrice() {
+        return captured.getPrice();
+    }
+
+    @Override
+    protected void publishCaptured(int slot) {
+        batch.add(symbolId(slot), captured);
+    }
+
+    @Override
+    protected boolean clearCaptured(int slot) {
+        return latestBySlot.compareAndSet(slot, captured, null);
+    }
+
+    /**
+     * A queued slot always has a pending value: only the publishing thread clears it, and dequeues it when it does.
+     */
+    @Override
+    protected double pendingPrice(int slot) {
+        return latestBySlot.get(slot).getPrice();
+    }
+
+    /**
+     * Clears the state of a symbol the registry is evicting, unless it still has data to publish.
+     */
+    private boolean reclaim(int id) {
+        if (latestBySlot.get(id) != null) return false;
+        resetSlot(id);
+        policy.reset(id);
+        return true;
+    }
+}
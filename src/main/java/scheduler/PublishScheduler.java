@@ -0,0 +1,292 @@
+package scheduler;
+
+import metrics.ProcessorMetrics;
+import throttle.LaneQueue;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+
+import java.util.Arrays;
+
+/**
+ * PublishScheduler is the publish tick shared by every processor: it decides which pending symbols are published
+ * now, under a ThrottlePolicy, and leaves where the pending data lives and where it is published to subclasses.
+ *
+ * Key Features:
+ * - Pending symbols are ordered by the time they became eligible (cooldown expired and data pending), in
+ *   priority lanes if the policy has them, so a tick never scans idle symbols and, under global saturation,
+ *   the longest-waiting symbol goes first.
+ * - Intervals can change at runtime: the deadline is rechecked when a symbol comes up.
+ * - A pending price the SignificanceFilter finds too small is dropped without a permit.
+ * - A symbol refused by its tier's budget is parked with the rest of its tier until the tier can take a permit
+ *   again, so a tier held back by the other tiers' reservations costs nothing per tick. Parked symbols keep their
+ *   deadline and go back in the queue ahead of newer arrivals.
+ * - Records the ProcessorMetrics of the tick and the longest staleness published.
+ *
+ * State is indexed by slot: the symbol id, or for a partition, the symbol's index within it (see symbolId).
+ * Single-threaded: everything but the pending data is owned by the thread that runs publishEligible.
+ *
+ * Time Complexity: O(k log n + t) per tick - Where k symbols are published, dropped or parked, n symbols are
+ * pending and t tiers are parked; unparking a tier is O(p log n) for its p parked symbols.
+ * Space Complexity: O(capacity) - Preallocated.
+ */
+public abstract class PublishScheduler {
+
+    public static final long NEVER_PUBLISHED = Long.MIN_VALUE / 2; // no cooldown before the first publish
+
+    private static final int NOT_PARKED = -2;
+    private static final int END = -1;
+
+    protected final ThrottlePolicy policy;
+    protected final ProcessorMetrics metrics;
+    private final LaneQueue eligibility;
+    private final long[] lastPublishedTime; // null if the subclass keeps its times elsewhere
+    private final long[] pendingSinceNanos; // when the slot's oldest unpublished update arrived
+    private final int[] parkedNext; // per slot: the next slot parked in the same tier, END, or NOT_PARKED
+    private final int[] parkedHead = new int[SymbolIntervals.MAX_TIERS];
+    private int parkedCount;
+    private volatile long maxObservedStalenessMs;
+
+    /**
+     * Keeps the publish and pending times in on-heap arrays.
+     */
+    protected PublishScheduler(int capacity, ThrottlePolicy policy, ProcessorMetrics metrics) {
+        this(capacity, policy, metrics, true);
+    }
+
+    /**
+     * @param heapTimes false if the subclass overrides the four time accessors, e.g. to keep them off-heap.
+     */
+    protected PublishScheduler(int capacity, ThrottlePolicy policy, ProcessorMetrics metrics, boolean heapTimes) {
+        this.policy = policy;
+        this.metrics = metrics;
+        this.eligibility = new LaneQueue(capacity, policy.laneCount());
+        if (heapTimes) {
+            this.lastPublishedTime = new long[capacity];
+            Arrays.fill(lastPublishedTime, NEVER_PUBLISHED);
+            this.pendingSinceNanos = new long[capacity];
+        } else {
+            this.lastPublishedTime = null;
+            this.pendingSinceNanos = null;
+        }
+        this.parkedNext = new int[capacity];
+        Arrays.fill(parkedNext, NOT_PARKED);
+        Arrays.fill(parkedHead, END);
+    }
+
+    /**
+     * Reads the slot's pending update into the subclass, for the checks and the publish that follow.
+     */
+    protected abstract void capture(int slot);
+
+    /**
+     * @return the price of the update read by the last capture.
+     */
+    protected abstract double capturedPrice();
+
+    /**
+     * Publishes the update read by the last capture, e.g. by adding it to the tick's batch.
+     */
+    protected abstract void publishCaptured(int slot);
+
+    /**
+     * Clears the slot's pending data unless an update newer than the captured one arrived meanwhile.
+     *
+     * @return true if the slot has nothing pending any more.
+     */
+    protected abstract boolean clearCaptured(int slot);
+
+    /**
+     * @return the slot's latest pending price, for its interval and lane.
+     */
+    protected abstract double pendingPrice(int slot);
+
+    /**
+     * The id the policy knows the slot's symbol by; the slot itself unless the subclass holds a partition.
+     */
+    protected int symbolId(int slot) {
+        return slot;
+    }
+
+    /**
+     * The slot's interval, shortened by the policy's SignificanceFilter if its pending price is a large move.
+     */
+    protected long intervalMs(int slot) {
+        int symbolId = symbolId(slot);
+        return policy.filtersSignificance() ? policy.intervalMs(symbolId, pendingPrice(slot)) : policy.intervalMs(symbolId);
+    }
+
+    /**
+     * The slot's priority lane, lane 0 if its pending price is a large move.
+     */
+    protected int lane(int slot) {
+        return eligibility.laneCount() == 1 ? 0 : policy.laneOf(symbolId(slot), pendingPrice(slot));
+    }
+
+    /**
+     * @return false if the captured price moved too little since the last publish to spend a permit on it.
+     */
+    protected boolean isSignificant(int slot) {
+        return policy.isSignificant(symbolId(slot), capturedPrice());
+    }
+
+    protected long lastPublished(int slot) {
+        return lastPublishedTime[slot];
+    }
+
+    protected void setLastPublished(int slot, long now) {
+        lastPublishedTime[slot] = now;
+    }
+
+    protected long pendingSinceNanos(int slot) {
+        return pendingSinceNanos[slot];
+    }
+
+    /**
+     * May be written by a producer thread before it hands the slot over to schedule().
+     */
+    protected void setPendingSinceNanos(int slot, long nanos) {
+        pendingSinceNanos[slot] = nanos;
+    }
+
+    /**
+     * Queues a slot that just got pending data; its pending-since time must already be set.
+     */
+    protected final void schedule(int slot) {
+        long eligibleAt = eligibleAt(slot);
+        eligibility.add(slot, eligibleAt, lane(slot));
+        metrics.recordPendingStart();
+        if (eligibleAt > pendingSince(slot)) metrics.recordSymbolThrottled(); // Arrived during its cooldown
+    }
+
+    /**
+     * Moves a pending slot whose deadline or lane may have changed with its latest price, e.g. on a large move.
+     * A parked slot stays parked: its tier is out of budget whatever its deadline.
+     */
+    protected final void reschedule(int slot) {
+        if (parkedNext[slot] != NOT_PARKED) return;
+        long eligibleAt = eligibleAt(slot);
+        int lane = lane(slot);
+        if (eligibleAt != eligibility.eligibleAt(slot) || lane != eligibility.laneOf(slot)) {
+            eligibility.add(slot, eligibleAt, lane);
+        }
+    }
+
+    /**
+     * Publishes every pending slot that is eligible at nowNanos, most urgent lane first and oldest-eligible first
+     * within a lane, until the global quota runs out.
+     */
+    protected final void publishEligible(long nowNanos) {
+        long now = nowNanos / 1_000_000;
+        if (parkedCount > 0) unpark(now);
+
+        for (int slot = eligibility.nextEligible(now); slot >= 0; slot = eligibility.nextEligible(now)) {
+            // Intervals can change at runtime, so recheck against the current one
+            long eligibleAt = eligibleAt(slot);
+            if (eligibleAt > now) {
+                eligibility.add(slot, eligibleAt, lane(slot));
+                continue;
+            }
+
+            capture(slot);
+            if (!isSignificant(slot)) {
+                metrics.recordSuppressedPending(); // Too close to the last published price to spend a permit on
+                if (clearCaptured(slot)) {
+                    eligibility.remove(slot);
+                } else {
+                    setPendingSinceNanos(slot, nowNanos); // A newer update arrived meanwhile and is checked on its own
+                    eligibility.add(slot, eligibleAt(slot), lane(slot));
+                }
+                continue;
+            }
+
+            int symbolId = symbolId(slot);
+            if (!policy.tryAcquire(symbolId, now)) {
+                if (!policy.hasCapacity(now)) {
+                    metrics.recordGlobalRejection();
+                    break; // Global quota used up for this tick
+                }
+                metrics.recordTierRejection();
+                park(eligibility.poll(), policy.tierOf(symbolId)); // Only this symbol's tier is out of budget
+                continue;
+            }
+
+            policy.recordPublished(symbolId, capturedPrice());
+            publishCaptured(slot);
+            setLastPublished(slot, now);
+            long sinceNanos = pendingSinceNanos(slot);
+            recordStaleness(now - sinceNanos / 1_000_000);
+            metrics.recordPublish(nowNanos - sinceNanos, eligibility.laneOf(slot));
+            if (clearCaptured(slot)) {
+                eligibility.remove(slot); // Nothing newer arrived, the slot is handed over again when it has
+            } else {
+                setPendingSinceNanos(slot, nowNanos); // Newer update is still pending
+                eligibility.add(slot, eligibleAt(slot), lane(slot));
+                metrics.recordSymbolThrottled();
+            }
+        }
+
+        metrics.recordWaitingSymbols(waitingSymbols());
+    }
+
+    private void park(int slot, int tier) {
+        parkedNext[slot] = parkedHead[tier];
+        parkedHead[tier] = slot;
+        parkedCount++;
+    }
+
+    /**
+     * Puts back the parked slots of every tier that can take a permit again. A slot parked under a tier it has
+     * since been moved out of comes back with that tier.
+     */
+    private void unpark(long now) {
+        for (int tier = 0; tier < parkedHead.length && parkedCount > 0; tier++) {
+            if (parkedHead[tier] == END || !policy.canAcquire(tier, now)) continue;
+            int slot = parkedHead[tier];
+            parkedHead[tier] = END;
+            while (slot != END) {
+                int next = parkedNext[slot];
+                parkedNext[slot] = NOT_PARKED;
+                parkedCount--;
+                eligibility.add(slot, eligibleAt(slot), lane(slot)); // Same deadline as before it was parked
+                slot = next;
+            }
+        }
+    }
+
+    /**
+     * A slot becomes eligible once its cooldown has expired and it has pending data.
+     * Ordering by this time serves pending slots oldest-first, which bounds how long
+     * any symbol can be passed over when the global quota is smaller than the eligible set.
+     */
+    private long eligibleAt(int slot) {
+        return Math.max(lastPublished(slot) + intervalMs(slot), pendingSince(slot));
+    }
+
+    private long pendingSince(int slot) {
+        return pendingSinceNanos(slot) / 1_000_000;
+    }
+
+    private void recordStaleness(long stalenessMs) {
+        if (stalenessMs > maxObservedStalenessMs) {
+            maxObservedStalenessMs = stalenessMs;
+        }
+    }
+
+    /**
+     * Forgets the publish time of a slot whose symbol is evicted; it must have nothing pending.
+     */
+    protected void resetSlot(int slot) {
+        setLastPublished(slot, NEVER_PUBLISHED);
+    }
+
+    private int waitingSymbols() {
+        return eligibility.size() + parkedCount;
+    }
+
+    /**
+     * @return the longest time any update waited between arriving and being published.
+     */
+    public long maxObservedStalenessMs() {
+        return maxObservedStalenessMs;
+    }
+}
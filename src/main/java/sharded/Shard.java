@@ -0,0 +1,60 @@
+package sharded;
+
+import metrics.ProcessorMetrics;
+import scheduler.LatestValueScheduler;
+import throttle.ThrottlePolicy;
+import utils.Clock;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One partition of a ShardedMarketDataProcessor: the symbols whose id maps to this shard,
+ * with their own state and their own publishing thread.
+ *
+ * State is indexed by the local index (symbolId / shardCount), so the shards together
+ * use no more memory than a single processor for the same registry.
+ * The publish tick is the LatestValueScheduler of DequeMarketDataProcessor, over this shard's partition.
+ */
+final class Shard {
+
+    private final LatestValueScheduler publisher;
+    private final ScheduledExecutorService scheduler; // null when the owner drives ticks
+    private final ProcessorMetrics metrics = new ProcessorMetrics(true); // onMessage is multi-producer
+
+    Shard(ShardedMarketDataProcessor owner, int shardIndex, int shardCount, int localCapacity, SymbolRegistry registry,
+          ThrottlePolicy policy, Clock clock, ThreadFactory threadFactory, long tickMs) {
+        this.publisher = new LatestValueScheduler(registry, policy, clock, metrics, owner::publishAggregatedBatch,
+                localCapacity, shardCount, shardIndex);
+        this.scheduler = threadFactory != null ? Executors.newSingleThreadScheduledExecutor(threadFactory) : null;
+        if (scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::processAndPublish, 0, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void onMessage(int local, MarketData data) {
+        publisher.offer(local, data);
+    }
+
+    void processAndPublish() {
+        publisher.tick();
+    }
+
+    long maxObservedStalenessMs() {
+        return publisher.maxObservedStalenessMs();
+    }
+
+    ProcessorMetrics metrics() {
+        return metrics;
+    }
+
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
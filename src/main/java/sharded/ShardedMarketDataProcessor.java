@@ -0,0 +1,213 @@
+package sharded;
+
+import codec.TickDecoder;
+import metrics.MetricsSnapshot;
+import throttle.LeasedRateLimiter;
+import throttle.SharedTokenBucket;
+import throttle.SignificanceFilter;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import throttle.TieredRateLimiter;
+import utils.Clock;
+import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ShardedMarketDataProcessor partitions symbols across N independent shards so that coalescing
+ * and publishing scale across cores instead of being capped by one scheduler thread.
+ *
+ * Key Features:
+ * - Symbol id s belongs to shard s % N; each shard has its own state and its own thread.
+ * - A single global budget is enforced across all shards: each shard leases permits in small batches
+ *   from one lock-free SharedTokenBucket, so the common path touches no shared state.
+ * - Per-symbol and per-tier intervals come from one SymbolIntervals shared by all shards.
+ * - onMessage may be called from several threads; the handoff to each shard is multi-producer safe.
+ *
+ * publishAggregatedMarketData is called from every shard thread and must be thread-safe.
+ * Tier minimums (TieredRateLimiter reservations) are not split across shards.
+ * Shards do not sweep the registry, so symbols are never evicted here even if it has an EvictionPolicy.
+ */
+public class ShardedMarketDataProcessor {
+
+    private static final long TICK_MS = 10;
+    private static final long LEASE_TTL_MS = 2 * TICK_MS;
+    // A token bucket admits rate * t + burst, so keep the default burst small next to the rate
+    private static final int DEFAULT_BURST = ThrottlePolicy.DEFAULT_MAX_GLOBAL_RATE / 10;
+
+    private final SymbolRegistry registry;
+    private final Shard[] shards;
+    private final boolean autoTick;
+
+    /**
+     * Default limits and a registry of SymbolRegistry.DEFAULT_CAPACITY (65,536) symbols. The registry does not grow:
+     * once it is full, onMessage throws IllegalStateException for every new symbol, on the calling thread.
+     * Use the symbolCapacity constructor for larger universes; the sharded processor does not evict.
+     */
+    public ShardedMarketDataProcessor(int shardCount) {
+        this(shardCount, SymbolRegistry.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Default limits and a registry for up to symbolCapacity distinct symbols, split across the shards.
+     */
+    public ShardedMarketDataProcessor(int shardCount, int symbolCapacity) {
+        this(shardCount, new SymbolRegistry(symbolCapacity),
+                new SharedTokenBucket(ThrottlePolicy.DEFAULT_MAX_GLOBAL_RATE, ThrottlePolicy.DEFAULT_GLOBAL_WINDOW_MS,
+                        DEFAULT_BURST),
+                new SymbolIntervals(ThrottlePolicy.DEFAULT_SYMBOL_INTERVAL_MS),
+                shardThreadFactory());
+    }
+
+    /**
+     * @param globalBudget  The budget shared by all shards.
+     * @param intervals     Per-symbol publish intervals, keyed by registry id.
+     * @param threadFactory Creates one publishing thread per shard, e.g. to name or pin it.
+     */
+    public ShardedMarketDataProcessor(int shardCount, SymbolRegistry registry, SharedTokenBucket globalBudget,
+                                      SymbolIntervals intervals, ThreadFactory threadFactory) {
+        this(shardCount, registry, globalBudget, intervals, threadFactory, Clock.system(), true);
+    }
+
+    /**
+     * @param clock    Time source for cooldowns, the global budget and staleness.
+     * @param autoTick false to start no shard threads and publish only when tick() is called.
+     */
+    public ShardedMarketDataProcessor(int shardCount, SymbolRegistry registry, SharedTokenBucket globalBudget,
+                                      SymbolIntervals intervals, ThreadFactory threadFactory, Clock clock,
+                                      boolean autoTick) {
+        this(shardCount, registry, globalBudget, intervals, null, threadFactory, clock, autoTick);
+    }
+
+    /**
+     * @param significance Thresholds shared by all shards, or null to publish every price. Each shard only
+     *                     records the last published price of its own symbols.
+     */
+    public ShardedMarketDataProcessor(int shardCount, SymbolRegistry registry, SharedTokenBucket globalBudget,
+                                      SymbolIntervals intervals, SignificanceFilter significance,
+                                      ThreadFactory threadFactory, Clock clock, boolean autoTick) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.registry = registry;
+        this.autoTick = autoTick;
+        this.shards = new Shard[shardCount];
+        intervals.ensureCapacity(registry.capacity());
+        if (significance != null) significance.ensureCapacity(registry.capacity());
+
+        int localCapacity = (registry.capacity() + shardCount - 1) / shardCount;
+        int leaseSize = leaseSize(globalBudget, shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            LeasedRateLimiter limiter = new LeasedRateLimiter(globalBudget, leaseSize, LEASE_TTL_MS);
+            ThrottlePolicy policy = new ThrottlePolicy(new TieredRateLimiter(limiter), intervals, significance);
+            shards[i] = new Shard(this, i, shardCount, localCapacity, registry, policy, clock,
+                    autoTick ? threadFactory : null, TICK_MS);
+        }
+    }
+
+    /**
+     * Each shard leases roughly its share of one tick's budget at a time.
+     */
+    private static int leaseSize(SharedTokenBucket budget, int shardCount) {
+        return Math.max(1, budget.permitsPer(TICK_MS) / shardCount);
+    }
+
+    /**
+     * Routes the update to the shard that owns its symbol.
+     *
+     * Time Complexity: O(1) - One array swap in the owning shard.
+     *
+     * @param data The incoming market data to process.
+     * @throws IllegalArgumentException if the id it carries does not belong to this processor's registry.
+     */
+    public void onMessage(MarketData data) {
+        int id = registry.idOf(data); // Checked here, not on the shard's thread
+        int shardCount = shards.length;
+        shards[id % shardCount].onMessage(id / shardCount, data);
+    }
+
+    /**
+     * Accepts a tick encoded by TickEncoder, whose symbol id must come from this processor's registry.
+     * Skips the symbol lookup; the only allocation is the MarketData kept as the symbol's latest value.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a tick at offset, or its symbol id is not
+     *                                  registered.
+     */
+    public void onMessage(ByteBuffer buffer, int offset) {
+        TickDecoder.check(buffer, offset);
+        int id = registry.checkRegistered(TickDecoder.symbolId(buffer, offset));
+        onMessage(new MarketData(id, registry.symbolOf(id),
+                TickDecoder.price(buffer, offset), TickDecoder.updateTime(buffer, offset)));
+    }
+
+    /**
+     * Receives everything one shard published in one tick. Called concurrently from all shard threads,
+     * each with its own reused batch. The default hands each update to publishAggregatedMarketData.
+     */
+    public void publishAggregatedBatch(MarketDataBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            publishAggregatedMarketData(batch.marketData(i));
+        }
+    }
+
+    /**
+     * Publish aggregated and throttled market data. Called concurrently from all shard threads.
+     */
+    public void publishAggregatedMarketData(MarketData data) {
+        System.out.printf("Published: %s -> %.2f at %d%n", data.getSymbol(), data.getPrice(), System.currentTimeMillis());
+    }
+
+    /**
+     * Runs one publish tick of every shard, in turn, on the calling thread.
+     * Only available when constructed with autoTick false.
+     */
+    public void tick() {
+        if (autoTick) {
+            throw new IllegalStateException("Ticks are driven by the shard threads");
+        }
+        for (Shard shard : shards) {
+            shard.processAndPublish();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return the longest time any update waited between arriving and being published, across shards.
+     */
+    public long maxObservedStalenessMs() {
+        long max = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.maxObservedStalenessMs());
+        }
+        return max;
+    }
+
+    /**
+     * @return the counters and publish latency of all shards combined; safe to call from any thread.
+     */
+    public MetricsSnapshot metrics() {
+        MetricsSnapshot total = shards[0].metrics().snapshot();
+        for (int i = 1; i < shards.length; i++) {
+            total = total.plus(shards[i].metrics().snapshot());
+        }
+        return total;
+    }
+
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    private static ThreadFactory shardThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> new Thread(runnable, "market-data-shard-" + counter.getAndIncrement());
+    }
+}
@@ -1,93 +1,173 @@
 package standard;
 
+import codec.TickDecoder;
+import journal.Journal;
+import metrics.MetricsSnapshot;
+import metrics.ProcessorMetrics;
+import scheduler.LatestValueScheduler;
+import throttle.ThrottlePolicy;
+import utils.Clock;
 import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
 
-import java.util.Map;
-import java.util.Deque;
+import java.nio.ByteBuffer;
 import java.util.concurrent.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * SimpleMarketDataProcessor is responsible for processing and publishing market data
  * while adhering to rate limits for both global and per-symbol publishing.
  *
+ * The class name is historical: pending symbols no longer wait in a Deque. They are ordered and published by a
+ * LatestValueScheduler, the same one BlockingQueueMarketDataProcessor and the shards of ShardedMarketDataProcessor
+ * use; this class adds the symbol lookup, the codec input and the scheduler thread.
+ *
  * Assumptions:
- * - The system will not receive more than MAX_GLOBAL_RATE unique symbols per second.
+ * - The system will not receive more than the global rate of unique symbols per second.
  * - Only one thread calls the onMessage() function, I.E. single producer.
- * - The processAndPublish method can be called by multiple threads,I.E. multi-consumer.
+ * - Ticks run on the single scheduler thread, which owns the eligibility queue.
  * Key Features:
  * - Maintains the latest market data for each symbol.
- * - Enforces a global publish rate limit (MAX_GLOBAL_RATE).
- * - Enforces a per-symbol publish interval (SYMBOL_PUBLISH_INTERVAL_MS).
- * - Uses a sliding window for global rate limiting.
+ * - Enforces a global publish rate limit through the ThrottlePolicy, optionally split across tiers.
+ * - Enforces a per-symbol publish interval, configurable per tier or per symbol at runtime.
+ * - Defaults to a sliding window for global rate limiting.
+ * - Keeps per-symbol state in flat arrays indexed by the symbol id from a SymbolRegistry.
+ * - Orders pending symbols by the time they became eligible (cooldown expired and data pending),
+ *   so a tick never scans idle symbols and, under global saturation, the longest-waiting symbol goes first.
+ * - Optionally serves tiers as priority lanes (see ThrottlePolicy): the most urgent eligible symbols go first,
+ *   and publish latency is recorded per lane.
  */
 public class DequeMarketDataProcessor {
 
-    private final Map<String, MarketData> latestBySymbol = new ConcurrentHashMap<>();
+    private final SymbolRegistry registry;
+    private final LatestValueScheduler publisher;
+    private final ScheduledExecutorService scheduler; // null when ticks are driven through tick()
+    private final ProcessorMetrics metrics; // single producer
+    private final Journal inbound; // null unless incoming ticks are journaled
+
     /**
-     * if single consumer is guaranteed, we can use a simple HashMap and ArrayDeque.
+     * Default limits and a registry of SymbolRegistry.DEFAULT_CAPACITY (65,536) symbols. The registry does not grow:
+     * once it is full, onMessage throws IllegalStateException for every new symbol, on the calling thread.
+     * Use the symbolCapacity constructor, or a registry with an EvictionPolicy, for larger or churning universes.
      */
-    private final Map<String, Long> lastPublishedTime = new ConcurrentHashMap<>();
-    // Alternatively could use ArrayBlockingQueue for better memory efficiency
-    private final Deque<Long> publishTimestamps = new ConcurrentLinkedDeque<>();
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    public DequeMarketDataProcessor() {
+        this(SymbolRegistry.DEFAULT_CAPACITY);
+    }
 
-    private static final int MAX_GLOBAL_RATE = 100; // max publishes/sec
-    private static final long SYMBOL_PUBLISH_INTERVAL_MS = 1000; // 1/sec per symbol
-    private static final long GLOBAL_WINDOW_MS = 1000; // sliding window
+    /**
+     * Default limits and a registry for up to symbolCapacity distinct symbols; per-symbol arrays are sized to it.
+     */
+    public DequeMarketDataProcessor(int symbolCapacity) {
+        this(new SymbolRegistry(symbolCapacity), ThrottlePolicy.defaults());
+    }
 
-    public DequeMarketDataProcessor() {
-        scheduler.scheduleAtFixedRate(this::processAndPublish, 0, 10, TimeUnit.MILLISECONDS);
+    /**
+     * @param policy Global budget and per-symbol interval; owned by this processor from now on.
+     */
+    public DequeMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy) {
+        this(registry, policy, Clock.system(), true);
+    }
+
+    /**
+     * @param clock    Time source for cooldowns, the global budget and staleness.
+     * @param autoTick false to publish only when tick() is called, e.g. with a ManualClock
+     *                 for deterministic tests, replay or simulation; no scheduler thread is started.
+     */
+    public DequeMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy, Clock clock, boolean autoTick) {
+        this(registry, policy, clock, autoTick, null);
+    }
+
+    /**
+     * @param inbound Journal for every incoming tick, written on the onMessage thread, which must then be its
+     *                only writer; a JournalReplayer can feed it back into a processor in another process.
+     *                Null to journal nothing.
+     */
+    public DequeMarketDataProcessor(SymbolRegistry registry, ThrottlePolicy policy, Clock clock, boolean autoTick,
+                                    Journal inbound) {
+        this.registry = registry;
+        this.inbound = inbound;
+        policy.bind(registry.capacity());
+        this.metrics = new ProcessorMetrics(false, policy.laneCount());
+        this.publisher = new LatestValueScheduler(registry, policy, clock, metrics, this::publishAggregatedBatch);
+        this.scheduler = autoTick ? Executors.newSingleThreadScheduledExecutor() : null;
+        if (autoTick) {
+            scheduler.scheduleAtFixedRate(publisher::tick, 0, 10, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
      * Receives incoming market data and stores it in a thread-safe map.
      * The assumption is that unique symbols dont exceed the global rate limit.
-     * I.E. the onMessage will NOT publish more than MAX_GLOBAL_RATE unique symbols per second.
+     * I.E. the onMessage will NOT publish more than the global rate of unique symbols per second.
      *
-     * Time Complexity: O(1) - ConcurrentHashMap put operation is O(1) on average.
-     * Space Complexity: O(n) - Where n is the number of unique symbols being tracked.
+     * Time Complexity: O(1) - A single array swap when the data carries its symbol id.
+     * Space Complexity: O(1) - Slots are preallocated for the registry capacity.
      *
      * @param data The incoming market data to process.
+     * @throws IllegalArgumentException if the id it carries does not belong to this processor's registry.
      */
     public void onMessage(MarketData data) {
-        latestBySymbol.put(data.getSymbol(), data);
+        accept(registry.idOf(data), data, 0);
     }
 
     /**
-     * Periodically processes and publishes market data while adhering to rate limits.
+     * Accepts a tick encoded by TickEncoder, whose symbol id must come from this processor's registry.
+     * Skips the symbol lookup; the only allocation is the MarketData kept as the symbol's latest value.
      *
-     * Time Complexity: O(s) - Where s is the number of symbols in the latestBySymbol map.
-     * Space Complexity: O(n) - Maintains a sliding window of timestamps and maps for symbols.
+     * @throws IllegalArgumentException if the buffer does not hold a tick at offset, or its symbol id is not
+     *                                  registered.
      */
-    private void processAndPublish() {
-        long now = System.currentTimeMillis();
+    public void onMessage(ByteBuffer buffer, int offset) {
+        TickDecoder.check(buffer, offset);
+        int id = registry.checkRegistered(TickDecoder.symbolId(buffer, offset));
+        accept(id, new MarketData(id, registry.symbolOf(id),
+                TickDecoder.price(buffer, offset), TickDecoder.updateTime(buffer, offset)),
+                TickDecoder.quantity(buffer, offset));
+    }
 
-        // Clean up global timestamp window
-        while (!publishTimestamps.isEmpty() && now - publishTimestamps.peekFirst() > GLOBAL_WINDOW_MS) {
-            publishTimestamps.pollFirst();
+    /**
+     * The quantity is only journaled; this processor publishes the latest price.
+     */
+    private void accept(int id, MarketData data, long quantity) {
+        if (inbound != null) {
+            inbound.appendTick(id, data.getSymbol(), data.getPrice(), quantity, data.getUpdateTime());
         }
+        registry.touch(id);
+        publisher.offer(id, data);
+    }
 
-        int remainingQuota = MAX_GLOBAL_RATE - publishTimestamps.size();
-        if (remainingQuota <= 0) return;
-
-        int publishedCount = 0;
+    /**
+     * Runs one publish tick on the calling thread, at the clock's current time.
+     * Only available when constructed with autoTick false; the caller then owns the tick loop.
+     */
+    public void tick() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Ticks are driven by the scheduler");
+        }
+        publisher.tick();
+    }
 
-        for (Map.Entry<String, MarketData> entry : latestBySymbol.entrySet()) {
-            if (publishedCount >= remainingQuota) break;
+    /**
+     * @return the longest time any update waited between arriving and being published.
+     */
+    public long maxObservedStalenessMs() {
+        return publisher.maxObservedStalenessMs();
+    }
 
-            String symbol = entry.getKey();
-            MarketData data = entry.getValue();
-            Long lastTime = lastPublishedTime.getOrDefault(symbol, 0L);
+    /**
+     * @return the counters and publish latency recorded so far; safe to call from any thread.
+     */
+    public MetricsSnapshot metrics() {
+        return metrics.snapshot();
+    }
 
-            if (now - lastTime >= SYMBOL_PUBLISH_INTERVAL_MS) {
-                publishAggregatedMarketData(data);
-                lastPublishedTime.put(symbol, now);
-                publishTimestamps.addLast(now);
-                latestBySymbol.remove(symbol); // remove to avoid re-publish
-                publishedCount++;
-            }
+    /**
+     * Receives everything published in one tick. Override it to write the tick downstream in one go;
+     * the batch is reused after this returns. The default hands each update to publishAggregatedMarketData.
+     */
+    public void publishAggregatedBatch(MarketDataBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            publishAggregatedMarketData(batch.marketData(i));
         }
     }
 
@@ -99,6 +179,8 @@ public class DequeMarketDataProcessor {
 
     // For test or shutdown
     public void shutdown() {
-        scheduler.shutdownNow();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
     }
 }
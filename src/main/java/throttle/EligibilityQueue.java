@@ -0,0 +1,152 @@
+package throttle;
+
+import java.util.Arrays;
+
+/**
+ * EligibilityQueue orders symbols with pending data by the time they become eligible to publish,
+ * so a publish tick only visits symbols whose cooldown has expired instead of scanning every symbol.
+ *
+ * It is an indexed binary min-heap over symbol ids: each symbol is in the queue at most once,
+ * its deadline can be moved in place, and all state lives in preallocated primitive arrays.
+ *
+ * Time Complexity: O(log n) per add/update/poll, O(1) to peek - Where n is the number of pending symbols.
+ * Space Complexity: O(capacity) - Three primitive slots per symbol id.
+ * Not thread-safe: owned by the publishing thread.
+ */
+public class EligibilityQueue {
+
+    private static final int ABSENT = -1;
+
+    private final int[] heap;
+    private final long[] eligibleAtById;
+    private final int[] positionById;
+    private int size;
+
+    public EligibilityQueue(int capacity) {
+        this.heap = new int[capacity];
+        this.eligibleAtById = new long[capacity];
+        this.positionById = new int[capacity];
+        Arrays.fill(positionById, ABSENT);
+    }
+
+    /**
+     * Adds the symbol, or moves its deadline if it is already queued.
+     */
+    public void add(int symbolId, long eligibleAt) {
+        int position = positionById[symbolId];
+        if (position == ABSENT) {
+            position = size++;
+            heap[position] = symbolId;
+            positionById[symbolId] = position;
+            eligibleAtById[symbolId] = eligibleAt;
+            siftUp(position);
+            return;
+        }
+
+        long previous = eligibleAtById[symbolId];
+        eligibleAtById[symbolId] = eligibleAt;
+        if (eligibleAt < previous) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    public boolean contains(int symbolId) {
+        return positionById[symbolId] != ABSENT;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the symbol with the earliest deadline; only valid when not empty.
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * @return the deadline of a queued symbol.
+     */
+    public long eligibleAt(int symbolId) {
+        return eligibleAtById[symbolId];
+    }
+
+    /**
+     * @return the earliest deadline, or Long.MAX_VALUE when empty.
+     */
+    public long peekEligibleAt() {
+        return size == 0 ? Long.MAX_VALUE : eligibleAtById[heap[0]];
+    }
+
+    /**
+     * Removes and returns the symbol with the earliest deadline; only valid when not empty.
+     */
+    public int poll() {
+        int symbolId = heap[0];
+        removeAt(0);
+        return symbolId;
+    }
+
+    public void remove(int symbolId) {
+        int position = positionById[symbolId];
+        if (position != ABSENT) {
+            removeAt(position);
+        }
+    }
+
+    private void removeAt(int position) {
+        int removed = heap[position];
+        positionById[removed] = ABSENT;
+        int last = heap[--size];
+        if (position == size) return;
+
+        heap[position] = last;
+        positionById[last] = position;
+        siftDown(position);
+        if (heap[position] == last) {
+            siftUp(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        int symbolId = heap[position];
+        long key = eligibleAtById[symbolId];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentId = heap[parent];
+            if (eligibleAtById[parentId] <= key) break;
+            heap[position] = parentId;
+            positionById[parentId] = position;
+            position = parent;
+        }
+        heap[position] = symbolId;
+        positionById[symbolId] = position;
+    }
+
+    private void siftDown(int position) {
+        int symbolId = heap[position];
+        long key = eligibleAtById[symbolId];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && eligibleAtById[heap[right]] < eligibleAtById[heap[child]]) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (key <= eligibleAtById[childId]) break;
+            heap[position] = childId;
+            positionById[childId] = position;
+            position = child;
+        }
+        heap[position] = symbolId;
+        positionById[symbolId] = position;
+    }
+}
@@ -0,0 +1,46 @@
+package throttle;
+
+/**
+ * Fixed-window counter: allows maxPermits publishes per aligned window.
+ * Cheapest possible check, at the cost of allowing up to 2x maxPermits across a window boundary.
+ *
+ * Time Complexity: O(1)
+ * Space Complexity: O(1)
+ */
+public class FixedWindowRateLimiter implements RateLimiter {
+
+    private final int maxPermits;
+    private final long windowMs;
+    private long windowStart = Long.MIN_VALUE;
+    private int count;
+
+    public FixedWindowRateLimiter(int maxPermits, long windowMs) {
+        if (maxPermits <= 0 || windowMs <= 0) {
+            throw new IllegalArgumentException("maxPermits and windowMs must be positive");
+        }
+        this.maxPermits = maxPermits;
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    public boolean tryAcquire(long now) {
+        roll(now);
+        if (count >= maxPermits) return false;
+        count++;
+        return true;
+    }
+
+    @Override
+    public int availablePermits(long now) {
+        roll(now);
+        return maxPermits - count;
+    }
+
+    private void roll(long now) {
+        long start = now - Math.floorMod(now, windowMs);
+        if (start != windowStart) {
+            windowStart = start;
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package throttle;
+
+/**
+ * Generic Cell Rate Algorithm: tracks a single theoretical arrival time (TAT).
+ * A publish is allowed if it is no earlier than TAT minus the burst tolerance,
+ * and each publish pushes TAT forward by one emission interval.
+ *
+ * Equivalent to a token bucket, but the whole state is one number and there is no refill step.
+ *
+ * Time Complexity: O(1)
+ * Space Complexity: O(1)
+ */
+public class GcraRateLimiter implements RateLimiter {
+
+    private final double emissionIntervalMs;
+    private final double toleranceMs;
+    private double theoreticalArrival = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param permitsPerWindow Sustained rate, as permits per windowMs.
+     * @param burst            How many permits may be taken back to back.
+     */
+    public GcraRateLimiter(int permitsPerWindow, long windowMs, int burst) {
+        if (permitsPerWindow <= 0 || windowMs <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerWindow, windowMs and burst must be positive");
+        }
+        this.emissionIntervalMs = (double) windowMs / permitsPerWindow;
+        this.toleranceMs = emissionIntervalMs * (burst - 1);
+    }
+
+    @Override
+    public boolean tryAcquire(long now) {
+        double tat = Math.max(theoreticalArrival, now);
+        if (tat - now > toleranceMs) return false;
+        theoreticalArrival = tat + emissionIntervalMs;
+        return true;
+    }
+
+    @Override
+    public int availablePermits(long now) {
+        double tat = Math.max(theoreticalArrival, now);
+        double slack = toleranceMs - (tat - now);
+        return slack < 0 ? 0 : (int) (slack / emissionIntervalMs) + 1;
+    }
+}
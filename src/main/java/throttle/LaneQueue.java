@@ -0,0 +1,100 @@
+package throttle;
+
+/**
+ * LaneQueue orders pending symbols for a publisher with priority lanes: one EligibilityQueue per lane, and the
+ * next symbol to try is the earliest eligible one of the most urgent lane that has any.
+ *
+ * Key Features:
+ * - Lane 0 is the most urgent. Within a lane, symbols keep the oldest-eligible-first order of EligibilityQueue.
+ * - Priority only decides the order of publish attempts. The minimum share of the less urgent lanes comes from
+ *   the reservations of the policy's TieredRateLimiter: once an urgent lane's tier has used up what it may take,
+ *   its attempts are tier rejections, its symbols are parked, and the next lane gets the permits held for it.
+ * - With a single lane it behaves exactly like one EligibilityQueue.
+ * - A symbol is in at most one lane; adding it with another lane moves it. Lanes past the last are the last.
+ *
+ * Single-threaded, like EligibilityQueue: owned by the thread that publishes.
+ *
+ * Time Complexity: O(log n) per add, poll and remove, O(l) per nextEligible - Where l is the number of lanes.
+ * Space Complexity: O(l * capacity)
+ */
+public class LaneQueue {
+
+    private final EligibilityQueue[] lanes;
+    private final byte[] laneById; // lane the symbol was last added to
+    private int current; // lane of the symbol returned by the last nextEligible
+
+    public LaneQueue(int capacity, int laneCount) {
+        if (laneCount <= 0 || laneCount > SymbolIntervals.MAX_TIERS) {
+            throw new IllegalArgumentException("Between 1 and " + SymbolIntervals.MAX_TIERS + " lanes are supported");
+        }
+        this.lanes = new EligibilityQueue[laneCount];
+        for (int lane = 0; lane < laneCount; lane++) {
+            lanes[lane] = new EligibilityQueue(capacity);
+        }
+        this.laneById = new byte[capacity];
+    }
+
+    /**
+     * Inserts the symbol into lane, or moves it there and updates its deadline if it is already queued.
+     */
+    public void add(int symbolId, long eligibleAt, int lane) {
+        if (lane >= lanes.length) lane = lanes.length - 1;
+        int previous = laneById[symbolId];
+        if (previous != lane) {
+            lanes[previous].remove(symbolId);
+            laneById[symbolId] = (byte) lane;
+        }
+        lanes[lane].add(symbolId, eligibleAt);
+    }
+
+    /**
+     * @return the symbol to try next at {@code now}: the head of the most urgent lane whose head is eligible,
+     * or -1 if no symbol is eligible yet. It stays queued until poll() or remove().
+     */
+    public int nextEligible(long now) {
+        for (int lane = 0; lane < lanes.length; lane++) {
+            if (lanes[lane].peekEligibleAt() <= now) {
+                current = lane;
+                return lanes[lane].peek();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes and returns the symbol returned by the last nextEligible.
+     */
+    public int poll() {
+        return lanes[current].poll();
+    }
+
+    public void remove(int symbolId) {
+        lanes[laneById[symbolId]].remove(symbolId);
+    }
+
+    /**
+     * @return the lane the symbol was last added to; still valid after it was polled or removed.
+     */
+    public int laneOf(int symbolId) {
+        return laneById[symbolId];
+    }
+
+    /**
+     * @return the deadline of a queued symbol; undefined if it is not queued.
+     */
+    public long eligibleAt(int symbolId) {
+        return lanes[laneById[symbolId]].eligibleAt(symbolId);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int size() {
+        int size = 0;
+        for (EligibilityQueue lane : lanes) {
+            size += lane.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,45 @@
+package throttle;
+
+/**
+ * LeasedRateLimiter gives one publishing thread a cheap local view of a SharedTokenBucket.
+ *
+ * Permits are leased from the shared bucket in batches and spent locally without any atomics.
+ * Unspent permits expire after leaseTtlMs, which bounds how far a thread can shift its share
+ * of the global budget in time. The shared bucket is never overdrawn.
+ *
+ * Not thread-safe: one instance per publishing thread.
+ */
+public class LeasedRateLimiter implements RateLimiter {
+
+    private final SharedTokenBucket pool;
+    private final int leaseSize;
+    private final long leaseTtlMs;
+    private int leased;
+    private long leaseExpiresAt;
+
+    public LeasedRateLimiter(SharedTokenBucket pool, int leaseSize, long leaseTtlMs) {
+        if (leaseSize <= 0 || leaseTtlMs <= 0) {
+            throw new IllegalArgumentException("leaseSize and leaseTtlMs must be positive");
+        }
+        this.pool = pool;
+        this.leaseSize = leaseSize;
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    @Override
+    public boolean tryAcquire(long now) {
+        if (leased == 0 || now >= leaseExpiresAt) {
+            leased = pool.lease(leaseSize, now);
+            leaseExpiresAt = now + leaseTtlMs;
+            if (leased == 0) return false;
+        }
+        leased--;
+        return true;
+    }
+
+    @Override
+    public int availablePermits(long now) {
+        if (leased > 0 && now < leaseExpiresAt) return leased;
+        return pool.availablePermits(now);
+    }
+}
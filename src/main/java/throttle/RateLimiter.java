@@ -0,0 +1,26 @@
+package throttle;
+
+/**
+ * RateLimiter decides whether one more publish fits in the global budget at a given time.
+ *
+ * Time is passed in by the caller (milliseconds) so a processor reads the clock once per tick
+ * and every decision in that tick sees the same instant.
+ * Implementations are not thread-safe: each instance belongs to the single publishing thread
+ * of one processor.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes one permit if the budget allows it.
+     *
+     * @param now Current time in milliseconds.
+     * @return true if the caller may publish now.
+     */
+    boolean tryAcquire(long now);
+
+    /**
+     * @param now Current time in milliseconds.
+     * @return how many permits tryAcquire would grant if called repeatedly at {@code now}.
+     */
+    int availablePermits(long now);
+}
@@ -0,0 +1,67 @@
+package throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SharedTokenBucket is a thread-safe global budget that several publishing threads draw from.
+ *
+ * It uses GCRA so the whole state is one theoretical arrival time, updated with a single CAS;
+ * callers lease several permits per CAS, which keeps contention low however many threads share it.
+ *
+ * Time Complexity: O(1) per lease, lock-free.
+ */
+public class SharedTokenBucket {
+
+    private final double emissionIntervalMs;
+    private final double toleranceMs;
+    // Theoretical arrival time as raw double bits, so it can be CASed
+    private final AtomicLong theoreticalArrival = new AtomicLong(Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY));
+
+    /**
+     * @param permitsPerWindow Sustained rate, as permits per windowMs.
+     * @param burst            How many permits may be taken back to back.
+     */
+    public SharedTokenBucket(int permitsPerWindow, long windowMs, int burst) {
+        if (permitsPerWindow <= 0 || windowMs <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerWindow, windowMs and burst must be positive");
+        }
+        this.emissionIntervalMs = (double) windowMs / permitsPerWindow;
+        this.toleranceMs = emissionIntervalMs * (burst - 1);
+    }
+
+    /**
+     * Takes up to maxPermits permits.
+     *
+     * @return the number of permits granted, possibly 0.
+     */
+    public int lease(int maxPermits, long now) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            double tat = Math.max(Double.longBitsToDouble(current), now);
+            int granted = Math.min(maxPermits, fits(tat, now));
+            if (granted <= 0) return 0;
+
+            long next = Double.doubleToRawLongBits(tat + granted * emissionIntervalMs);
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * @return how many permits the sustained rate grants over intervalMs.
+     */
+    public int permitsPer(long intervalMs) {
+        return (int) (intervalMs / emissionIntervalMs);
+    }
+
+    public int availablePermits(long now) {
+        double tat = Math.max(Double.longBitsToDouble(theoreticalArrival.get()), now);
+        return Math.max(0, fits(tat, now));
+    }
+
+    private int fits(double tat, long now) {
+        double slack = toleranceMs - (tat - now);
+        return slack < 0 ? 0 : (int) (slack / emissionIntervalMs) + 1;
+    }
+}
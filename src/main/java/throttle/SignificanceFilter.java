@@ -0,0 +1,172 @@
+package throttle;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SignificanceFilter decides whether a symbol's new price has moved far enough from its last published price
+ * to be worth a publish, so that under a tight global budget permits go to symbols that actually moved.
+ *
+ * Key Features:
+ * - Thresholds per tier (the tiers of the policy's SymbolIntervals) with optional per-symbol overrides, both
+ *   changeable at runtime from any thread.
+ * - A price is significant if it moved by at least the absolute delta and by at least the relative delta of the
+ *   last published price. A symbol that was never published is always significant.
+ * - Large moves: a move of at least largeMoveRelative may be published after largeMoveIntervalMs instead of the
+ *   symbol's usual interval.
+ * - The last published price per symbol lives in a primitive array, written only by the publishing thread.
+ *
+ * Time Complexity: O(1) per check - Two array reads for the thresholds, one for the last published price.
+ * Space Complexity: O(capacity)
+ */
+public class SignificanceFilter {
+
+    /**
+     * Thresholds of one tier or symbol. Immutable, so one instance can be shared by many symbols.
+     */
+    public static final class Threshold {
+
+        /**
+         * Every price is significant and no move shortens the interval: the behaviour without a filter.
+         */
+        public static final Threshold NONE = new Threshold(0, 0, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+
+        final double minAbsolute;
+        final double minRelative;
+        final double largeMoveRelative;
+        final long largeMoveIntervalMs;
+
+        /**
+         * @param minAbsolute         Smallest absolute price change worth publishing, e.g. one tick size; 0 for none.
+         * @param minRelative         Smallest change as a fraction of the last published price, e.g. 0.0001 for 1bp.
+         * @param largeMoveRelative   Relative change from which largeMoveIntervalMs applies; infinity for never.
+         * @param largeMoveIntervalMs Interval for large moves, used when shorter than the symbol's own.
+         */
+        public Threshold(double minAbsolute, double minRelative, double largeMoveRelative, long largeMoveIntervalMs) {
+            if (!(minAbsolute >= 0) || !(minRelative >= 0) || !(largeMoveRelative >= 0) || largeMoveIntervalMs < 0) {
+                throw new IllegalArgumentException("Thresholds and intervals must not be negative");
+            }
+            this.minAbsolute = minAbsolute;
+            this.minRelative = minRelative;
+            this.largeMoveRelative = largeMoveRelative;
+            this.largeMoveIntervalMs = largeMoveIntervalMs;
+        }
+
+        public static Threshold of(double minAbsolute, double minRelative) {
+            return new Threshold(minAbsolute, minRelative, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+        }
+    }
+
+    private volatile Threshold[] tierThresholds;
+    private volatile AtomicReferenceArray<Threshold> overrideBySymbol = new AtomicReferenceArray<>(0);
+    // Written by the publishing thread only, NaN until the first publish; replaced (never resized) by ensureCapacity
+    private volatile double[] lastPublishedPrice = new double[0];
+
+    /**
+     * @param tierThresholds Thresholds of each tier; tier i uses tierThresholds[i], missing tiers use NONE.
+     */
+    public SignificanceFilter(Threshold... tierThresholds) {
+        if (tierThresholds.length == 0 || tierThresholds.length > SymbolIntervals.MAX_TIERS) {
+            throw new IllegalArgumentException("Between 1 and " + SymbolIntervals.MAX_TIERS + " tiers are supported");
+        }
+        Threshold[] thresholds = Arrays.copyOf(tierThresholds, SymbolIntervals.MAX_TIERS);
+        for (int tier = 0; tier < thresholds.length; tier++) {
+            if (thresholds[tier] == null) thresholds[tier] = Threshold.NONE;
+        }
+        this.tierThresholds = thresholds;
+    }
+
+    /**
+     * Preallocates state for symbol ids in [0, capacity). Called through ThrottlePolicy.bind.
+     */
+    public synchronized void ensureCapacity(int capacity) {
+        int current = lastPublishedPrice.length;
+        if (capacity <= current) return;
+
+        double[] prices = Arrays.copyOf(lastPublishedPrice, capacity);
+        Arrays.fill(prices, current, capacity, Double.NaN);
+        lastPublishedPrice = prices;
+        AtomicReferenceArray<Threshold> previous = overrideBySymbol;
+        AtomicReferenceArray<Threshold> overrides = new AtomicReferenceArray<>(capacity);
+        for (int id = 0; id < previous.length(); id++) {
+            overrides.set(id, previous.get(id));
+        }
+        overrideBySymbol = overrides;
+    }
+
+    public synchronized void setTierThreshold(int tier, Threshold threshold) {
+        if (tier < 0 || tier >= SymbolIntervals.MAX_TIERS) {
+            throw new IllegalArgumentException("Unknown tier " + tier);
+        }
+        Threshold[] thresholds = tierThresholds.clone();
+        thresholds[tier] = threshold;
+        tierThresholds = thresholds;
+    }
+
+    public synchronized void setSymbolThreshold(int symbolId, Threshold threshold) {
+        ensureCapacity(symbolId + 1);
+        overrideBySymbol.set(symbolId, threshold);
+    }
+
+    /**
+     * Drops a per-symbol override so the symbol follows its tier again.
+     */
+    public void clearSymbolThreshold(int symbolId) {
+        AtomicReferenceArray<Threshold> overrides = overrideBySymbol;
+        if (symbolId < overrides.length()) overrides.set(symbolId, null);
+    }
+
+    /**
+     * Hot path: true if price is worth publishing compared with the symbol's last published price.
+     */
+    public boolean isSignificant(int symbolId, int tier, double price) {
+        double last = lastPublishedPrice[symbolId];
+        if (last != last) return true; // Never published
+        Threshold threshold = thresholdOf(symbolId, tier);
+        double move = Math.abs(price - last);
+        return move >= threshold.minAbsolute && move >= threshold.minRelative * Math.abs(last);
+    }
+
+    /**
+     * @return largeMoveIntervalMs if price is a large move and that is shorter than intervalMs, else intervalMs.
+     */
+    public long intervalMs(int symbolId, int tier, double price, long intervalMs) {
+        Threshold threshold = thresholdOf(symbolId, tier);
+        if (threshold.largeMoveIntervalMs >= intervalMs) return intervalMs;
+        return isLargeMove(symbolId, threshold, price) ? threshold.largeMoveIntervalMs : intervalMs;
+    }
+
+    /**
+     * @return true if price moved by at least largeMoveRelative from the symbol's last published price.
+     */
+    public boolean isLargeMove(int symbolId, int tier, double price) {
+        return isLargeMove(symbolId, thresholdOf(symbolId, tier), price);
+    }
+
+    private boolean isLargeMove(int symbolId, Threshold threshold, double price) {
+        double last = lastPublishedPrice[symbolId];
+        if (last != last) return false; // Never published
+        return Math.abs(price - last) >= threshold.largeMoveRelative * Math.abs(last);
+    }
+
+    /**
+     * Publishing thread: price is now what downstream last saw for the symbol.
+     */
+    public void published(int symbolId, double price) {
+        lastPublishedPrice[symbolId] = price;
+    }
+
+    /**
+     * Forgets the symbol's last price and override, e.g. when its id is recycled.
+     */
+    public void reset(int symbolId) {
+        if (symbolId >= lastPublishedPrice.length) return;
+        lastPublishedPrice[symbolId] = Double.NaN;
+        clearSymbolThreshold(symbolId);
+    }
+
+    private Threshold thresholdOf(int symbolId, int tier) {
+        Threshold override = overrideBySymbol.get(symbolId);
+        return override != null ? override : tierThresholds[tier];
+    }
+}
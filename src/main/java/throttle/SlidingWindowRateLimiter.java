@@ -0,0 +1,50 @@
+package throttle;
+
+/**
+ * Sliding-window log: remembers the time of each of the last maxPermits publishes
+ * and allows a new one only while fewer than maxPermits fall inside the window.
+ *
+ * This is the policy the processors originally hardcoded with a Deque of boxed Longs;
+ * here the log is a primitive ring of exactly maxPermits slots.
+ *
+ * Time Complexity: O(1) amortized - Each timestamp is appended and expired once.
+ * Space Complexity: O(maxPermits) - One long per permit in the window.
+ */
+public class SlidingWindowRateLimiter implements RateLimiter {
+
+    private final long[] timestamps;
+    private final long windowMs;
+    private int head;
+    private int count;
+
+    public SlidingWindowRateLimiter(int maxPermits, long windowMs) {
+        if (maxPermits <= 0 || windowMs <= 0) {
+            throw new IllegalArgumentException("maxPermits and windowMs must be positive");
+        }
+        this.timestamps = new long[maxPermits];
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    public boolean tryAcquire(long now) {
+        expire(now);
+        if (count == timestamps.length) return false;
+
+        timestamps[(head + count) % timestamps.length] = now;
+        count++;
+        return true;
+    }
+
+    @Override
+    public int availablePermits(long now) {
+        expire(now);
+        return timestamps.length - count;
+    }
+
+    private void expire(long now) {
+        while (count > 0 && now - timestamps[head] > windowMs) {
+            head = (head + 1) % timestamps.length;
+            count--;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package throttle;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SymbolIntervals holds the minimum interval between two publishes of each symbol.
+ *
+ * Every symbol belongs to a tier (tier 0 by default) and inherits the tier's interval,
+ * unless it has a per-symbol override. Both can be changed at runtime from any thread.
+ *
+ * The effective interval of every symbol is resolved eagerly into one array indexed by symbol id,
+ * so the eligibility check costs a single array read however the interval was configured.
+ * Changing a tier interval rewrites the affected entries, which is O(symbols) but rare.
+ */
+public class SymbolIntervals {
+
+    public static final int DEFAULT_TIER = 0;
+    public static final int MAX_TIERS = Byte.MAX_VALUE + 1;
+
+    private static final long NO_OVERRIDE = -1;
+
+    private final long[] tierIntervalMs;
+    // Guarded by this; replaced (never resized in place) when capacity grows
+    private volatile byte[] tierBySymbol = new byte[0];
+    private long[] overrideMsBySymbol = new long[0];
+    private volatile AtomicLongArray effectiveMsBySymbol = new AtomicLongArray(0);
+
+    /**
+     * @param tierIntervalMs Default interval of each tier; tier i uses tierIntervalMs[i].
+     */
+    public SymbolIntervals(long... tierIntervalMs) {
+        if (tierIntervalMs.length == 0 || tierIntervalMs.length > MAX_TIERS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_TIERS + " tiers are supported");
+        }
+        for (long interval : tierIntervalMs) {
+            checkInterval(interval);
+        }
+        this.tierIntervalMs = tierIntervalMs.clone();
+    }
+
+    /**
+     * Preallocates state for symbol ids in [0, capacity). Called by processors at construction.
+     */
+    public synchronized void ensureCapacity(int capacity) {
+        int current = tierBySymbol.length;
+        if (capacity <= current) return;
+
+        tierBySymbol = Arrays.copyOf(tierBySymbol, capacity);
+        overrideMsBySymbol = Arrays.copyOf(overrideMsBySymbol, capacity);
+        Arrays.fill(overrideMsBySymbol, current, capacity, NO_OVERRIDE);
+
+        AtomicLongArray previous = effectiveMsBySymbol;
+        AtomicLongArray effective = new AtomicLongArray(capacity);
+        for (int id = 0; id < capacity; id++) {
+            effective.set(id, id < current ? previous.get(id) : tierIntervalMs[DEFAULT_TIER]);
+        }
+        effectiveMsBySymbol = effective;
+    }
+
+    /**
+     * Hot path: the interval currently in force for the symbol.
+     */
+    public long intervalMs(int symbolId) {
+        return effectiveMsBySymbol.get(symbolId);
+    }
+
+    public int tierOf(int symbolId) {
+        byte[] tiers = tierBySymbol;
+        return symbolId < tiers.length ? tiers[symbolId] : DEFAULT_TIER;
+    }
+
+    public int tierCount() {
+        return tierIntervalMs.length;
+    }
+
+    public synchronized long tierIntervalMs(int tier) {
+        return tierIntervalMs[checkTier(tier)];
+    }
+
+    /**
+     * Changes the interval of a tier; symbols with their own override keep it.
+     */
+    public synchronized void setTierInterval(int tier, long intervalMs) {
+        checkTier(tier);
+        checkInterval(intervalMs);
+        tierIntervalMs[tier] = intervalMs;
+        for (int id = 0; id < tierBySymbol.length; id++) {
+            if (tierBySymbol[id] == tier && overrideMsBySymbol[id] == NO_OVERRIDE) {
+                effectiveMsBySymbol.set(id, intervalMs);
+            }
+        }
+    }
+
+    public synchronized void setTier(int symbolId, int tier) {
+        checkTier(tier);
+        ensureCapacity(symbolId + 1);
+        tierBySymbol[symbolId] = (byte) tier;
+        resolve(symbolId);
+    }
+
+    public synchronized void setSymbolInterval(int symbolId, long intervalMs) {
+        checkInterval(intervalMs);
+        ensureCapacity(symbolId + 1);
+        overrideMsBySymbol[symbolId] = intervalMs;
+        resolve(symbolId);
+    }
+
+    /**
+     * Drops a per-symbol override so the symbol follows its tier again.
+     */
+    public synchronized void clearSymbolInterval(int symbolId) {
+        if (symbolId >= overrideMsBySymbol.length) return;
+        overrideMsBySymbol[symbolId] = NO_OVERRIDE;
+        resolve(symbolId);
+    }
+
+    /**
+     * Puts the symbol back in the default tier without an override, e.g. when its id is recycled.
+     */
+    public synchronized void reset(int symbolId) {
+        if (symbolId >= overrideMsBySymbol.length) return;
+        tierBySymbol[symbolId] = DEFAULT_TIER;
+        overrideMsBySymbol[symbolId] = NO_OVERRIDE;
+        resolve(symbolId);
+    }
+
+    private void resolve(int symbolId) {
+        long override = overrideMsBySymbol[symbolId];
+        effectiveMsBySymbol.set(symbolId, override != NO_OVERRIDE ? override : tierIntervalMs[tierBySymbol[symbolId]]);
+    }
+
+    private int checkTier(int tier) {
+        if (tier < 0 || tier >= tierIntervalMs.length) {
+            throw new IllegalArgumentException("Unknown tier " + tier + ", configured tiers: " + tierIntervalMs.length);
+        }
+        return tier;
+    }
+
+    private static void checkInterval(long intervalMs) {
+        if (intervalMs < 0) {
+            throw new IllegalArgumentException("Interval must not be negative: " + intervalMs);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package throttle;
+
+/**
+ * ThrottlePolicy bundles the two limits every processor enforces:
+ * - a global budget shared by all symbols, optionally split across tiers with guaranteed minimums, and
+ * - a minimum interval between two publishes of the same symbol, per tier or per symbol, and
+ * - optionally, a SignificanceFilter: prices that barely moved since the last publish are not published.
+ *
+ * With priority lanes, each tier is a lane and tier 0 the most urgent: pending symbols of a lower tier are
+ * tried first, and a large move (per the SignificanceFilter) is tried in lane 0 whatever its tier. Give the
+ * less urgent tiers a minimum in the TieredRateLimiter, otherwise a busy urgent tier can starve them.
+ *
+ * Intervals and tier assignments can be changed at runtime through {@link #intervals()}.
+ * The policy owns limiter state, so each processor needs its own instance.
+ */
+public class ThrottlePolicy {
+
+    public static final int DEFAULT_MAX_GLOBAL_RATE = 100; // max publishes/sec
+    public static final long DEFAULT_SYMBOL_INTERVAL_MS = 1000; // 1/sec per symbol
+    public static final long DEFAULT_GLOBAL_WINDOW_MS = 1000; // sliding window
+
+    private final TieredRateLimiter budget;
+    private final SymbolIntervals intervals;
+    private final SignificanceFilter significance; // null: every price is significant
+    private final boolean priorityLanes;
+
+    /**
+     * A single tier: every symbol shares the global limiter and the same interval.
+     */
+    public ThrottlePolicy(RateLimiter globalLimiter, long symbolIntervalMs) {
+        this(new TieredRateLimiter(globalLimiter), new SymbolIntervals(symbolIntervalMs));
+    }
+
+    public ThrottlePolicy(TieredRateLimiter budget, SymbolIntervals intervals) {
+        this(budget, intervals, null);
+    }
+
+    /**
+     * @param significance Thresholds per tier of intervals; the filter then holds the last published prices,
+     *                     so like the limiter state it belongs to one processor.
+     */
+    public ThrottlePolicy(TieredRateLimiter budget, SymbolIntervals intervals, SignificanceFilter significance) {
+        this(budget, intervals, significance, false);
+    }
+
+    /**
+     * @param significance  Null for none.
+     * @param priorityLanes true to serve tiers as priority lanes, tier 0 first, instead of oldest-eligible first
+     *                      across all tiers.
+     */
+    public ThrottlePolicy(TieredRateLimiter budget, SymbolIntervals intervals, SignificanceFilter significance,
+                          boolean priorityLanes) {
+        this.budget = budget;
+        this.intervals = intervals;
+        this.significance = significance;
+        this.priorityLanes = priorityLanes;
+    }
+
+    /**
+     * The original behaviour: 100 publishes per sliding second, each symbol at most once per second.
+     */
+    public static ThrottlePolicy defaults() {
+        return new ThrottlePolicy(
+                new SlidingWindowRateLimiter(DEFAULT_MAX_GLOBAL_RATE, DEFAULT_GLOBAL_WINDOW_MS),
+                DEFAULT_SYMBOL_INTERVAL_MS);
+    }
+
+    /**
+     * Sizes per-symbol state for a registry; called by processors at construction.
+     */
+    public void bind(int symbolCapacity) {
+        intervals.ensureCapacity(symbolCapacity);
+        if (significance != null) significance.ensureCapacity(symbolCapacity);
+    }
+
+    /**
+     * Takes one global permit on behalf of the symbol's tier.
+     */
+    public boolean tryAcquire(int symbolId, long now) {
+        return budget.tryAcquire(intervals.tierOf(symbolId), now);
+    }
+
+    /**
+     * @return true if tryAcquire would grant a permit to a symbol of tier at {@code now}; takes nothing.
+     */
+    public boolean canAcquire(int tier, long now) {
+        return budget.canAcquire(tier, now);
+    }
+
+    /**
+     * @return false once no tier can publish any more at {@code now}.
+     */
+    public boolean hasCapacity(long now) {
+        return budget.hasCapacity(now);
+    }
+
+    public int tierOf(int symbolId) {
+        return intervals.tierOf(symbolId);
+    }
+
+    public long intervalMs(int symbolId) {
+        return intervals.intervalMs(symbolId);
+    }
+
+    /**
+     * The interval for publishing price: shorter than intervalMs(symbolId) if the filter sees a large move.
+     */
+    public long intervalMs(int symbolId, double price) {
+        long intervalMs = intervals.intervalMs(symbolId);
+        return significance == null ? intervalMs
+                : significance.intervalMs(symbolId, intervals.tierOf(symbolId), price, intervalMs);
+    }
+
+    /**
+     * @return false if price moved too little since the symbol's last publish to spend a permit on it.
+     */
+    public boolean isSignificant(int symbolId, double price) {
+        return significance == null || significance.isSignificant(symbolId, intervals.tierOf(symbolId), price);
+    }
+
+    /**
+     * @return how many lanes a processor should order pending symbols in: one per tier with priority lanes, else 1.
+     */
+    public int laneCount() {
+        return priorityLanes ? intervals.tierCount() : 1;
+    }
+
+    /**
+     * The lane to queue a pending symbol in: lane 0 for a large move, else the symbol's tier; 0 without lanes.
+     */
+    public int laneOf(int symbolId, double price) {
+        if (!priorityLanes) return 0;
+        int tier = intervals.tierOf(symbolId);
+        return significance != null && significance.isLargeMove(symbolId, tier, price) ? 0 : tier;
+    }
+
+    /**
+     * The lane of a symbol without a price to judge: its tier with priority lanes, else 0.
+     */
+    public int laneOf(int symbolId) {
+        return priorityLanes ? intervals.tierOf(symbolId) : 0;
+    }
+
+    /**
+     * Publishing thread: records what was published, for later significance checks.
+     */
+    public void recordPublished(int symbolId, double price) {
+        if (significance != null) significance.published(symbolId, price);
+    }
+
+    /**
+     * Forgets a symbol's tier, interval override and last published price, e.g. when its id is recycled.
+     */
+    public void reset(int symbolId) {
+        intervals.reset(symbolId);
+        if (significance != null) significance.reset(symbolId);
+    }
+
+    /**
+     * @return true if a SignificanceFilter is configured.
+     */
+    public boolean filtersSignificance() {
+        return significance != null;
+    }
+
+    public SymbolIntervals intervals() {
+        return intervals;
+    }
+}
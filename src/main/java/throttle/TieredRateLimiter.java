@@ -0,0 +1,98 @@
+package throttle;
+
+/**
+ * TieredRateLimiter splits one global budget across symbol tiers with guaranteed minimums.
+ *
+ * Each tier may have a reservation limiter sized to its minimum share. A tier that still has
+ * reservation left may always take a global permit; a tier past its minimum may only take permits
+ * beyond the reservations the other tiers have not used yet. Unused reservations are therefore
+ * lent out, but a burst in one tier can never eat into another tier's minimum.
+ *
+ * Time Complexity: O(t) per decision - Where t is the number of tiers.
+ * Not thread-safe, like the limiters it composes.
+ */
+public class TieredRateLimiter {
+
+    private final RateLimiter global;
+    private final RateLimiter[] reservedByTier;
+
+    /**
+     * A single budget with no reservations.
+     */
+    public TieredRateLimiter(RateLimiter global) {
+        this(global, new RateLimiter[0]);
+    }
+
+    /**
+     * @param global         Total budget across all tiers.
+     * @param reservedByTier Per tier, a limiter granting that tier's minimum share, or null for none.
+     *                       Should use the same window as the global limiter.
+     */
+    public TieredRateLimiter(RateLimiter global, RateLimiter... reservedByTier) {
+        this.global = global;
+        this.reservedByTier = reservedByTier.clone();
+    }
+
+    /**
+     * Sliding-window budget of maxPermits per window with a guaranteed minimum per tier.
+     */
+    public static TieredRateLimiter slidingWindow(int maxPermits, long windowMs, int... minimumPerTier) {
+        int reservedTotal = 0;
+        RateLimiter[] reserved = new RateLimiter[minimumPerTier.length];
+        for (int tier = 0; tier < minimumPerTier.length; tier++) {
+            int minimum = minimumPerTier[tier];
+            if (minimum < 0) {
+                throw new IllegalArgumentException("Minimum for tier " + tier + " must not be negative");
+            }
+            reservedTotal += minimum;
+            reserved[tier] = minimum > 0 ? new SlidingWindowRateLimiter(minimum, windowMs) : null;
+        }
+        if (reservedTotal > maxPermits) {
+            throw new IllegalArgumentException("Tier minimums " + reservedTotal + " exceed the global budget " + maxPermits);
+        }
+        return new TieredRateLimiter(new SlidingWindowRateLimiter(maxPermits, windowMs), reserved);
+    }
+
+    public boolean tryAcquire(int tier, long now) {
+        if (!canAcquire(tier, now)) return false;
+        if (!global.tryAcquire(now)) return false;
+        RateLimiter own = reservation(tier);
+        if (own != null && own.availablePermits(now) > 0) own.tryAcquire(now);
+        return true;
+    }
+
+    /**
+     * @return true if tryAcquire(tier, now) would grant a permit; takes nothing. At a fixed {@code now}, permits
+     * are only ever taken, so a tier refused once stays refused for the rest of a publish tick.
+     */
+    public boolean canAcquire(int tier, long now) {
+        int available = global.availablePermits(now);
+        if (available <= 0) return false;
+
+        RateLimiter own = reservation(tier);
+        boolean withinMinimum = own != null && own.availablePermits(now) > 0;
+        // Past its minimum, a tier may not take the permits held for other tiers' minimums
+        return withinMinimum || available > outstandingReservations(tier, now);
+    }
+
+    /**
+     * @return true while the global budget has any permit left, for any tier.
+     */
+    public boolean hasCapacity(long now) {
+        return global.availablePermits(now) > 0;
+    }
+
+    private RateLimiter reservation(int tier) {
+        return tier < reservedByTier.length ? reservedByTier[tier] : null;
+    }
+
+    private int outstandingReservations(int excludedTier, long now) {
+        int outstanding = 0;
+        for (int tier = 0; tier < reservedByTier.length; tier++) {
+            if (tier != excludedTier && reservedByTier[tier] != null) {
+                outstanding += reservedByTier[tier].availablePermits(now);
+            }
+        }
+        return outstanding;
+    }
+}
@@ -0,0 +1,58 @@
+package throttle;
+
+/**
+ * Token bucket: refills permitsPerWindow tokens per window continuously, holding at most burst tokens.
+ * Smooths publishes over the window instead of letting a full window's budget go out at once.
+ *
+ * Tokens are kept in fixed point (one token = windowMs units, refilled at permitsPerWindow units/ms)
+ * so the refill is exact integer arithmetic and never drifts.
+ *
+ * Time Complexity: O(1)
+ * Space Complexity: O(1)
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+    private final long unitsPerToken;
+    private final long unitsPerMs;
+    private final long capacityUnits;
+    private long units;
+    private long lastRefill = Long.MIN_VALUE;
+
+    /**
+     * @param permitsPerWindow Sustained rate, as permits per windowMs.
+     * @param burst            Bucket capacity; the bucket starts full.
+     */
+    public TokenBucketRateLimiter(int permitsPerWindow, long windowMs, int burst) {
+        if (permitsPerWindow <= 0 || windowMs <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerWindow, windowMs and burst must be positive");
+        }
+        this.unitsPerToken = windowMs;
+        this.unitsPerMs = permitsPerWindow;
+        this.capacityUnits = burst * windowMs;
+        this.units = capacityUnits;
+    }
+
+    @Override
+    public boolean tryAcquire(long now) {
+        refill(now);
+        if (units < unitsPerToken) return false;
+        units -= unitsPerToken;
+        return true;
+    }
+
+    @Override
+    public int availablePermits(long now) {
+        refill(now);
+        return (int) (units / unitsPerToken);
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            if (lastRefill != Long.MIN_VALUE) {
+                long elapsed = Math.min(now - lastRefill, capacityUnits); // bounds the multiply
+                units = Math.min(capacityUnits, units + elapsed * unitsPerMs);
+            }
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package utils;
+
+/**
+ * BarAccumulator summarizes every tick a symbol receives between two publishes as an OHLCV bar:
+ * open, high, low, tick count, volume and the volume-weighted average price. The close is the pending
+ * price the processor already keeps.
+ *
+ * Key Features:
+ * - One primitive slot per symbol id, updated in place: a few compares and adds per tick, no allocation.
+ * - VWAP is kept as the sum of price * quantity and divided only when the bar is published.
+ * - Ticks without a quantity (0) still move open/high/low and the tick count but not the volume.
+ * - A bar stays open until it is published, so ticks the processor did not publish on their own (e.g. held back
+ *   by a SignificanceFilter) still count in the next bar.
+ *
+ * Space Complexity: O(capacity) - Six primitive slots per symbol id.
+ * Not thread-safe: owned by the thread that coalesces and publishes.
+ */
+public class BarAccumulator {
+
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final long[] tickCount;
+    private final long[] volume;
+    private final double[] notional;
+
+    public BarAccumulator(int capacity) {
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.tickCount = new long[capacity];
+        this.volume = new long[capacity];
+        this.notional = new double[capacity];
+    }
+
+    /**
+     * Adds a tick to the symbol's open bar, or opens a new bar with it if none is open.
+     */
+    public void add(int symbolId, double price, long quantity) {
+        if (tickCount[symbolId] == 0) {
+            start(symbolId, price, quantity);
+        } else {
+            update(symbolId, price, quantity);
+        }
+    }
+
+    private void start(int symbolId, double price, long quantity) {
+        open[symbolId] = price;
+        high[symbolId] = price;
+        low[symbolId] = price;
+        tickCount[symbolId] = 1;
+        volume[symbolId] = quantity;
+        notional[symbolId] = price * quantity;
+    }
+
+    private void update(int symbolId, double price, long quantity) {
+        if (price > high[symbolId]) high[symbolId] = price;
+        if (price < low[symbolId]) low[symbolId] = price;
+        tickCount[symbolId]++;
+        volume[symbolId] += quantity;
+        notional[symbolId] += price * quantity;
+    }
+
+    /**
+     * Adds the symbol's bar to a batch created with bars and closes it; the close is the latest price.
+     */
+    public void addTo(MarketDataBatch batch, int symbolId, double close, long updateTime) {
+        batch.add(symbolId, close, updateTime);
+        long barVolume = volume[symbolId];
+        batch.setBar(open[symbolId], high[symbolId], low[symbolId], tickCount[symbolId], barVolume,
+                barVolume != 0 ? notional[symbolId] / barVolume : Double.NaN);
+        tickCount[symbolId] = 0;
+    }
+
+    /**
+     * Discards the symbol's open bar, e.g. when its id is recycled.
+     */
+    public void clear(int symbolId) {
+        tickCount[symbolId] = 0;
+    }
+}
@@ -0,0 +1,49 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coarse clock: a daemon thread copies the source clock into a volatile field at a fixed resolution,
+ * so reading the time is a single volatile load. Suits hot paths that stamp every event and can
+ * tolerate readings up to one resolution period old.
+ */
+public class CachedClock implements Clock, AutoCloseable {
+
+    private final Clock source;
+    private final long resolutionNanos;
+    private final Thread updater;
+    private volatile long now;
+    private volatile boolean running = true;
+
+    public CachedClock(long resolution, TimeUnit unit) {
+        this(Clock.system(), resolution, unit);
+    }
+
+    public CachedClock(Clock source, long resolution, TimeUnit unit) {
+        this.source = source;
+        this.resolutionNanos = unit.toNanos(resolution);
+        this.now = source.nanoTime();
+        this.updater = new Thread(this::update, "cached-clock");
+        updater.setDaemon(true);
+        updater.start();
+    }
+
+    private void update() {
+        while (running) {
+            now = source.nanoTime();
+            LockSupport.parkNanos(resolutionNanos);
+        }
+    }
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(updater);
+    }
+}
@@ -0,0 +1,29 @@
+package utils;
+
+/**
+ * Source of time for the processors and their throttles, so tests, replay and benchmarks can run
+ * on simulated time instead of the wall clock.
+ *
+ * Implementations:
+ * - SystemClock: monotonic nanoTime, anchored to the epoch at startup. The default.
+ * - CachedClock: reads a value refreshed by a background thread, for code that checks the time per event.
+ * - ManualClock: only moves when advanced, for deterministic tests and simulation.
+ */
+public interface Clock {
+
+    /**
+     * @return monotonic time in nanoseconds; only differences between readings are meaningful.
+     */
+    long nanoTime();
+
+    /**
+     * @return the same time in milliseconds, the unit the throttles work in.
+     */
+    default long millis() {
+        return nanoTime() / 1_000_000;
+    }
+
+    static Clock system() {
+        return SystemClock.INSTANCE;
+    }
+}
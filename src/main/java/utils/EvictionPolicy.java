@@ -0,0 +1,94 @@
+package utils;
+
+/**
+ * EvictionPolicy decides when a SymbolRegistry drops symbols that stopped ticking, so a long-running
+ * processor facing churning symbols (e.g. option chains rolling daily) keeps a bounded footprint.
+ *
+ * Key Features:
+ * - Idle TTL: a symbol not touched for idleTtlMs is evicted.
+ * - Max symbols: above the bound, symbols not touched since the clock hand last passed are evicted
+ *   (CLOCK, an approximation of LRU), even if they are not yet idle for the TTL.
+ * - Work is bounded: each sweep visits at most scanPerSweep ids, so eviction never stalls a tick.
+ * - An evicted id is quarantined for quarantineMs before it is reused, so an update already in
+ *   flight for the old symbol cannot land on a new one. Processors drop updates for evicted ids, and the
+ *   id is only reused once the processor confirms its slot is empty again.
+ *
+ * Instances are immutable; the with* methods return a modified copy.
+ */
+public final class EvictionPolicy {
+
+    public static final int DEFAULT_SCAN_PER_SWEEP = 1024;
+    public static final long DEFAULT_QUARANTINE_MS = 1000;
+
+    /**
+     * Never evicts; the registry behaves as before, ids are stable for its lifetime.
+     */
+    public static final EvictionPolicy NONE =
+            new EvictionPolicy(Long.MAX_VALUE, Integer.MAX_VALUE, DEFAULT_SCAN_PER_SWEEP, DEFAULT_QUARANTINE_MS);
+
+    private final long idleTtlMs;
+    private final int maxSymbols;
+    private final int scanPerSweep;
+    private final long quarantineMs;
+
+    private EvictionPolicy(long idleTtlMs, int maxSymbols, int scanPerSweep, long quarantineMs) {
+        if (idleTtlMs <= 0) throw new IllegalArgumentException("idleTtlMs must be positive: " + idleTtlMs);
+        if (maxSymbols <= 0) throw new IllegalArgumentException("maxSymbols must be positive: " + maxSymbols);
+        if (scanPerSweep <= 0) throw new IllegalArgumentException("scanPerSweep must be positive: " + scanPerSweep);
+        if (quarantineMs < 0) throw new IllegalArgumentException("quarantineMs must not be negative: " + quarantineMs);
+        this.idleTtlMs = idleTtlMs;
+        this.maxSymbols = maxSymbols;
+        this.scanPerSweep = scanPerSweep;
+        this.quarantineMs = quarantineMs;
+    }
+
+    /**
+     * Evicts symbols that have not been touched for idleTtlMs.
+     */
+    public static EvictionPolicy idleFor(long idleTtlMs) {
+        return NONE.withIdleTtlMs(idleTtlMs);
+    }
+
+    /**
+     * Keeps at most maxSymbols live symbols, evicting the least recently touched ones first.
+     */
+    public static EvictionPolicy bounded(int maxSymbols) {
+        return NONE.withMaxSymbols(maxSymbols);
+    }
+
+    public EvictionPolicy withIdleTtlMs(long idleTtlMs) {
+        return new EvictionPolicy(idleTtlMs, maxSymbols, scanPerSweep, quarantineMs);
+    }
+
+    public EvictionPolicy withMaxSymbols(int maxSymbols) {
+        return new EvictionPolicy(idleTtlMs, maxSymbols, scanPerSweep, quarantineMs);
+    }
+
+    public EvictionPolicy withScanPerSweep(int scanPerSweep) {
+        return new EvictionPolicy(idleTtlMs, maxSymbols, scanPerSweep, quarantineMs);
+    }
+
+    public EvictionPolicy withQuarantineMs(long quarantineMs) {
+        return new EvictionPolicy(idleTtlMs, maxSymbols, scanPerSweep, quarantineMs);
+    }
+
+    public boolean enabled() {
+        return idleTtlMs != Long.MAX_VALUE || maxSymbols != Integer.MAX_VALUE;
+    }
+
+    public long idleTtlMs() {
+        return idleTtlMs;
+    }
+
+    public int maxSymbols() {
+        return maxSymbols;
+    }
+
+    public int scanPerSweep() {
+        return scanPerSweep;
+    }
+
+    public long quarantineMs() {
+        return quarantineMs;
+    }
+}
@@ -0,0 +1,37 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock that only moves when told to. Combined with a processor's manual tick mode it makes the
+ * throttling logic fully deterministic, and lets simulations run far faster than real time.
+ */
+public class ManualClock implements Clock {
+
+    private final AtomicLong now;
+
+    public ManualClock() {
+        this(0);
+    }
+
+    public ManualClock(long startNanos) {
+        this.now = new AtomicLong(startNanos);
+    }
+
+    @Override
+    public long nanoTime() {
+        return now.get();
+    }
+
+    public void advance(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Time cannot go backwards: " + duration);
+        }
+        now.addAndGet(unit.toNanos(duration));
+    }
+
+    public void advanceMillis(long millis) {
+        advance(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,16 +1,34 @@
 package utils;
 
 public class MarketData {
+    public static final int NO_SYMBOL_ID = -1;
+
+    private final int symbolId;
     private final String symbol;
     private final double price;
     private final long updateTime;
 
     public MarketData(String symbol, double price, long updateTime) {
+        this(NO_SYMBOL_ID, symbol, price, updateTime);
+    }
+
+    /**
+     * @param symbolId The id assigned to the symbol by a {@link SymbolRegistry}.
+     */
+    public MarketData(int symbolId, String symbol, double price, long updateTime) {
+        this.symbolId = symbolId;
         this.symbol = symbol;
         this.price = price;
         this.updateTime = updateTime;
     }
 
+    /**
+     * @return the registry id of the symbol, or NO_SYMBOL_ID if the sender did not resolve it.
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
     public String getSymbol() {
         return symbol;
     }
@@ -23,4 +41,3 @@ public class MarketData {
         return updateTime;
     }
 }
-
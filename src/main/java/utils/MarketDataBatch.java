@@ -0,0 +1,184 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * MarketDataBatch is a reusable, column-oriented buffer of the updates published in one tick
+ * or one Disruptor batch, so a downstream sink can handle them in a single call.
+ *
+ * Key Features:
+ * - Primitive columns (symbol id, price, update time) that sinks can read without allocating.
+ * - Processors that already hold MarketData objects add them as-is; marketData(i) then returns
+ *   the original object instead of creating a new one.
+ * - Optional bar columns (open, high, low, tick count, volume, VWAP) when the processor aggregates each
+ *   symbol's ticks between publishes; price(i) is then the bar's close.
+ * - Owned and reused by one publishing thread; a sink must copy anything it keeps after publishBatch returns.
+ *
+ * Space Complexity: O(m) - Where m is the largest batch seen so far; columns only grow.
+ */
+public class MarketDataBatch {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final SymbolRegistry registry;
+    private int[] symbolIds = new int[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private long[] updateTimes = new long[INITIAL_CAPACITY];
+    private MarketData[] originals = new MarketData[INITIAL_CAPACITY];
+    // Bar columns, null unless the batch carries bars
+    private double[] opens;
+    private double[] highs;
+    private double[] lows;
+    private long[] tickCounts;
+    private long[] volumes;
+    private double[] vwaps;
+    private int size;
+
+    /**
+     * @param registry Resolves symbol names for the ids in this batch.
+     */
+    public MarketDataBatch(SymbolRegistry registry) {
+        this(registry, false);
+    }
+
+    /**
+     * @param bars true if every entry also carries the bar aggregated since its symbol's previous publish.
+     */
+    public MarketDataBatch(SymbolRegistry registry, boolean bars) {
+        this.registry = registry;
+        if (bars) {
+            opens = new double[INITIAL_CAPACITY];
+            highs = new double[INITIAL_CAPACITY];
+            lows = new double[INITIAL_CAPACITY];
+            tickCounts = new long[INITIAL_CAPACITY];
+            volumes = new long[INITIAL_CAPACITY];
+            vwaps = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    public void add(int symbolId, double price, long updateTime) {
+        ensureRoom();
+        symbolIds[size] = symbolId;
+        prices[size] = price;
+        updateTimes[size] = updateTime;
+        originals[size] = null;
+        size++;
+    }
+
+    /**
+     * @param symbolId The registry id of the data's symbol, which the data itself may not carry.
+     */
+    public void add(int symbolId, MarketData data) {
+        add(symbolId, data.getPrice(), data.getUpdateTime());
+        originals[size - 1] = data;
+    }
+
+    /**
+     * Sets the bar of the entry added last; only for a batch created with bars.
+     */
+    public void setBar(double open, double high, double low, long tickCount, long volume, double vwap) {
+        int index = size - 1;
+        opens[index] = open;
+        highs[index] = high;
+        lows[index] = low;
+        tickCounts[index] = tickCount;
+        volumes[index] = volume;
+        vwaps[index] = vwap;
+    }
+
+    /**
+     * Empties the batch, dropping references to the added MarketData objects.
+     */
+    public void clear() {
+        Arrays.fill(originals, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int symbolId(int index) {
+        return symbolIds[index];
+    }
+
+    public String symbol(int index) {
+        return registry.symbolOf(symbolIds[index]);
+    }
+
+    public double price(int index) {
+        return prices[index];
+    }
+
+    public long updateTime(int index) {
+        return updateTimes[index];
+    }
+
+    /**
+     * @return true if the entries carry bars; the bar accessors below are only valid then.
+     */
+    public boolean hasBars() {
+        return opens != null;
+    }
+
+    public double open(int index) {
+        return opens[index];
+    }
+
+    public double high(int index) {
+        return highs[index];
+    }
+
+    public double low(int index) {
+        return lows[index];
+    }
+
+    /**
+     * @return the ticks aggregated into the bar, at least 1.
+     */
+    public long tickCount(int index) {
+        return tickCounts[index];
+    }
+
+    public long volume(int index) {
+        return volumes[index];
+    }
+
+    /**
+     * @return the volume-weighted average price, or NaN if no tick in the bar carried a quantity.
+     */
+    public double vwap(int index) {
+        return vwaps[index];
+    }
+
+    /**
+     * @return the added MarketData, or a new one built from the columns if the entry was added as primitives.
+     */
+    public MarketData marketData(int index) {
+        MarketData original = originals[index];
+        return original != null ? original
+                : new MarketData(symbolIds[index], symbol(index), prices[index], updateTimes[index]);
+    }
+
+    private void ensureRoom() {
+        if (size == symbolIds.length) {
+            int capacity = size * 2;
+            symbolIds = Arrays.copyOf(symbolIds, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            updateTimes = Arrays.copyOf(updateTimes, capacity);
+            originals = Arrays.copyOf(originals, capacity);
+            if (opens != null) {
+                opens = Arrays.copyOf(opens, capacity);
+                highs = Arrays.copyOf(highs, capacity);
+                lows = Arrays.copyOf(lows, capacity);
+                tickCounts = Arrays.copyOf(tickCounts, capacity);
+                volumes = Arrays.copyOf(volumes, capacity);
+                vwaps = Arrays.copyOf(vwaps, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * OffHeapSymbolState keeps the per-symbol state of a processor in one direct ByteBuffer: a fixed-size record per
+ * symbol, addressed by the SymbolRegistry id. However many symbols there are, the heap holds one buffer object,
+ * so a universe of a million symbols adds nothing for the GC to mark or copy.
+ *
+ * Record layout (RECORD_SIZE bytes, native byte order, every field 8-byte aligned):
+ * - STAMP: version (bits 2+), PENDING flag (bit 1) and WRITING flag (bit 0); guards price and update time.
+ * - PRICE, UPDATE_TIME: the latest update, written by producers.
+ * - LAST_PUBLISHED: when the symbol was last published, in millis; publishing thread only.
+ * - PENDING_SINCE_NANOS: when the oldest unpublished update arrived, written before the symbol is handed over.
+ *
+ * Key Features:
+ * - update() is the off-heap equivalent of getAndSet on an AtomicReferenceArray of MarketData: it stores the
+ *   latest price and update time and tells the caller whether it made the symbol pending.
+ * - Readers take a consistent price and update time optimistically, like a StampedLock:
+ *   readStamp, read the fields, then validate, and retry if a producer wrote meanwhile.
+ * - clearPending(id, stamp) is the equivalent of compareAndSet(id, data, null): it fails if a newer update
+ *   arrived after the stamp was read, so that update stays pending.
+ * - Producers for the same symbol may run concurrently; they take turns through the WRITING flag.
+ *
+ * Time Complexity: O(1) per operation - One CAS to start an update, one release store to finish it.
+ * Space Complexity: O(capacity) - RECORD_SIZE bytes per symbol, off-heap.
+ */
+public final class OffHeapSymbolState {
+
+    public static final int RECORD_SIZE = 40;
+    public static final long NEVER_PUBLISHED = Long.MIN_VALUE / 2; // no cooldown before the first publish
+
+    private static final int STAMP = 0;
+    private static final int PRICE = 8;
+    private static final int UPDATE_TIME = 16;
+    private static final int LAST_PUBLISHED = 24;
+    private static final int PENDING_SINCE_NANOS = 32;
+
+    private static final long WRITING = 1;
+    private static final long PENDING = 2;
+    private static final long VERSION = 4;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle DOUBLE = MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer records;
+    private final int capacity;
+
+    public OffHeapSymbolState(int capacity) {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + Integer.MAX_VALUE / RECORD_SIZE);
+        }
+        this.capacity = capacity;
+        this.records = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        for (int id = 0; id < capacity; id++) {
+            LONG.set(records, id * RECORD_SIZE + LAST_PUBLISHED, NEVER_PUBLISHED);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the size of the records in direct memory, in bytes.
+     */
+    public long offHeapBytes() {
+        return records.capacity();
+    }
+
+    /**
+     * Producer: stores the symbol's latest price and update time and marks it pending.
+     *
+     * @return true if the symbol was not pending before, i.e. the caller must hand it to the publishing thread.
+     */
+    public boolean update(int symbolId, double price, long updateTime) {
+        int base = symbolId * RECORD_SIZE;
+        long stamp;
+        do {
+            stamp = (long) LONG.getVolatile(records, base + STAMP);
+        } while ((stamp & WRITING) != 0 || !LONG.compareAndSet(records, base + STAMP, stamp, stamp | WRITING));
+
+        DOUBLE.setOpaque(records, base + PRICE, price);
+        LONG.setOpaque(records, base + UPDATE_TIME, updateTime);
+        // Nobody else changes a stamp with WRITING set: other producers wait, clearPending's CAS fails
+        LONG.setRelease(records, base + STAMP, (stamp + VERSION) | PENDING);
+        return (stamp & PENDING) == 0;
+    }
+
+    /**
+     * Starts an optimistic read of price and update time, waiting out an update in progress.
+     */
+    public long readStamp(int symbolId) {
+        int index = symbolId * RECORD_SIZE + STAMP;
+        long stamp;
+        while (((stamp = (long) LONG.getAcquire(records, index)) & WRITING) != 0) {
+            Thread.onSpinWait();
+        }
+        return stamp;
+    }
+
+    /**
+     * @return true if no update was written since readStamp returned stamp, so the fields read in between match.
+     */
+    public boolean validate(int symbolId, long stamp) {
+        VarHandle.loadLoadFence(); // The field reads happen before the stamp is read again
+        return (long) LONG.getVolatile(records, symbolId * RECORD_SIZE + STAMP) == stamp;
+    }
+
+    public static boolean isPending(long stamp) {
+        return (stamp & PENDING) != 0;
+    }
+
+    /**
+     * Use within readStamp/validate for a value consistent with updateTime; a lone read may be one update newer.
+     */
+    public double price(int symbolId) {
+        return (double) DOUBLE.getOpaque(records, symbolId * RECORD_SIZE + PRICE);
+    }
+
+    public long updateTime(int symbolId) {
+        return (long) LONG.getOpaque(records, symbolId * RECORD_SIZE + UPDATE_TIME);
+    }
+
+    /**
+     * Publishing thread: clears the pending flag unless an update arrived since stamp was read.
+     *
+     * @return false if the symbol is still pending with newer data.
+     */
+    public boolean clearPending(int symbolId, long stamp) {
+        return LONG.compareAndSet(records, symbolId * RECORD_SIZE + STAMP, stamp, stamp & ~PENDING);
+    }
+
+    public long lastPublished(int symbolId) {
+        return (long) LONG.get(records, symbolId * RECORD_SIZE + LAST_PUBLISHED);
+    }
+
+    public void setLastPublished(int symbolId, long timeMs) {
+        LONG.set(records, symbolId * RECORD_SIZE + LAST_PUBLISHED, timeMs);
+    }
+
+    public long pendingSinceNanos(int symbolId) {
+        return (long) LONG.get(records, symbolId * RECORD_SIZE + PENDING_SINCE_NANOS);
+    }
+
+    /**
+     * Written by the producer that made the symbol pending before the handoff, by the publishing thread after it.
+     */
+    public void setPendingSinceNanos(int symbolId, long nanos) {
+        LONG.set(records, symbolId * RECORD_SIZE + PENDING_SINCE_NANOS, nanos);
+    }
+
+    /**
+     * Publishing thread: forgets the last publish of a symbol whose id is recycled; only call it when not pending.
+     */
+    public void reset(int symbolId) {
+        setLastPublished(symbolId, NEVER_PUBLISHED);
+    }
+}
@@ -0,0 +1,49 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SymbolIdQueue hands symbol ids from producer threads to a single consumer thread without allocating.
+ *
+ * It relies on callers never having the same id in the queue twice (e.g. ids are only offered on a
+ * symbol's "nothing pending" to "pending" transition). The queue then never holds more than
+ * the number of distinct ids, so with capacity >= registry capacity it can never overflow.
+ *
+ * Multiple producers, single consumer. Producers pay one atomic increment per offer.
+ */
+public class SymbolIdQueue {
+
+    private static final int EMPTY = -1;
+
+    private final AtomicIntegerArray slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // consumer thread only
+
+    public SymbolIdQueue(int maxDistinctIds) {
+        int capacity = Integer.highestOneBit(Math.max(1, maxDistinctIds - 1)) << 1;
+        this.slots = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, EMPTY);
+        }
+    }
+
+    public void offer(int symbolId) {
+        long index = tail.getAndIncrement();
+        slots.set((int) (index & mask), symbolId);
+    }
+
+    /**
+     * @return the next id, or -1 if the queue is empty or the next producer has not finished writing.
+     */
+    public int poll() {
+        int index = (int) (head & mask);
+        int symbolId = slots.get(index);
+        if (symbolId == EMPTY) return EMPTY;
+        slots.lazySet(index, EMPTY);
+        head++;
+        return symbolId;
+    }
+}
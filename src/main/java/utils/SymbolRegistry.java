@@ -0,0 +1,290 @@
+package utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SymbolRegistry assigns every symbol a dense int id (0, 1, 2, ...) the first time it is seen,
+ * so per-symbol state can be kept in flat arrays indexed by id instead of String-keyed maps.
+ *
+ * Key Features:
+ * - Lookups of known symbols are lock-free; only the first sighting of a symbol takes a lock.
+ * - Ids are bounded by a fixed capacity, so processors can preallocate their per-symbol arrays up front.
+ *   The registry never grows: without eviction, registering a symbol beyond the capacity throws
+ *   IllegalStateException. Size it for the universe (processors take a symbolCapacity) or enable eviction.
+ * - A registry may be shared by several processors and producers.
+ * - Optional eviction (see EvictionPolicy): symbols that stop ticking are dropped and their ids recycled,
+ *   so churning symbols never exhaust the capacity. Without it, ids are stable for the registry's lifetime.
+ *
+ * Eviction is driven by the processor that owns the per-symbol state: it calls touch() for every update
+ * and sweep() from its publishing thread, which visits a bounded number of ids per call (a CLOCK hand)
+ * and asks the processor to reclaim each candidate. Only one thread may sweep a registry, so a registry
+ * with eviction enabled belongs to one processor; the sharded processor does not sweep.
+ */
+public class SymbolRegistry {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Clears the processor's state for an evicted symbol id.
+     */
+    @FunctionalInterface
+    public interface SlotReclaimer {
+        /**
+         * Called on the sweeping thread. Return false to keep the symbol, e.g. while it has pending data.
+         * Called again for an evicted id when its quarantine ends: a late update for the evicted symbol may have
+         * refilled the slot, and returning false then keeps the id out of reuse for another quarantine.
+         */
+        boolean reclaim(int symbolId);
+    }
+
+    private final Map<String, Integer> idsBySymbol = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> symbolsById;
+    private final int capacity;
+    private volatile int size; // live symbols
+    private volatile int highWater; // ids in [0, highWater) have been assigned at least once
+
+    private final EvictionPolicy eviction;
+    // Null unless eviction is enabled
+    private final AtomicIntegerArray touched; // CLOCK reference bit per id, set by touch()
+    private final long[] lastSeenMs; // sweeping thread only
+    private final int[] quarantinedIds; // sweeping thread only, FIFO ring by release time
+    private final long[] quarantinedAtMs;
+    private int quarantineHead;
+    private int quarantineSize;
+    private final int[] freeIds; // guarded by this
+    private int freeCount;
+    private int hand;
+    private volatile long evictedSymbols;
+
+    /**
+     * A registry of DEFAULT_CAPACITY (65,536) symbols without eviction.
+     */
+    public SymbolRegistry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SymbolRegistry(int capacity) {
+        this(capacity, EvictionPolicy.NONE);
+    }
+
+    public SymbolRegistry(int capacity, EvictionPolicy eviction) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.symbolsById = new AtomicReferenceArray<>(capacity);
+        this.eviction = eviction;
+        boolean evicting = eviction.enabled();
+        this.touched = evicting ? new AtomicIntegerArray(capacity) : null;
+        this.lastSeenMs = evicting ? new long[capacity] : null;
+        this.quarantinedIds = evicting ? new int[capacity] : null;
+        this.quarantinedAtMs = evicting ? new long[capacity] : null;
+        this.freeIds = evicting ? new int[capacity] : null;
+    }
+
+    /**
+     * Returns the id of the symbol, registering it if it has not been seen before.
+     *
+     * Time Complexity: O(1) - One hash lookup, plus a synchronized insert on first sighting.
+     *
+     * @throws IllegalStateException if the registry is full.
+     */
+    public int idOf(String symbol) {
+        Integer id = idsBySymbol.get(symbol);
+        return id != null ? id : register(symbol);
+    }
+
+    private synchronized int register(String symbol) {
+        Integer existing = idsBySymbol.get(symbol);
+        if (existing != null) return existing;
+
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = highWater;
+            if (id >= capacity) {
+                throw new IllegalStateException("Symbol registry is full, capacity " + capacity);
+            }
+            highWater = id + 1;
+        }
+        symbolsById.set(id, symbol);
+        idsBySymbol.put(symbol, id);
+        size++;
+        touch(id); // A new symbol starts as recently used
+        return id;
+    }
+
+    /**
+     * @return the symbol registered under the id, or null if the id is unassigned or was evicted.
+     */
+    public String symbolOf(int id) {
+        return symbolsById.get(id);
+    }
+
+    /**
+     * Checks an id that comes from outside the registry, e.g. a caller or the wire, before it indexes per-symbol
+     * state, so a bad id fails on the calling thread instead of on a publishing thread.
+     *
+     * @return symbolId
+     * @throws IllegalArgumentException if the id is outside the capacity or not assigned to a symbol.
+     */
+    public int checkRegistered(int symbolId) {
+        if (symbolId < 0 || symbolId >= capacity) {
+            throw new IllegalArgumentException("Symbol id " + symbolId + " is outside the registry capacity " + capacity);
+        }
+        if (symbolsById.get(symbolId) == null) {
+            throw new IllegalArgumentException("Symbol id " + symbolId + " is not registered");
+        }
+        return symbolId;
+    }
+
+    /**
+     * Resolves the id of an update: the id it carries, checked against this registry, or a lookup of its symbol.
+     * An id taken from another registry is caught by comparing the symbol it is registered to here.
+     *
+     * Time Complexity: O(1) - A bounds check and a symbol comparison, or one hash lookup.
+     *
+     * @throws IllegalArgumentException if the carried id is outside the capacity, unassigned, or registered to
+     *                                  another symbol.
+     * @throws IllegalStateException    if the symbol is new and the registry is full.
+     */
+    public int idOf(MarketData data) {
+        int id = data.getSymbolId();
+        if (id == MarketData.NO_SYMBOL_ID) return idOf(data.getSymbol());
+        if (id < 0 || id >= capacity) {
+            throw new IllegalArgumentException("Symbol id " + id + " is outside the registry capacity " + capacity);
+        }
+        String registered = symbolsById.get(id);
+        if (registered == null) {
+            throw new IllegalArgumentException("Symbol id " + id + " is not registered");
+        }
+        String symbol = data.getSymbol();
+        if (symbol != null && symbol != registered && !symbol.equals(registered)) {
+            throw new IllegalArgumentException("Symbol id " + id + " is registered to " + registered + ", not " + symbol);
+        }
+        return id;
+    }
+
+    /**
+     * Builds a MarketData that carries the symbol id, so processors skip the hash lookup.
+     */
+    public MarketData marketData(String symbol, double price, long updateTime) {
+        return new MarketData(idOf(symbol), symbol, price, updateTime);
+    }
+
+    /**
+     * Marks the symbol as recently used. Processors call it for every update; it is a no-op
+     * without eviction and otherwise writes only when the reference bit is not set yet.
+     *
+     * Time Complexity: O(1)
+     */
+    public void touch(int id) {
+        AtomicIntegerArray bits = touched;
+        if (bits != null && bits.get(id) == 0) {
+            bits.lazySet(id, 1);
+        }
+    }
+
+    /**
+     * Advances the CLOCK hand over at most scanPerSweep ids and evicts the symbols the policy selects:
+     * those idle for the TTL and, while more than maxSymbols are live, those not touched since the
+     * hand last passed. A symbol is only evicted if the reclaimer agrees. Ids whose quarantine has
+     * ended become available to new symbols.
+     *
+     * Must always be called from the same thread, normally the owning processor's publishing thread.
+     *
+     * Time Complexity: O(s) - Where s is the policy's scanPerSweep, regardless of the number of symbols.
+     * Space Complexity: O(1)
+     *
+     * @return the number of symbols evicted by this call.
+     */
+    public int sweep(long now, SlotReclaimer reclaimer) {
+        if (touched == null) return 0;
+        recycleQuarantined(now, reclaimer);
+
+        int limit = highWater;
+        int scan = Math.min(eviction.scanPerSweep(), limit);
+        int evicted = 0;
+        for (int i = 0; i < scan; i++) {
+            int id = hand;
+            hand = id + 1 < limit ? id + 1 : 0;
+            if (symbolsById.get(id) == null) continue; // Free or quarantined
+
+            if (touched.get(id) != 0 && touched.getAndSet(id, 0) != 0) {
+                lastSeenMs[id] = now; // Second chance
+                continue;
+            }
+            boolean idle = now - lastSeenMs[id] >= eviction.idleTtlMs();
+            boolean overBound = size > eviction.maxSymbols();
+            if ((idle || overBound) && reclaimer.reclaim(id)) {
+                release(id, now);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private void release(int id, long now) {
+        synchronized (this) {
+            idsBySymbol.remove(symbolsById.get(id));
+            symbolsById.set(id, null);
+            size--;
+        }
+        quarantine(id, now);
+        evictedSymbols++; // Single writer
+    }
+
+    private void quarantine(int id, long now) {
+        int tail = (quarantineHead + quarantineSize) % capacity;
+        quarantinedIds[tail] = id;
+        quarantinedAtMs[tail] = now;
+        quarantineSize++;
+    }
+
+    /**
+     * Frees the ids whose quarantine has ended, once the reclaimer confirms their slot is still empty.
+     * An id whose slot was refilled by a late update goes back to the end of the quarantine.
+     */
+    private void recycleQuarantined(long now, SlotReclaimer reclaimer) {
+        // Bounded by the ids quarantined on entry, so requeued ids are not revisited in this call
+        for (int remaining = quarantineSize; remaining > 0; remaining--) {
+            if (now - quarantinedAtMs[quarantineHead] < eviction.quarantineMs()) return;
+            int id = quarantinedIds[quarantineHead];
+            quarantineHead = (quarantineHead + 1) % capacity;
+            quarantineSize--;
+            if (reclaimer.reclaim(id)) {
+                synchronized (this) {
+                    freeIds[freeCount++] = id;
+                }
+            } else {
+                quarantine(id, now);
+            }
+        }
+    }
+
+    /**
+     * @return the number of live symbols.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public EvictionPolicy eviction() {
+        return eviction;
+    }
+
+    /**
+     * @return the number of symbols evicted since the registry was created.
+     */
+    public long evictedSymbols() {
+        return evictedSymbols;
+    }
+}
@@ -0,0 +1,20 @@
+package utils;
+
+/**
+ * Monotonic clock anchored to the epoch: readings start at System.currentTimeMillis() and then advance
+ * with System.nanoTime(), so they never jump backwards when the wall clock is adjusted.
+ */
+public final class SystemClock implements Clock {
+
+    public static final SystemClock INSTANCE = new SystemClock();
+
+    private final long epochOffsetNanos = System.currentTimeMillis() * 1_000_000 - System.nanoTime();
+
+    private SystemClock() {
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime() + epochOffsetNanos;
+    }
+}
@@ -0,0 +1,125 @@
+package book;
+
+import org.junit.jupiter.api.Test;
+import throttle.ThrottlePolicy;
+import utils.ManualClock;
+import utils.SymbolRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    @Test
+    void testLevelsAreReadBestFirstOnBothSides() {
+        OrderBook book = new OrderBook(8);
+        book.add(Side.BID, 99.0, 10);
+        book.add(Side.BID, 100.0, 20);
+        book.add(Side.BID, 98.0, 30);
+        book.add(Side.ASK, 102.0, 5);
+        book.add(Side.ASK, 101.0, 15);
+        book.add(Side.ASK, 103.0, 25);
+
+        assertEquals(3, book.bids().depth());
+        assertEquals(100.0, book.bids().price(0));
+        assertEquals(99.0, book.bids().price(1));
+        assertEquals(98.0, book.bids().price(2));
+        assertEquals(20, book.bids().quantity(0));
+        assertEquals(101.0, book.asks().price(0));
+        assertEquals(102.0, book.asks().price(1));
+        assertEquals(103.0, book.asks().price(2));
+        assertEquals(101.0, book.asks().bestPrice());
+    }
+
+    @Test
+    void testAddModifyDeleteAndTrade() {
+        OrderBook book = new OrderBook(8);
+        book.add(Side.BID, 100.0, 10);
+        book.add(Side.BID, 100.0, 5);
+        assertEquals(15, book.bids().quantity(0), "Adding to an existing level accumulates");
+
+        assertTrue(book.modify(Side.BID, 100.0, 7));
+        assertEquals(7, book.bids().quantity(0));
+        assertTrue(book.modify(Side.BID, 100.0, 0), "A zero quantity removes the level");
+        assertEquals(0, book.bids().depth());
+        assertFalse(book.delete(Side.BID, 100.0), "Nothing left to delete");
+        assertTrue(Double.isNaN(book.bids().bestPrice()));
+
+        book.add(Side.ASK, 101.0, 10);
+        book.add(Side.ASK, 102.0, 10);
+        book.trade(Side.ASK, 101.0, 4);
+        assertEquals(6, book.asks().quantity(0));
+        book.trade(Side.ASK, 101.0, 6);
+        assertEquals(102.0, book.asks().price(0), "A level used up by trades is removed");
+        assertEquals(101.0, book.lastTradePrice());
+        assertEquals(6, book.lastTradeQuantity());
+        assertEquals(10, book.tradedVolume());
+    }
+
+    @Test
+    void testFullSideKeepsTheBestLevels() {
+        OrderBook book = new OrderBook(3);
+        book.add(Side.BID, 100.0, 1);
+        book.add(Side.BID, 99.0, 1);
+        book.add(Side.BID, 98.0, 1);
+
+        assertFalse(book.add(Side.BID, 97.0, 1), "Worse than every tracked level");
+        assertTrue(book.add(Side.BID, 101.0, 1));
+        assertEquals(3, book.bids().depth());
+        assertEquals(101.0, book.bids().price(0));
+        assertEquals(99.0, book.bids().price(2), "The worst level made room");
+
+        assertTrue(book.add(Side.BID, 99.5, 1));
+        assertEquals(100.0, book.bids().price(1));
+        assertEquals(99.5, book.bids().price(2));
+    }
+
+    @Test
+    void testBuilderPublishesOneSnapshotPerIntervalWithTheLatestBook() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<String> published = new ArrayList<>();
+        BookBuilder builder = new BookBuilder(snapshot -> published.add(snapshot.symbol() + " "
+                + snapshot.bidPrice(0) + "x" + snapshot.bidQuantity(0) + " " + snapshot.askDepth()),
+                registry, ThrottlePolicy.defaults(), 16, 2, clock);
+        int btc = registry.idOf("BTC");
+
+        builder.add(btc, Side.BID, 100.0, 10, 1);
+        builder.flush();
+        assertEquals(List.of("BTC 100.0x10 0"), published);
+
+        for (int i = 1; i <= 50; i++) {
+            builder.add(btc, Side.BID, 100.0 + i, i, i);
+            builder.add(btc, Side.ASK, 300.0 - i, i, i);
+            clock.advanceMillis(10);
+            builder.flush();
+        }
+        assertEquals(1, published.size(), "Changes during the cooldown are held back");
+
+        clock.advanceMillis(500);
+        builder.flush();
+        assertEquals(List.of("BTC 100.0x10 0", "BTC 150.0x50 2"), published,
+                "One snapshot of the latest book, cut to the snapshot depth");
+        assertEquals(99, builder.metrics().coalesced());
+        assertEquals(0, builder.metrics().waitingSymbols());
+    }
+
+    @Test
+    void testBuilderIgnoresUpdatesThatChangeNothing() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<Long> published = new ArrayList<>();
+        BookBuilder builder = new BookBuilder(snapshot -> published.add(snapshot.updateTime()),
+                registry, ThrottlePolicy.defaults(), 16, 4, clock);
+        int eth = registry.idOf("ETH");
+
+        builder.delete(eth, Side.ASK, 2000.0, 1);
+        builder.flush();
+
+        assertTrue(published.isEmpty(), "Deleting a missing level does not republish the book");
+        assertEquals(0, builder.bookOf(eth).asks().depth());
+    }
+}
@@ -0,0 +1,145 @@
+package codec;
+
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import eventdriven.BlockingQueueMarketDataProcessor;
+import org.junit.jupiter.api.Test;
+import sharded.ShardedMarketDataProcessor;
+import standard.DequeMarketDataProcessor;
+import throttle.SharedTokenBucket;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import utils.ManualClock;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataCodecTest {
+
+    @Test
+    void testTickRoundTripOnHeapAndDirectBuffers() {
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+            int offset = 3; // Fields need not be aligned
+            new TickEncoder().wrap(buffer, offset).symbolId(42).price(101.25).updateTime(1_700_000_000_123L);
+
+            TickDecoder decoder = new TickDecoder().wrap(buffer, offset);
+            assertEquals(42, decoder.symbolId());
+            assertEquals(101.25, decoder.price());
+            assertEquals(1_700_000_000_123L, decoder.updateTime());
+            assertEquals(TickEncoder.ENCODED_LENGTH, decoder.encodedLength());
+            assertEquals(0, buffer.position(), "Encoding should not move the buffer position");
+        }
+    }
+
+    @Test
+    void testLayoutIsLittleEndianRegardlessOfBufferOrder() {
+        ByteBuffer buffer = ByteBuffer.allocate(TickEncoder.ENCODED_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        new TickEncoder().wrap(buffer, 0).symbolId(0x01020304);
+
+        assertEquals(TickEncoder.BLOCK_LENGTH, buffer.get(0), "Header should start with the block length");
+        assertEquals(TickEncoder.TEMPLATE_ID, buffer.get(2));
+        assertEquals(0x04, buffer.get(TickEncoder.SYMBOL_ID_OFFSET), "Least significant byte first");
+    }
+
+    @Test
+    void testQuantityIsOptionalAndReadsZeroOnOlderTicks() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        TickEncoder encoder = new TickEncoder().wrap(buffer, 0).symbolId(1).price(10.0).updateTime(5L).quantity(300);
+        assertEquals(300, new TickDecoder().wrap(buffer, 0).quantity());
+
+        encoder.wrap(buffer, 0).symbolId(1).price(10.0).updateTime(5L);
+        assertEquals(0, TickDecoder.quantity(buffer, 0), "wrap should reset the quantity of a reused buffer");
+
+        assertEquals(3, MessageHeader.version(buffer, 0));
+        buffer.put(0, (byte) TickEncoder.MIN_BLOCK_LENGTH); // A version 1 tick, from before the quantity was added
+        buffer.put(6, (byte) 1);
+        buffer.putLong(TickEncoder.QUANTITY_OFFSET, 300);
+        TickDecoder decoder = new TickDecoder().wrap(buffer, 0);
+        assertEquals(10.0, decoder.price());
+        assertEquals(0, decoder.quantity());
+    }
+
+    @Test
+    void testDecoderRejectsOtherTemplates() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        new SnapshotEncoder().wrap(buffer, 0).symbolId(1);
+
+        assertThrows(IllegalArgumentException.class, () -> new TickDecoder().wrap(buffer, 0));
+    }
+
+    @Test
+    void testSymbolDefinitionCarriesItsNameAfterTheBlock() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        SymbolEncoder encoder = new SymbolEncoder().wrap(buffer, 3).symbolId(7).symbol(SymbolEncoder.encode("BRK.B"));
+        assertEquals(SymbolEncoder.ENCODED_LENGTH + 5, encoder.encodedLength());
+
+        SymbolDecoder decoder = new SymbolDecoder().wrap(buffer, 3);
+        assertEquals(7, decoder.symbolId());
+        assertEquals("BRK.B", decoder.symbol());
+        assertEquals(encoder.encodedLength(), decoder.encodedLength());
+        assertThrows(IllegalArgumentException.class, () -> SymbolEncoder.encode("X".repeat(256)));
+    }
+
+    @Test
+    void testBatchEncodesAsConsecutiveSnapshots() {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        MarketDataBatch batch = new MarketDataBatch(registry);
+        batch.add(registry.idOf("AAPL"), 150.0, 1000L);
+        batch.add(registry.idOf("MSFT"), 300.0, 2000L);
+
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        int end = new SnapshotEncoder().encode(batch, 5000L, buffer, 0);
+        assertEquals(2 * SnapshotEncoder.ENCODED_LENGTH, end);
+
+        SnapshotDecoder decoder = new SnapshotDecoder();
+        decoder.wrap(buffer, SnapshotEncoder.ENCODED_LENGTH);
+        assertEquals(registry.idOf("MSFT"), decoder.symbolId());
+        assertEquals(300.0, decoder.price());
+        assertEquals(2000L, decoder.updateTime());
+        assertEquals(5000L, decoder.publishTime());
+    }
+
+    @Test
+    void testProcessorsRejectUnknownSymbolIdsOnTheCallingThread() {
+        ManualClock clock = new ManualClock(0);
+        SymbolRegistry dequeRegistry = new SymbolRegistry(16);
+        SymbolRegistry queueRegistry = new SymbolRegistry(16);
+        SymbolRegistry shardedRegistry = new SymbolRegistry(16);
+        SymbolRegistry disruptorRegistry = new SymbolRegistry(16);
+        DequeMarketDataProcessor deque = new DequeMarketDataProcessor(dequeRegistry, ThrottlePolicy.defaults(), clock, false);
+        BlockingQueueMarketDataProcessor queue =
+                new BlockingQueueMarketDataProcessor(queueRegistry, ThrottlePolicy.defaults(), clock, false);
+        ShardedMarketDataProcessor sharded = new ShardedMarketDataProcessor(2, shardedRegistry,
+                new SharedTokenBucket(100, 1000, 100), new SymbolIntervals(1000), Thread::new, clock, false);
+        LmaxDisruptorMarketDataProcessor disruptor =
+                new LmaxDisruptorMarketDataProcessor(data -> { }, disruptorRegistry, ThrottlePolicy.defaults());
+        try {
+            assertRejectsUnknownIds(dequeRegistry, deque::onMessage);
+            assertRejectsUnknownIds(queueRegistry, queue::onMessage);
+            assertRejectsUnknownIds(shardedRegistry, sharded::onMessage);
+            assertRejectsUnknownIds(disruptorRegistry, disruptor::onMessage);
+        } finally {
+            deque.shutdown();
+            queue.shutdown();
+            sharded.shutdown();
+            disruptor.shutdown();
+        }
+    }
+
+    private static void assertRejectsUnknownIds(SymbolRegistry registry, BiConsumer<ByteBuffer, Integer> onMessage) {
+        int aapl = registry.idOf("AAPL");
+        ByteBuffer buffer = ByteBuffer.allocate(TickEncoder.ENCODED_LENGTH);
+        TickEncoder encoder = new TickEncoder().wrap(buffer, 0).price(100.0).updateTime(1L);
+
+        encoder.symbolId(registry.capacity());
+        assertThrows(IllegalArgumentException.class, () -> onMessage.accept(buffer, 0), "Id outside the registry");
+        encoder.symbolId(aapl + 1);
+        assertThrows(IllegalArgumentException.class, () -> onMessage.accept(buffer, 0), "Id never assigned");
+        encoder.symbolId(aapl);
+        onMessage.accept(buffer, 0);
+    }
+}
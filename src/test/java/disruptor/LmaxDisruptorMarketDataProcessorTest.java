@@ -1,13 +1,32 @@
 package disruptor;
 
+import codec.TickEncoder;
+import com.lmax.disruptor.dsl.ProducerType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import throttle.GcraRateLimiter;
+import throttle.SignificanceFilter;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import throttle.TieredRateLimiter;
+import utils.EvictionPolicy;
+import utils.ManualClock;
 import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.StarvationScenario;
+import utils.SymbolRegistry;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,78 +49,668 @@ class LmaxDisruptorMarketDataProcessorTest {
     }
 
     @Test
-    void testSingleSymbolPublishOncePerSecond() throws InterruptedException {
-        String symbol = "AAPL";
-        long now = System.currentTimeMillis();
+    void testCarriedSymbolIdIsCheckedBeforeItReachesTheRing() {
+        SymbolRegistry other = new SymbolRegistry(16);
+        other.idOf("MSFT");
+        processor.onMessage(new MarketData("AAPL", 1.0, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(other.marketData("MSFT", 1.0, 0)),
+                "An id from another registry should not reach the consumer thread");
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(new MarketData(-2, "AAPL", 1.0, 0)));
+    }
+
+    @Test
+    void testSingleSymbolPublishOncePerSecond() {
+        // Drive the handler directly on a manual clock: no sleeps, so the outcome does not depend on scheduling
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry, ThrottlePolicy.defaults(), clock);
+        MarketDataEvent event = new MarketDataEvent();
+        int aapl = registry.idOf("AAPL");
 
         for (int i = 0; i < 10; i++) {
-            processor.onMessage(new MarketData(symbol, 100.0 + i, now + i * 10));
-            Thread.sleep(50);
+            event.set(aapl, 100.0 + i, i * 50);
+            handler.onEvent(event, i, true);
+            clock.advanceMillis(50);
         }
+        clock.advanceMillis(499);
+        handler.onTimeout(9);
 
-        TimeUnit.SECONDS.sleep(2);
+        assertEquals(1, published.size(), "Should publish at most once per second for a symbol");
 
-        long count = publishedData.stream().filter(md -> symbol.equals(md.getSymbol())).count();
+        clock.advanceMillis(1);
+        handler.onTimeout(9);
 
-        assertTrue(count <= 2, "Should publish at most once per second for a symbol");
+        assertEquals(2, published.size(), "Should publish again once the interval has passed");
     }
 
     @Test
-    void testGlobalThrottleLimit() throws InterruptedException {
-        long now = System.currentTimeMillis();
+    void testGlobalThrottleLimit() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry, ThrottlePolicy.defaults(), clock);
+        MarketDataEvent event = new MarketDataEvent();
 
         for (int i = 0; i < 500; i++) {
-            String symbol = "SYM" + i;
-            processor.onMessage(new MarketData(symbol, i, now));
+            event.set(registry.idOf("SYM" + i), i, 0);
+            handler.onEvent(event, i, i == 499); // One Disruptor batch
         }
+        for (int step = 0; step < 9; step++) {
+            clock.advanceMillis(100);
+            handler.onTimeout(499);
+        }
+
+        assertEquals(100, published.size(), "Should not exceed the global 100/sec within the first second");
 
-        TimeUnit.SECONDS.sleep(2);
+        clock.advanceMillis(101); // The sliding window lets a permit go 1ms after it leaves the second
+        handler.onTimeout(499);
 
-        assertTrue(publishedData.size() <= 200, "Should not exceed global throttle limit");
+        assertEquals(200, published.size(), "Should publish the next 100 once the window has moved on");
+        assertEquals(300, handler.metrics().snapshot().waitingSymbols());
     }
 
     @Test
-    void testLatestDataIsPublished() throws InterruptedException {
-        String symbol = "BTC";
+    void testLatestDataIsPublished() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry, ThrottlePolicy.defaults(), clock);
+        MarketDataEvent event = new MarketDataEvent();
+        int btc = registry.idOf("BTC");
 
-        processor.onMessage(new MarketData(symbol, 100.0, System.currentTimeMillis()));
-        Thread.sleep(200);
-        processor.onMessage(new MarketData(symbol, 105.5, System.currentTimeMillis()));
-        Thread.sleep(1200);
+        event.set(btc, 100.0, 0);
+        handler.onEvent(event, 0, true);
+        clock.advanceMillis(200);
+        event.set(btc, 105.5, 200);
+        handler.onEvent(event, 1, true);
+        clock.advanceMillis(800);
+        handler.onTimeout(1);
 
-        boolean latestPublished = publishedData.stream()
-                .anyMatch(md -> symbol.equals(md.getSymbol()) && md.getPrice() == 105.5);
-
-        assertTrue(latestPublished, "Should publish the latest data for the symbol");
+        assertEquals(List.of(100.0, 105.5), published.stream().map(MarketData::getPrice).collect(Collectors.toList()),
+                "Should publish the latest data for the symbol");
     }
 
     @Test
     void testEventualPublishAllSymbols() throws InterruptedException {
-        for (int i = 0; i < 150; i++) {
-            processor.onMessage(new MarketData("SYM" + i, i, System.currentTimeMillis()));
+        // Through the ring at wall-clock time: wait on a count of publishes rather than a fixed sleep
+        Semaphore publishes = new Semaphore(0);
+        Set<String> symbols = ConcurrentHashMap.newKeySet();
+        LmaxDisruptorMarketDataProcessor counted = new LmaxDisruptorMarketDataProcessor(data -> {
+            symbols.add(data.getSymbol());
+            publishes.release();
+        });
+        try {
+            for (int i = 0; i < 150; i++) {
+                counted.onMessage(new MarketData("SYM" + i, i, System.currentTimeMillis()));
+            }
+
+            assertTrue(publishes.tryAcquire(150, 5, TimeUnit.SECONDS), "Should eventually publish all data");
+        } finally {
+            counted.shutdown();
+        }
+        assertEquals(150, symbols.size(), "Every symbol should be published once");
+    }
+
+    @Test
+    void testNoDuplicateSymbolPublishWithinInterval() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry, ThrottlePolicy.defaults(), clock);
+        MarketDataEvent event = new MarketDataEvent();
+        int eth = registry.idOf("ETH");
+
+        event.set(eth, 2000, 0);
+        handler.onEvent(event, 0, true);
+        clock.advanceMillis(300);
+        event.set(eth, 2001, 300);
+        handler.onEvent(event, 1, true);
+        clock.advanceMillis(300);
+        event.set(eth, 2002, 600);
+        handler.onEvent(event, 2, true);
+        clock.advanceMillis(399);
+        handler.onTimeout(2);
+        handler.onTimeout(2); // Several idle timeouts at the same time
+
+        assertEquals(1, published.size(), "Should publish only once per second per symbol");
+
+        clock.advanceMillis(1);
+        handler.onTimeout(2);
+
+        assertEquals(2, published.size(), "Should publish again once the interval has passed");
+        assertEquals(2002, published.get(1).getPrice(), "Should publish the latest data");
+    }
+
+    @Test
+    void testBoundedRegistryEvictsLeastRecentlyTouchedSymbol() {
+        // Drive the handler directly: eviction runs on the consumer thread as part of a flush
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry(8, EvictionPolicy.bounded(2));
+        MarketDataEventHandler handler = new MarketDataEventHandler(data -> { }, registry, ThrottlePolicy.defaults(), clock);
+        MarketDataEvent event = new MarketDataEvent();
+        int a = registry.idOf("A"), b = registry.idOf("B"), c = registry.idOf("C");
+
+        int[] ids = {a, b, c};
+        for (int i = 0; i < ids.length; i++) {
+            event.set(ids[i], 1.0, 0);
+            handler.onEvent(event, i, i == ids.length - 1); // One Disruptor batch, one flush
+        }
+        assertEquals(0, registry.evictedSymbols(), "Every symbol gets a second chance after its first update");
+
+        clock.advanceMillis(10);
+        event.set(a, 2.0, 10);
+        handler.onEvent(event, 3, true);
+
+        assertEquals(1, registry.evictedSymbols(), "Should evict down to the bound");
+        assertEquals(2, registry.size());
+        assertEquals("A", registry.symbolOf(a), "The recently touched symbol should survive");
+        assertNull(registry.symbolOf(b), "The oldest untouched symbol should be evicted first");
+    }
+
+    @Test
+    void testEventForEvictedSymbolIsDropped() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry(8, EvictionPolicy.bounded(1).withQuarantineMs(1_000));
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry, ThrottlePolicy.defaults(), clock);
+        MarketDataEvent event = new MarketDataEvent();
+        int a = registry.idOf("A"), b = registry.idOf("B");
+
+        event.set(a, 1.0, 0);
+        handler.onEvent(event, 0, false);
+        event.set(b, 1.0, 0);
+        handler.onEvent(event, 1, true);
+        clock.advanceMillis(10);
+        event.set(a, 2.0, 10);
+        handler.onEvent(event, 2, true);
+        assertNull(registry.symbolOf(b), "B should be evicted down to the bound");
+
+        // Already published by a producer before the eviction
+        published.clear();
+        event.set(b, 99.0, 20);
+        handler.onEvent(event, 3, true);
+        clock.advanceMillis(2_000);
+        handler.onTimeout(3);
+        assertTrue(published.stream().noneMatch(md -> md.getPrice() == 99.0),
+                "An event for an evicted id should never be published");
+        assertEquals(b, registry.idOf("C"), "The id should be recycled once its slot is empty");
+    }
+
+    @Test
+    void testColdSymbolsAreNotStarvedByHotSymbols() {
+        ManualClock clock = StarvationScenario.clock();
+        SymbolRegistry registry = new SymbolRegistry();
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry,
+                ThrottlePolicy.defaults(), clock);
+        MarketDataEvent event = new MarketDataEvent();
+        long[] sequence = {0};
+        StarvationScenario.assertColdSymbolsAreNotStarved(clock, data -> {
+            event.set(registry.idOf(data.getSymbol()), data.getPrice(), data.getUpdateTime());
+            handler.onEvent(event, sequence[0]++, false);
+        }, () -> handler.onTimeout(sequence[0]), published, handler::maxObservedStalenessMs);
+    }
+
+    @Test
+    void testMultiProducerPublishesLatestFromEveryGateway() throws InterruptedException {
+        Set<String> symbolsWithLatest = ConcurrentHashMap.newKeySet();
+        CountDownLatch allLatest = new CountDownLatch(80);
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor multi = new LmaxDisruptorMarketDataProcessor(data -> {
+            if (data.getPrice() == 499 && symbolsWithLatest.add(data.getSymbol())) {
+                allLatest.countDown();
+            }
+        }, registry, ThrottlePolicy.defaults(), ProducerType.MULTI);
+
+        // Each gateway thread owns 20 symbols and sends 500 ticks per symbol; the last price is 499
+        List<Thread> gateways = new ArrayList<>();
+        for (int g = 0; g < 4; g++) {
+            int gateway = g;
+            gateways.add(new Thread(() -> {
+                for (int tick = 0; tick < 500; tick++) {
+                    for (int s = 0; s < 20; s++) {
+                        int symbolId = registry.idOf("GW" + gateway + "-" + s);
+                        multi.onMessage(symbolId, tick, System.currentTimeMillis());
+                    }
+                }
+            }));
+        }
+        gateways.forEach(Thread::start);
+        for (Thread gateway : gateways) {
+            gateway.join();
+        }
+        boolean ended = allLatest.await(10, TimeUnit.SECONDS);
+        multi.shutdown();
+
+        assertTrue(ended, "Every gateway's symbols should end on their latest price, " + symbolsWithLatest.size()
+                + " of 80 did");
+    }
+
+    @Test
+    void testBuilderConfiguresRingAndConsumerThread() {
+        List<String> publishingThreads = new CopyOnWriteArrayList<>();
+        LmaxDisruptorMarketDataProcessor configured = LmaxDisruptorMarketDataProcessor.builder(
+                        md -> publishingThreads.add(Thread.currentThread().getName()))
+                .ringSize(64)
+                .waitStrategy(WaitStrategyType.YIELDING)
+                .threadFactory(new ConsumerThreadFactory("md-consumer", true))
+                .build();
+
+        configured.onMessage(new MarketData("AAPL", 100.0, System.currentTimeMillis()));
+        configured.shutdown(); // Returns once the consumer has handled every tick in the ring
+
+        assertEquals(List.of("md-consumer-0"), publishingThreads, "Should publish once from the named consumer thread");
+        assertThrows(IllegalArgumentException.class,
+                () -> LmaxDisruptorMarketDataProcessor.builder(md -> { }).ringSize(1000));
+    }
+
+    @Test
+    void testConsumerReceivesBatchPerFlush() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CountDownLatch producerDone = new CountDownLatch(1);
+        MarketDataConsumer batchingConsumer = new MarketDataConsumer() {
+            @Override
+            public void publish(MarketData data) {
+                fail("The batch override should receive every update");
+            }
+
+            @Override
+            public void publishBatch(MarketDataBatch batch) {
+                batchSizes.add(batch.size());
+                try {
+                    producerDone.await(); // Hold the consumer so the remaining events queue up behind it
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor batching = new LmaxDisruptorMarketDataProcessor(
+                batchingConsumer, registry, ThrottlePolicy.defaults());
+
+        int[] ids = new int[50];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registry.idOf("SYM" + i);
+        }
+        for (int id : ids) {
+            batching.onMessage(id, 100.0, System.currentTimeMillis());
+        }
+        producerDone.countDown();
+        batching.shutdown();
+
+        assertEquals(50, batchSizes.stream().mapToInt(Integer::intValue).sum(), "Every symbol should be delivered once");
+        assertTrue(batchSizes.size() <= 2, "Events consumed in one Disruptor batch should be published as one batch");
+    }
+
+    @Test
+    void testUnknownSymbolIdFailsOnTheProducerThread() {
+        SymbolRegistry registry = new SymbolRegistry(4);
+        LmaxDisruptorMarketDataProcessor checked = new LmaxDisruptorMarketDataProcessor(
+                publishedData::add, registry, ThrottlePolicy.defaults());
+        int eurusd = registry.idOf("EURUSD");
+
+        assertThrows(IllegalArgumentException.class, () -> checked.onMessage(-1, 1.0, 1L));
+        assertThrows(IllegalArgumentException.class, () -> checked.onMessage(4, 1.0, 1L), "Beyond the capacity");
+        assertThrows(IllegalArgumentException.class, () -> checked.onMessage(eurusd + 1, 1.0, 1L), "Unassigned");
+
+        checked.onMessage(eurusd, 1.0845, 123L);
+        checked.shutdown();
+        assertEquals(1, publishedData.size(), "The consumer thread is still running");
+        assertEquals("EURUSD", publishedData.get(0).getSymbol());
+    }
+
+    @Test
+    void testEncodedTickIsPublished() {
+        List<MarketData> decodedPublished = new CopyOnWriteArrayList<>();
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor encoded = new LmaxDisruptorMarketDataProcessor(
+                decodedPublished::add, registry, ThrottlePolicy.defaults());
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TickEncoder.ENCODED_LENGTH);
+        new TickEncoder().wrap(buffer, 0).symbolId(registry.idOf("EURUSD")).price(1.0845).updateTime(123L);
+        encoded.onMessage(buffer, 0);
+        encoded.shutdown();
+
+        assertEquals(1, decodedPublished.size());
+        assertEquals("EURUSD", decodedPublished.get(0).getSymbol());
+        assertEquals(1.0845, decodedPublished.get(0).getPrice());
+        assertEquals(123L, decodedPublished.get(0).getUpdateTime());
+    }
+
+    @Test
+    void testConflatePolicyOverwritesParkedTicksWithoutBlocking() throws InterruptedException {
+        StalledConsumer consumer = new StalledConsumer();
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor conflating = fillRing(consumer, registry, OverloadPolicy.CONFLATE);
+        int b = registry.idOf("B"), c = registry.idOf("C");
+
+        conflating.onMessage(b, 1.0, 0); // Ring is full: parked
+        conflating.onMessage(c, 1.0, 0);
+        conflating.onMessage(b, 2.0, 0); // Overwrites B in place
+        conflating.onMessage(b, 3.0, 0);
+        assertEquals(2, conflating.metrics().ingressConflated());
+
+        drain(conflating, consumer);
+
+        assertEquals(List.of(3.0), consumer.pricesOf("B"), "Only the latest parked tick should reach the ring");
+        assertEquals(List.of(1.0), consumer.pricesOf("C"));
+        assertEquals(0, conflating.metrics().ingressDropped());
+        assertThrows(IllegalArgumentException.class, () -> LmaxDisruptorMarketDataProcessor.builder(md -> { })
+                .producerType(ProducerType.MULTI).overloadPolicy(OverloadPolicy.CONFLATE).build());
+    }
+
+    @Test
+    void testParkedTicksReachTheRingWhenTheFeedGoesQuiet() throws InterruptedException {
+        StalledConsumer consumer = new StalledConsumer();
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor conflating = fillRing(consumer, registry, OverloadPolicy.CONFLATE);
+
+        conflating.onMessage(registry.idOf("B"), 1.0, 0); // Ring is full: parked, and no message follows
+        conflating.onMessage(registry.idOf("B"), 2.0, 0);
+        consumer.release.countDown();
+
+        assertTrue(consumer.publishes.tryAcquire(RING_SIZE + 1, 5, TimeUnit.SECONDS),
+                "The consumer should drain the parked tick once it has caught up");
+        assertEquals(List.of(2.0), consumer.pricesOf("B"));
+        assertTrue(conflating.flushOverflow(), "Nothing is left parked");
+        conflating.shutdown();
+    }
+
+    @Test
+    void testDropOldestPolicyKeepsTheNewestOverflow() throws InterruptedException {
+        StalledConsumer consumer = new StalledConsumer();
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor dropping = fillRing(consumer, registry, OverloadPolicy.DROP_OLDEST);
+
+        for (int i = 0; i <= RING_SIZE; i++) { // One more than the overflow holds
+            dropping.onMessage(registry.idOf("X" + i), i, 0);
+        }
+        assertEquals(1, dropping.metrics().ingressDropped());
+
+        drain(dropping, consumer);
+
+        assertTrue(consumer.pricesOf("X0").isEmpty(), "The oldest overflowing tick should be dropped");
+        for (int i = 1; i <= RING_SIZE; i++) {
+            assertEquals(List.of((double) i), consumer.pricesOf("X" + i));
+        }
+    }
+
+    @Test
+    void testDropNewestPolicyDropsTicksThatFindTheRingFull() throws InterruptedException {
+        StalledConsumer consumer = new StalledConsumer();
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor dropping = fillRing(consumer, registry, OverloadPolicy.DROP_NEWEST);
+
+        dropping.onMessage(registry.idOf("B"), 1.0, 0);
+        dropping.onMessage(registry.idOf("C"), 1.0, 0);
+        assertEquals(2, dropping.metrics().ingressDropped());
+        assertEquals(0, dropping.metrics().ringRemainingCapacity());
+
+        drain(dropping, consumer);
+
+        assertTrue(consumer.pricesOf("B").isEmpty());
+        assertTrue(consumer.pricesOf("C").isEmpty());
+        assertEquals(RING_SIZE, consumer.published.size(), "Everything that fit in the ring should be published");
+    }
+
+    @Test
+    void testConflatingIngressTakesOneRingSlotPerWaitingSymbol() throws InterruptedException {
+        StalledConsumer consumer = new StalledConsumer();
+        SymbolRegistry registry = new SymbolRegistry();
+        LmaxDisruptorMarketDataProcessor conflating = LmaxDisruptorMarketDataProcessor.builder(consumer)
+                .registry(registry)
+                .policy(new ThrottlePolicy(new GcraRateLimiter(Integer.MAX_VALUE, 1, Integer.MAX_VALUE), 0))
+                .ringSize(RING_SIZE)
+                .conflateAtIngress(true)
+                .build();
+        conflating.onMessage(registry.idOf("FIRST"), 1.0, 0);
+        assertTrue(consumer.stalled.await(5, TimeUnit.SECONDS), "The consumer should pick up the first tick");
+
+        int hot = registry.idOf("HOT");
+        for (int i = 1; i <= 1000; i++) {
+            conflating.onMessage(hot, i, i); // Never blocks: only the first tick takes a ring slot
+        }
+        assertEquals(RING_SIZE - 2, conflating.metrics().ringRemainingCapacity());
+        assertEquals(999, conflating.metrics().ingressConflated());
+
+        consumer.release.countDown();
+        assertTrue(consumer.publishes.tryAcquire(2, 5, TimeUnit.SECONDS), "FIRST, then HOT");
+        conflating.onMessage(hot, 1001, 1001); // Read by the consumer, so this takes a new slot
+        conflating.shutdown();
+
+        assertEquals(List.of(1000.0, 1001.0), consumer.pricesOf("HOT"), "The consumer should read the latest tick");
+        assertThrows(IllegalArgumentException.class, () -> LmaxDisruptorMarketDataProcessor.builder(md -> { })
+                .conflateAtIngress(true).overloadPolicy(OverloadPolicy.DROP_NEWEST).build());
+    }
+
+    @Test
+    void testAggregatedBarSummarizesEveryTickSinceThePreviousPublish() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<String> bars = new ArrayList<>();
+        MarketDataConsumer consumer = new MarketDataConsumer() {
+            @Override
+            public void publish(MarketData data) {
+            }
+
+            @Override
+            public void publishBatch(MarketDataBatch batch) {
+                assertTrue(batch.hasBars());
+                for (int i = 0; i < batch.size(); i++) {
+                    bars.add(batch.open(i) + "/" + batch.high(i) + "/" + batch.low(i) + "/" + batch.price(i)
+                            + " n=" + batch.tickCount(i) + " v=" + batch.volume(i) + " vwap=" + batch.vwap(i));
+                }
+            }
+        };
+        MarketDataEventHandler handler = new MarketDataEventHandler(consumer, registry, ThrottlePolicy.defaults(),
+                clock, true);
+        MarketDataEvent event = new MarketDataEvent();
+        int eth = registry.idOf("ETH");
+
+        event.set(eth, 2000, 0);
+        handler.onEvent(event, 0, true);
+        double[] prices = {2010, 1990, 2005};
+        long[] quantities = {1, 3, 0};
+        for (int i = 0; i < prices.length; i++) {
+            clock.advanceMillis(100);
+            event.set(eth, prices[i], quantities[i], 100 * (i + 1));
+            handler.onEvent(event, i + 1, true);
+        }
+        clock.advanceMillis(700);
+        handler.onTimeout(4);
+
+        assertEquals(List.of("2000.0/2000.0/2000.0/2000.0 n=1 v=0 vwap=NaN",
+                "2010.0/2010.0/1990.0/2005.0 n=3 v=4 vwap=1995.0"), bars);
+        assertThrows(IllegalArgumentException.class, () -> LmaxDisruptorMarketDataProcessor.builder(md -> { })
+                .aggregateBars(true).conflateAtIngress(true).build());
+        for (OverloadPolicy dropping : new OverloadPolicy[]{OverloadPolicy.DROP_OLDEST, OverloadPolicy.DROP_NEWEST}) {
+            assertThrows(IllegalArgumentException.class, () -> LmaxDisruptorMarketDataProcessor.builder(md -> { })
+                    .aggregateBars(true).overloadPolicy(dropping).build(), "Bars must not lose ticks to " + dropping);
+        }
+    }
+
+    @Test
+    void testSignificanceFilterDropsNoiseAndFastTracksLargeMoves() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(100, 1000), new SymbolIntervals(1000),
+                new SignificanceFilter(new SignificanceFilter.Threshold(0.05, 0, 0.02, 100)));
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry, policy, clock);
+        MarketDataEvent event = new MarketDataEvent();
+        int eth = registry.idOf("ETH");
+
+        event.set(eth, 100.0, 0);
+        handler.onEvent(event, 0, true);
+        clock.advanceMillis(10);
+        event.set(eth, 100.01, 10);
+        handler.onEvent(event, 1, true);
+        assertEquals(0, handler.metrics().snapshot().waitingSymbols(), "Noise does not make the symbol pending");
+
+        event.set(eth, 100.5, 10);
+        handler.onEvent(event, 2, true);
+        event.set(eth, 100.02, 10);
+        handler.onEvent(event, 3, true); // Moved back before its cooldown ended
+        clock.advanceMillis(990);
+        handler.onTimeout(4);
+        assertEquals(1, published.size(), "A move that reverted is dropped without a permit");
+
+        event.set(eth, 100.3, 1000);
+        handler.onEvent(event, 5, true);
+        assertEquals(2, published.size(), "The dropped move did not restart the cooldown");
+
+        clock.advanceMillis(100);
+        event.set(eth, 100.4, 1100);
+        handler.onEvent(event, 6, true);
+        assertEquals(1, handler.metrics().snapshot().waitingSymbols(), "A normal move waits out the interval");
+        event.set(eth, 103.0, 1100);
+        handler.onEvent(event, 7, true); // A 3% move while waiting
+
+        assertEquals(3, published.size(), "The large move goes out after 100ms instead of 1s");
+        assertEquals(103.0, published.get(2).getPrice());
+        assertEquals(2, handler.metrics().snapshot().suppressed());
+    }
+
+    @Test
+    void testLargeMoveOfSymbolWhoseTierIsOutOfBudgetWaitsForTheTier() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(4, 1000, 0, 2),
+                new SymbolIntervals(0, 0), new SignificanceFilter(new SignificanceFilter.Threshold(0, 0, 0.02, 0),
+                SignificanceFilter.Threshold.NONE));
+        List<MarketData> published = new ArrayList<>();
+        MarketDataEventHandler handler = new MarketDataEventHandler(published::add, registry, policy, clock);
+        MarketDataEvent event = new MarketDataEvent();
+
+        String[] symbols = {"A", "B", "C"};
+        for (int i = 0; i < symbols.length; i++) {
+            event.set(registry.idOf(symbols[i]), 100.0, i);
+            handler.onEvent(event, i, true);
+            clock.advanceMillis(1);
         }
+        assertEquals(2, published.size(), "The other 2 permits are held for tier 1");
+        assertEquals(1, handler.metrics().snapshot().tierRejections());
 
-        TimeUnit.SECONDS.sleep(3);
+        event.set(registry.idOf("C"), 110.0, 3);
+        handler.onEvent(event, 3, true); // A large move cannot buy its tier a permit
+        handler.onTimeout(4);
+        assertEquals(2, published.size());
+        assertEquals(1, handler.metrics().snapshot().tierRejections(), "C was set aside, not retried");
+        assertEquals(1, handler.metrics().snapshot().waitingSymbols());
 
-        assertTrue(publishedData.size() >= 140, "Should eventually publish most or all data");
+        clock.advanceMillis(1000);
+        handler.onTimeout(5);
+        assertEquals(3, published.size());
+        assertEquals("C", published.get(2).getSymbol());
+        assertEquals(110.0, published.get(2).getPrice());
+        assertEquals(0, handler.metrics().snapshot().waitingSymbols());
     }
 
     @Test
-    void testNoDuplicateSymbolPublishWithinInterval() throws InterruptedException {
-        String symbol = "ETH";
-        long now = System.currentTimeMillis();
+    void testBarKeepsTicksHeldBackBySignificanceFilter() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(100, 1000), new SymbolIntervals(1000),
+                new SignificanceFilter(new SignificanceFilter.Threshold(0.05, 0, Double.POSITIVE_INFINITY, 0)));
+        List<String> bars = new ArrayList<>();
+        List<Double> vwaps = new ArrayList<>();
+        MarketDataConsumer consumer = new MarketDataConsumer() {
+            @Override
+            public void publish(MarketData data) {
+            }
+
+            @Override
+            public void publishBatch(MarketDataBatch batch) {
+                for (int i = 0; i < batch.size(); i++) {
+                    bars.add(batch.open(i) + "/" + batch.high(i) + "/" + batch.low(i) + "/" + batch.price(i)
+                            + " n=" + batch.tickCount(i) + " v=" + batch.volume(i));
+                    vwaps.add(batch.vwap(i));
+                }
+            }
+        };
+        MarketDataEventHandler handler = new MarketDataEventHandler(consumer, registry, policy, clock, true);
+        MarketDataEvent event = new MarketDataEvent();
+        int eth = registry.idOf("ETH");
+
+        event.set(eth, 100.0, 1, 0);
+        handler.onEvent(event, 0, true);
+        clock.advanceMillis(10);
+        event.set(eth, 100.01, 2, 10);
+        handler.onEvent(event, 1, true); // Suppressed on arrival
+        event.set(eth, 100.5, 3, 20);
+        handler.onEvent(event, 2, true);
+        event.set(eth, 100.02, 4, 30);
+        handler.onEvent(event, 3, true); // Moved back, so the pending symbol is dropped at its deadline
+        clock.advanceMillis(990);
+        handler.onTimeout(4);
+        assertEquals(1, bars.size(), "Nothing significant to publish yet");
+
+        event.set(eth, 100.3, 5, 1000);
+        handler.onEvent(event, 5, true);
+
+        assertEquals(List.of("100.0/100.0/100.0/100.0 n=1 v=1",
+                "100.01/100.5/100.01/100.3 n=4 v=14"), bars, "The bar should include every tick since the last publish");
+        assertEquals((100.01 * 2 + 100.5 * 3 + 100.02 * 4 + 100.3 * 5) / 14, vwaps.get(1), 1e-9);
+    }
+
+    private static final int RING_SIZE = 8;
+
+    /**
+     * Stalls the consumer inside its first publish, then fills every remaining ring slot with distinct symbols.
+     */
+    private static LmaxDisruptorMarketDataProcessor fillRing(StalledConsumer consumer, SymbolRegistry registry,
+                                                             OverloadPolicy overloadPolicy) throws InterruptedException {
+        LmaxDisruptorMarketDataProcessor processor = LmaxDisruptorMarketDataProcessor.builder(consumer)
+                .registry(registry)
+                .policy(new ThrottlePolicy(new GcraRateLimiter(Integer.MAX_VALUE, 1, Integer.MAX_VALUE), 0))
+                .ringSize(RING_SIZE)
+                .overloadPolicy(overloadPolicy)
+                .build();
+        processor.onMessage(registry.idOf("FIRST"), 1.0, 0);
+        assertTrue(consumer.stalled.await(5, TimeUnit.SECONDS), "The consumer should pick up the first tick");
+        for (int i = 1; i < RING_SIZE; i++) {
+            processor.onMessage(registry.idOf("FILL" + i), 1.0, 0);
+        }
+        return processor;
+    }
+
+    /**
+     * Releases the consumer, moves every parked tick into the ring as it frees up, and waits until all are handled.
+     */
+    private static void drain(LmaxDisruptorMarketDataProcessor processor, StalledConsumer consumer) {
+        consumer.release.countDown();
+        while (!processor.flushOverflow()) {
+            Thread.yield();
+        }
+        processor.shutdown();
+    }
 
-        processor.onMessage(new MarketData(symbol, 2000, now));
-        Thread.sleep(200);
-        processor.onMessage(new MarketData(symbol, 2001, now + 300));
-        Thread.sleep(200);
-        processor.onMessage(new MarketData(symbol, 2002, now + 600));
-        Thread.sleep(600);
+    private static class StalledConsumer implements MarketDataConsumer {
+        final List<MarketData> published = new CopyOnWriteArrayList<>();
+        final CountDownLatch stalled = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Semaphore publishes = new Semaphore(0);
 
-        long count = publishedData.stream()
-                .filter(md -> symbol.equals(md.getSymbol()))
-                .count();
+        @Override
+        public void publish(MarketData data) {
+            published.add(data);
+            publishes.release();
+            stalled.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
 
-        assertTrue(count <= 1, "Should publish only once per second per symbol");
+        List<Double> pricesOf(String symbol) {
+            List<Double> prices = new ArrayList<>();
+            for (MarketData data : published) {
+                if (symbol.equals(data.getSymbol())) prices.add(data.getPrice());
+            }
+            return prices;
+        }
     }
-}
\ No newline at end of file
+}
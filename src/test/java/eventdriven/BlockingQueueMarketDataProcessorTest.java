@@ -1,105 +1,249 @@
 package eventdriven;
 
-import org.junit.jupiter.api.*;
+import codec.TickEncoder;
+import metrics.MetricsSnapshot;
+import org.junit.jupiter.api.Test;
+import throttle.SignificanceFilter;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import throttle.TieredRateLimiter;
+import utils.EvictionPolicy;
+import utils.ManualClock;
 import utils.MarketData;
+import utils.SymbolRegistry;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class BlockingQueueMarketDataProcessorTest {
-    private BlockingQueueMarketDataProcessor processor;
-    private List<MarketData> publishedData;
 
-    @BeforeEach
-    void setUp() {
-        publishedData = new CopyOnWriteArrayList<>();
+    private final ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+    private final List<MarketData> published = new ArrayList<>();
 
-        processor = new BlockingQueueMarketDataProcessor() {
+    /**
+     * A processor on the test's ManualClock that publishes into published, and only when tick() is called:
+     * no sleeps, so the outcome does not depend on scheduling.
+     */
+    private BlockingQueueMarketDataProcessor manualProcessor(SymbolRegistry registry, ThrottlePolicy policy) {
+        return new BlockingQueueMarketDataProcessor(registry, policy, clock, false) {
             @Override
             public void publishAggregatedMarketData(MarketData data) {
-                publishedData.add(data);
+                published.add(data);
             }
         };
     }
 
-    @AfterEach
-    void tearDown() {
-        processor.shutdown();
-    }
-
     @Test
-    void testSingleSymbolThrottling() throws InterruptedException {
+    void testSingleSymbolThrottling() {
+        BlockingQueueMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), ThrottlePolicy.defaults());
         String symbol = "AAPL";
+
         for (int i = 0; i < 5; i++) {
-            processor.onMessage(new MarketData(symbol, 100 + i, System.currentTimeMillis()));
-            Thread.sleep(100);
+            manual.onMessage(new MarketData(symbol, 100 + i, i * 100));
+            manual.tick();
+            clock.advanceMillis(100);
         }
+        clock.advanceMillis(499);
+        manual.tick();
 
-        TimeUnit.SECONDS.sleep(2); // give time for cooldown + retries
+        assertEquals(1, published.size(), "Should publish at most once per second per symbol");
 
-        long count = publishedData.stream()
-                .filter(md -> symbol.equals(md.getSymbol()))
-                .count();
+        clock.advanceMillis(1);
+        manual.tick();
 
-        assertTrue(count <= 2, "Should publish at most once per second per symbol");
+        assertEquals(2, published.size(), "Should publish again once the interval has passed");
+        assertEquals(104, published.get(1).getPrice(), "Should publish the latest update for the symbol");
     }
 
     @Test
-    void testGlobalThrottleLimit() throws InterruptedException {
+    void testGlobalThrottleLimit() {
+        BlockingQueueMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), ThrottlePolicy.defaults());
         for (int i = 0; i < 500; i++) {
-            processor.onMessage(new MarketData("SYM" + i, i, System.currentTimeMillis()));
+            manual.onMessage(new MarketData("SYM" + i, i, 0));
         }
 
-        TimeUnit.SECONDS.sleep(3); // should publish up to 300 max
-
-        assertTrue(publishedData.size() <= 300, "Should not exceed global 100/sec limit");
+        for (int second = 1; second <= 3; second++) {
+            for (int step = 0; step < 10; step++) {
+                manual.tick();
+                clock.advanceMillis(100);
+            }
+            assertEquals(100 * second, published.size(), "Should publish the global 100/sec and no more");
+            clock.advanceMillis(1); // The sliding window lets a permit go 1ms after it leaves the second
+        }
+        assertEquals(200, manual.metrics().waitingSymbols());
     }
 
     @Test
-    void testLatestDataIsPublished() throws InterruptedException {
-        String symbol = "ETH";
-
-        processor.onMessage(new MarketData(symbol, 1000, System.currentTimeMillis()));
-        Thread.sleep(200);
-        processor.onMessage(new MarketData(symbol, 1055, System.currentTimeMillis()));
-        Thread.sleep(1200);
+    void testEventualPublishForAllSymbols() {
+        BlockingQueueMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), ThrottlePolicy.defaults());
+        for (int i = 0; i < 150; i++) {
+            manual.onMessage(new MarketData("SYM" + i, i, 0));
+        }
 
-        boolean found = publishedData.stream()
-                .anyMatch(md -> symbol.equals(md.getSymbol()) && md.getPrice() == 1055);
+        manual.tick();
+        clock.advanceMillis(1001);
+        manual.tick();
 
-        assertTrue(found, "Should publish the latest update for the symbol");
+        assertEquals(150, published.stream().map(MarketData::getSymbol).distinct().count(),
+                "Should publish every symbol once the budget allows");
+        assertEquals(0, manual.metrics().waitingSymbols());
     }
 
     @Test
-    void testEventualPublishForAllSymbols() throws InterruptedException {
-        for (int i = 0; i < 150; i++) {
-            processor.onMessage(new MarketData("SYM" + i, i, System.currentTimeMillis()));
+    void testIdleSymbolsAreEvictedAndLateUpdatesDropped() {
+        SymbolRegistry registry = new SymbolRegistry(2, EvictionPolicy.idleFor(5_000).withQuarantineMs(1_000));
+        BlockingQueueMarketDataProcessor manual = manualProcessor(registry, ThrottlePolicy.defaults());
+
+        int oldId = registry.idOf("OLD");
+        manual.onMessage(new MarketData(oldId, "OLD", 1, 0));
+        for (int second = 0; second <= 6; second++) {
+            manual.onMessage(registry.marketData("HOT", second, second));
+            manual.tick();
+            clock.advanceMillis(1_000);
         }
+        assertNull(registry.symbolOf(oldId), "The idle symbol should be evicted");
+
+        published.clear();
+        assertThrows(IllegalArgumentException.class, () -> manual.onMessage(new MarketData(oldId, "OLD", 99, 7)));
+        manual.tick();
+        clock.advanceMillis(2_000);
+        manual.tick();
+        assertTrue(published.isEmpty(), "An update for an evicted id should never be published");
+
+        int newId = registry.idOf("NEW");
+        assertEquals(oldId, newId, "The id should be recycled once its quarantine has passed");
+        manual.onMessage(new MarketData(newId, "NEW", 5, 9));
+        manual.tick();
+        assertEquals(1, published.size(), "A recycled id starts without the previous owner's cooldown");
+        assertEquals("NEW", published.get(0).getSymbol());
+        assertEquals(5, published.get(0).getPrice());
+    }
 
-        TimeUnit.SECONDS.sleep(3); // enough time for 100/sec throttle
+    @Test
+    void testPriorityLanesServeUrgentTierFirst() {
+        SymbolIntervals intervals = new SymbolIntervals(0, 0);
+        SignificanceFilter significance = new SignificanceFilter(SignificanceFilter.Threshold.NONE,
+                new SignificanceFilter.Threshold(0, 0, 0.05, 0));
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(4, 1000, 0, 1), intervals,
+                significance, true);
+        SymbolRegistry registry = new SymbolRegistry();
+        BlockingQueueMarketDataProcessor manual = manualProcessor(registry, policy);
+        for (int i = 0; i < 6; i++) {
+            intervals.setTier(registry.idOf("N" + i), 1);
+            manual.onMessage(new MarketData("N" + i, 100.0, 0));
+        }
+        clock.advanceMillis(1); // Routine ticks arrived first
+        for (int i = 0; i < 6; i++) {
+            manual.onMessage(new MarketData("U" + i, 100.0, 1));
+        }
+        manual.tick();
 
-        assertTrue(publishedData.size() >= 140, "Should eventually publish most or all data");
+        assertEquals(4, published.size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(published.get(i).getSymbol().startsWith("U"), "The urgent lane goes first");
+        }
+        assertTrue(published.get(3).getSymbol().startsWith("N"), "Lane 1 still gets its reserved permit");
+        MetricsSnapshot metrics = manual.metrics();
+        assertEquals(2, metrics.laneCount());
+        assertEquals(3, metrics.publishLatency(0).count());
+        assertEquals(1, metrics.publishLatency(1).count());
     }
 
     @Test
-    void testNoDuplicateSymbolWithinOneSecond() throws InterruptedException {
-        String symbol = "BTC";
+    void testInsignificantMovesDoNotSpendTheGlobalBudget() {
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(2, 1000),
+                new SymbolIntervals(0), new SignificanceFilter(SignificanceFilter.Threshold.of(0.05, 0)));
+        BlockingQueueMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), policy);
+        manual.onMessage(new MarketData("A", 10.0, 0));
+        manual.onMessage(new MarketData("B", 20.0, 0));
+        manual.tick();
+        clock.advanceMillis(1001);
+
+        manual.onMessage(new MarketData("A", 10.01, 1000)); // Noise
+        manual.onMessage(new MarketData("B", 20.01, 1000)); // Noise
+        manual.onMessage(new MarketData("C", 30.0, 1000));
+        manual.onMessage(new MarketData("D", 40.0, 1000));
+        manual.tick();
+
+        assertEquals(4, published.size());
+        assertEquals(Set.of("C", "D"), Set.of(published.get(2).getSymbol(), published.get(3).getSymbol()),
+                "Both permits of the second window go to symbols that moved");
+        assertEquals(2, manual.metrics().suppressed());
+        assertEquals(0, manual.metrics().waitingSymbols());
+    }
 
-        processor.onMessage(new MarketData(symbol, 500, System.currentTimeMillis()));
-        Thread.sleep(100);
-        processor.onMessage(new MarketData(symbol, 505, System.currentTimeMillis()));
-        Thread.sleep(200);
-        processor.onMessage(new MarketData(symbol, 510, System.currentTimeMillis()));
-        Thread.sleep(1200); // total time > 1s
+    @Test
+    void testMetricsCountCoalescingThrottlingAndLatency() {
+        BlockingQueueMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), ThrottlePolicy.defaults());
+
+        manual.onMessage(new MarketData("A", 1, 0));
+        manual.onMessage(new MarketData("A", 2, 0)); // Replaces the pending update
+        manual.onMessage(new MarketData("B", 1, 0));
+        manual.tick();
+        clock.advanceMillis(100);
+        manual.onMessage(new MarketData("A", 3, 100)); // Still in A's one-second cooldown
+        manual.tick();
+
+        MetricsSnapshot waiting = manual.metrics();
+        assertEquals(1, waiting.waitingSymbols(), "A should be waiting out its cooldown");
+        assertEquals(1, waiting.symbolThrottled());
+
+        clock.advanceMillis(900);
+        manual.tick();
+
+        MetricsSnapshot metrics = manual.metrics();
+        assertEquals(4, metrics.ingested());
+        assertEquals(1, metrics.coalesced());
+        assertEquals(3, metrics.published());
+        assertEquals(0, metrics.waitingSymbols());
+        assertEquals(MetricsSnapshot.NO_RING, metrics.ringRemainingCapacity());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(900), metrics.publishLatency().valueAtPercentile(100),
+                "The slowest publish waited 900ms");
+    }
 
-        long count = publishedData.stream()
-                .filter(md -> symbol.equals(md.getSymbol()))
-                .count();
+    @Test
+    void testEncodedTicksAreAcceptedAndUnknownIdsRejected() {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        BlockingQueueMarketDataProcessor manual = manualProcessor(registry, ThrottlePolicy.defaults());
+        ByteBuffer buffer = ByteBuffer.allocate(TickEncoder.ENCODED_LENGTH);
+        TickEncoder encoder = new TickEncoder();
+
+        encoder.wrap(buffer, 0).symbolId(registry.idOf("BTC")).price(100.5).updateTime(7L).quantity(3);
+        manual.onMessage(buffer, 0);
+        manual.tick();
+
+        assertEquals(1, published.size());
+        assertEquals("BTC", published.get(0).getSymbol());
+        assertEquals(100.5, published.get(0).getPrice());
+        assertEquals(7L, published.get(0).getUpdateTime());
+
+        encoder.wrap(buffer, 0).symbolId(5).price(1.0).updateTime(8L);
+        assertThrows(IllegalArgumentException.class, () -> manual.onMessage(buffer, 0), "Id 5 was never registered");
+        buffer.put(2, (byte) 2); // Not a tick template
+        assertThrows(IllegalArgumentException.class, () -> manual.onMessage(buffer, 0));
+    }
 
-        assertTrue(count <= 2, "Should not publish more than once per second per symbol");
+    @Test
+    void testTickIsOnlyAvailableWithoutTheScheduler() throws InterruptedException {
+        CountDownLatch publishedOnce = new CountDownLatch(1);
+        BlockingQueueMarketDataProcessor scheduled = new BlockingQueueMarketDataProcessor() {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+                publishedOnce.countDown();
+            }
+        };
+        try {
+            assertThrows(IllegalStateException.class, scheduled::tick);
+            scheduled.onMessage(new MarketData("AAPL", 150.0, 0));
+            assertTrue(publishedOnce.await(5, TimeUnit.SECONDS), "The scheduler thread should publish on its own");
+        } finally {
+            scheduled.shutdown();
+        }
     }
 }
-
@@ -0,0 +1,246 @@
+package journal;
+
+import codec.SnapshotDecoder;
+import codec.SnapshotEncoder;
+import codec.SymbolDecoder;
+import codec.SymbolEncoder;
+import codec.TickDecoder;
+import codec.TickEncoder;
+import disruptor.LmaxDisruptorMarketDataProcessor;
+import disruptor.MarketDataConsumer;
+import eventdriven.BlockingQueueMarketDataProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import standard.DequeMarketDataProcessor;
+import throttle.ThrottlePolicy;
+import utils.ManualClock;
+import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.SymbolRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTicksAreReadBackInOrderAcrossSegments() throws Exception {
+        // Room for 3 ticks and their symbol definitions per segment, so 10 ticks span 4 segments
+        try (Journal journal = new Journal(directory, "ticks", 288)) {
+            for (int i = 0; i < 10; i++) {
+                journal.appendTick(i, "SYM" + i, 100.0 + i, 1000L + i);
+            }
+        }
+
+        JournalReader reader = new JournalReader(directory, "ticks");
+        TickDecoder decoder = new TickDecoder();
+        SymbolDecoder definition = new SymbolDecoder();
+        List<Integer> symbolIds = new ArrayList<>();
+        String lastDefined = null;
+        while (reader.next()) {
+            if (reader.templateId() == SymbolEncoder.TEMPLATE_ID) {
+                lastDefined = definition.wrap(reader.buffer(), reader.messageOffset()).symbol();
+                continue;
+            }
+            decoder.wrap(reader.buffer(), reader.messageOffset());
+            assertEquals(100.0 + decoder.symbolId(), decoder.price());
+            assertEquals("SYM" + decoder.symbolId(), lastDefined, "A new symbol should be defined before its tick");
+            symbolIds.add(decoder.symbolId());
+        }
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), symbolIds);
+        assertTrue(directory.resolve("ticks-00002.journal").toFile().exists(), "Should have rolled over to new segments");
+    }
+
+    @Test
+    void testSymbolIsDefinedOncePerIdUntilTheIdIsReused() throws Exception {
+        try (Journal journal = new Journal(directory, "ticks", 4096)) {
+            journal.appendTick(0, "AAPL", 150.0, 1000L);
+            journal.appendTick(0, "AAPL", 151.0, 1001L);
+            journal.appendTick(0, "MSFT", 300.0, 1002L); // Id 0 evicted and reused
+        }
+
+        JournalReader reader = new JournalReader(directory, "ticks");
+        SymbolDecoder definition = new SymbolDecoder();
+        List<String> records = new ArrayList<>();
+        while (reader.next()) {
+            records.add(reader.templateId() == SymbolEncoder.TEMPLATE_ID
+                    ? definition.wrap(reader.buffer(), reader.messageOffset()).symbol() : "tick");
+        }
+
+        assertEquals(List.of("AAPL", "tick", "tick", "MSFT", "tick"), records);
+    }
+
+    @Test
+    void testPublishedSnapshotsAreJournaled() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        List<MarketData> delivered = new ArrayList<>();
+        try (Journal journal = new Journal(directory, "published", 4096)) {
+            JournalingConsumer consumer = new JournalingConsumer(journal, delivered::add);
+            MarketDataBatch batch = new MarketDataBatch(registry);
+            batch.add(registry.idOf("AAPL"), 150.0, 1000L);
+            batch.add(registry.idOf("MSFT"), 300.0, 2000L);
+            consumer.publishBatch(batch);
+        }
+
+        JournalReader reader = new JournalReader(directory, "published");
+        SnapshotDecoder decoder = new SnapshotDecoder();
+        SymbolDecoder definition = new SymbolDecoder();
+        assertTrue(reader.next());
+        assertEquals("AAPL", definition.wrap(reader.buffer(), reader.messageOffset()).symbol());
+        assertTrue(reader.next());
+        assertEquals(SnapshotEncoder.TEMPLATE_ID, reader.templateId());
+        assertTrue(reader.next());
+        assertEquals("MSFT", definition.wrap(reader.buffer(), reader.messageOffset()).symbol());
+        assertTrue(reader.next());
+        decoder.wrap(reader.buffer(), reader.messageOffset());
+        assertEquals(registry.idOf("MSFT"), decoder.symbolId());
+        assertEquals(300.0, decoder.price());
+        assertFalse(reader.next());
+        assertEquals(2, delivered.size(), "Snapshots should still reach the real consumer");
+    }
+
+    @Test
+    void testInboundJournalReplaysIntoProcessorOfAFreshProcess() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry();
+        try (Journal inbound = new Journal(directory, "inbound", 1 << 20)) {
+            LmaxDisruptorMarketDataProcessor recording = LmaxDisruptorMarketDataProcessor.builder(md -> { })
+                    .registry(registry)
+                    .sideHandler(new JournalEventHandler(inbound, registry))
+                    .build();
+            for (int i = 0; i < 50; i++) {
+                recording.onMessage(new MarketData("SYM" + i, i, 1000L + i));
+            }
+            recording.shutdown(); // Drains the ring, so every tick is journaled
+        }
+
+        // A registry of another process, where every symbol gets a different id than when it was recorded
+        SymbolRegistry fresh = new SymbolRegistry();
+        fresh.idOf("OTHER");
+        List<MarketData> replayed = new CopyOnWriteArrayList<>();
+        LmaxDisruptorMarketDataProcessor replaying = new LmaxDisruptorMarketDataProcessor(
+                replayed::add, fresh, ThrottlePolicy.defaults());
+        long ticks = JournalReplayer.replay(new JournalReader(directory, "inbound"), fresh, replaying::onMessage,
+                JournalReplayer.Speed.MAX);
+        replaying.shutdown(); // Returns once every replayed tick has been handled
+
+        assertEquals(50, ticks);
+        assertEquals(50, replayed.stream().map(MarketData::getSymbol).distinct().count(),
+                "Replay should publish every recorded symbol");
+        for (MarketData data : replayed) {
+            assertEquals("SYM" + (int) data.getPrice(), data.getSymbol(), "Ticks should keep their recorded names");
+        }
+    }
+
+    @Test
+    void testReplayedBarsKeepTheRecordedQuantities() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        int btc = registry.idOf("BTC");
+        try (Journal inbound = new Journal(directory, "inbound", 1 << 20)) {
+            LmaxDisruptorMarketDataProcessor recording = LmaxDisruptorMarketDataProcessor.builder(md -> { })
+                    .registry(registry)
+                    .aggregateBars(true)
+                    .sideHandler(new JournalEventHandler(inbound, registry))
+                    .build();
+            recording.onMessage(btc, 100.0, 7, 1000L);
+            recording.shutdown();
+        }
+
+        List<Long> volumes = new CopyOnWriteArrayList<>();
+        LmaxDisruptorMarketDataProcessor replaying = LmaxDisruptorMarketDataProcessor.builder(new MarketDataConsumer() {
+            @Override
+            public void publish(MarketData data) {
+            }
+
+            @Override
+            public void publishBatch(MarketDataBatch batch) {
+                for (int i = 0; i < batch.size(); i++) {
+                    volumes.add(batch.volume(i));
+                }
+            }
+        }).registry(registry).aggregateBars(true).build();
+        JournalReplayer.replay(new JournalReader(directory, "inbound"), registry, replaying::onMessage,
+                JournalReplayer.Speed.MAX);
+        replaying.shutdown();
+
+        assertEquals(List.of(7L), volumes, "The bar volume should come from the journaled quantity");
+    }
+
+    @Test
+    void testRecordedSpeedKeepsTheGapsBetweenTicks() throws Exception {
+        ManualClock recordedAt = new ManualClock();
+        try (Journal journal = new Journal(directory, "paced", 4096, recordedAt)) {
+            for (int i = 0; i < 3; i++) {
+                journal.appendTick(i, "SYM" + i, 1.0, i);
+                recordedAt.advanceMillis(100);
+            }
+        }
+
+        long start = System.nanoTime();
+        long ticks = JournalReplayer.replay(new JournalReader(directory, "paced"), new SymbolRegistry(16),
+                (buffer, offset) -> {
+                }, JournalReplayer.Speed.RECORDED);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(3, ticks);
+        assertTrue(elapsedMs >= 200, "Replay should wait out the recorded gaps, took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testDequeProcessorJournalsInboundTicksForReplayElsewhere() throws Exception {
+        try (Journal inbound = new Journal(directory, "inbound", 4096)) {
+            DequeMarketDataProcessor recording = new DequeMarketDataProcessor(new SymbolRegistry(16),
+                    ThrottlePolicy.defaults(), new ManualClock(), false, inbound);
+            recording.onMessage(new MarketData("AAPL", 150.0, 1000L));
+            recording.onMessage(new MarketData("MSFT", 300.0, 1001L));
+            recording.onMessage(new MarketData("AAPL", 151.0, 1002L));
+        }
+
+        Map<String, Double> published = new TreeMap<>();
+        SymbolRegistry fresh = new SymbolRegistry(16);
+        fresh.idOf("OTHER");
+        BlockingQueueMarketDataProcessor replaying = new BlockingQueueMarketDataProcessor(fresh,
+                ThrottlePolicy.defaults(), new ManualClock(TimeUnit.SECONDS.toNanos(1_000)), false) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+                published.put(data.getSymbol(), data.getPrice());
+            }
+        };
+        long ticks = JournalReplayer.replay(new JournalReader(directory, "inbound"), fresh, replaying::onMessage,
+                JournalReplayer.Speed.MAX);
+        replaying.tick();
+
+        assertEquals(3, ticks);
+        assertEquals(Map.of("AAPL", 151.0, "MSFT", 300.0), published);
+    }
+
+    @Test
+    void testBlockingQueueProcessorJournalsTheQuantityOfEncodedTicks() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        ByteBuffer tick = ByteBuffer.allocate(TickEncoder.ENCODED_LENGTH);
+        new TickEncoder().wrap(tick, 0).symbolId(registry.idOf("BTC")).price(100.0).updateTime(1000L).quantity(7);
+        try (Journal inbound = new Journal(directory, "inbound", 4096)) {
+            BlockingQueueMarketDataProcessor recording = new BlockingQueueMarketDataProcessor(registry,
+                    ThrottlePolicy.defaults(), new ManualClock(), false, inbound);
+            recording.onMessage(tick, 0);
+        }
+
+        List<Long> quantities = new ArrayList<>();
+        long ticks = JournalReplayer.replay(new JournalReader(directory, "inbound"), new SymbolRegistry(16),
+                (buffer, offset) -> quantities.add(TickDecoder.quantity(buffer, offset)), JournalReplayer.Speed.MAX);
+
+        assertEquals(1, ticks);
+        assertEquals(List.of(7L), quantities);
+    }
+}
@@ -0,0 +1,56 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.max());
+        assertWithin(5_000_000, snapshot.valueAtPercentile(50));
+        assertWithin(9_900_000, snapshot.valueAtPercentile(99));
+        assertWithin(9_990_000, snapshot.valueAtPercentile(99.9));
+        assertEquals(10_000_000, snapshot.valueAtPercentile(100));
+    }
+
+    @Test
+    void testBucketsCoverTheWholeRange() {
+        long[] values = {0, 1, 63, 64, 65, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket < LatencyHistogram.BUCKET_COUNT, "Bucket out of range for " + value);
+            assertTrue(LatencyHistogram.highestValueIn(bucket) >= value, "Bucket should contain " + value);
+        }
+        for (int bucket = 1; bucket < LatencyHistogram.BUCKET_COUNT - 1; bucket++) {
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestValueIn(bucket - 1) + 1),
+                    "Buckets should be contiguous");
+        }
+    }
+
+    @Test
+    void testSnapshotsOfShardsAddUp() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(1_000);
+        second.record(2_000);
+        second.record(-5); // Clock skew is recorded as zero
+
+        HistogramSnapshot sum = first.snapshot().plus(second.snapshot());
+        assertEquals(3, sum.count());
+        assertEquals(2_000, sum.max());
+        assertEquals(0, sum.valueAtPercentile(1));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.035, "Expected ~" + expected + " but was " + actual);
+    }
+}
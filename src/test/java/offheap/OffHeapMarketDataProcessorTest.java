@@ -0,0 +1,132 @@
+package offheap;
+
+import org.junit.jupiter.api.Test;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import throttle.TieredRateLimiter;
+import utils.ManualClock;
+import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.OffHeapSymbolState;
+import utils.SymbolRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapMarketDataProcessorTest {
+
+    private static OffHeapMarketDataProcessor manual(SymbolRegistry registry, ThrottlePolicy policy, ManualClock clock,
+                                                     List<String> published) {
+        return new OffHeapMarketDataProcessor(registry, policy, clock, false) {
+            @Override
+            public void publishAggregatedBatch(MarketDataBatch batch) {
+                for (int i = 0; i < batch.size(); i++) {
+                    published.add(batch.symbol(i) + "@" + batch.price(i) + "/" + batch.updateTime(i));
+                }
+            }
+        };
+    }
+
+    @Test
+    void testPublishesTheLatestPriceOncePerInterval() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<String> published = new ArrayList<>();
+        OffHeapMarketDataProcessor processor = manual(registry, ThrottlePolicy.defaults(), clock, published);
+        int aapl = registry.idOf("AAPL");
+
+        processor.onMessage(aapl, 100.0, 1);
+        processor.tick();
+        for (int i = 2; i <= 10; i++) {
+            processor.onMessage(aapl, 100.0 + i, i);
+            clock.advanceMillis(100);
+            processor.tick();
+        }
+        assertEquals(List.of("AAPL@100.0/1"), published, "Updates during the cooldown are held back");
+
+        clock.advanceMillis(100);
+        processor.tick();
+        assertEquals(List.of("AAPL@100.0/1", "AAPL@110.0/10"), published, "Then only the latest is published");
+        assertEquals(8, processor.metrics().coalesced());
+        assertEquals(0, processor.metrics().waitingSymbols());
+        assertEquals(registry.capacity() * (long) OffHeapSymbolState.RECORD_SIZE, processor.offHeapBytes());
+    }
+
+    @Test
+    void testGlobalBudgetDefersTheRestToTheNextWindow() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+        SymbolRegistry registry = new SymbolRegistry();
+        List<String> published = new ArrayList<>();
+        OffHeapMarketDataProcessor processor = manual(registry,
+                new ThrottlePolicy(TieredRateLimiter.slidingWindow(3, 1000), new SymbolIntervals(0)), clock, published);
+
+        for (int i = 0; i < 5; i++) {
+            processor.onMessage(new MarketData("SYM" + i, i, 0));
+        }
+        processor.tick();
+        assertEquals(3, published.size());
+        assertEquals(2, processor.metrics().waitingSymbols());
+
+        clock.advanceMillis(1001);
+        processor.tick();
+        assertEquals(5, published.size());
+        assertEquals(0, processor.metrics().waitingSymbols());
+    }
+
+    @Test
+    void testRejectsUnknownSymbolIdsOnTheCallingThread() {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        List<String> published = new ArrayList<>();
+        OffHeapMarketDataProcessor processor = manual(registry, ThrottlePolicy.defaults(), new ManualClock(0), published);
+        int aapl = registry.idOf("AAPL");
+
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(registry.capacity(), 1.0, 1));
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(aapl + 1, 1.0, 1));
+        processor.tick();
+        assertTrue(published.isEmpty());
+        assertEquals(0, processor.metrics().waitingSymbols());
+    }
+
+    @Test
+    void testStateKeepsPriceAndTimeConsistentUnderConcurrentUpdates() throws InterruptedException {
+        OffHeapSymbolState state = new OffHeapSymbolState(4);
+        assertTrue(state.update(1, 10.0, 10), "The first update makes the symbol pending");
+        assertFalse(state.update(1, 11.0, 11));
+        long stamp = state.readStamp(1);
+        assertTrue(OffHeapSymbolState.isPending(stamp));
+        state.update(1, 12.0, 12);
+        assertFalse(state.clearPending(1, stamp), "A newer update keeps the symbol pending");
+        assertTrue(state.clearPending(1, state.readStamp(1)));
+        assertEquals(OffHeapSymbolState.NEVER_PUBLISHED, state.lastPublished(1));
+
+        // Writers keep price == updateTime, so a torn read would show up as a mismatch
+        int writers = 3;
+        CountDownLatch done = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            int offset = w;
+            new Thread(() -> {
+                for (long i = 0; i < 200_000; i++) {
+                    long value = i * writers + offset;
+                    state.update(2, value, value);
+                }
+                done.countDown();
+            }).start();
+        }
+        while (done.getCount() > 0) {
+            long readStamp;
+            double price;
+            long updateTime;
+            do {
+                readStamp = state.readStamp(2);
+                price = state.price(2);
+                updateTime = state.updateTime(2);
+            } while (!state.validate(2, readStamp));
+            assertEquals((double) updateTime, price);
+        }
+        done.await();
+    }
+}
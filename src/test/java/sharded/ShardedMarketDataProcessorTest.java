@@ -0,0 +1,117 @@
+package sharded;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.MarketData;
+import utils.SymbolRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedMarketDataProcessorTest {
+
+    private ShardedMarketDataProcessor processor;
+    private List<MarketData> publishedData;
+
+    @BeforeEach
+    void setUp() {
+        publishedData = new CopyOnWriteArrayList<>();
+
+        processor = new ShardedMarketDataProcessor(4) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+                publishedData.add(data);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void testGlobalThrottleLimitAcrossShards() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            processor.onMessage(new MarketData("SYM" + i, i, System.currentTimeMillis()));
+        }
+
+        TimeUnit.SECONDS.sleep(2);
+
+        // Default shared budget: paced at 100/sec plus a burst of 10
+        assertTrue(publishedData.size() <= 211, "Shards together should not exceed the global throttle limit");
+        assertTrue(publishedData.size() >= 180, "Shards together should use the global budget");
+    }
+
+    @Test
+    void testCarriedSymbolIdsAreCheckedOnTheCallingThread() {
+        processor.onMessage(new MarketData("MSFT", 1.0, 0)); // Gets id 0 here
+        MarketData foreign = new SymbolRegistry(16).marketData("AAPL", 1.0, 0); // Also id 0, in another registry
+
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(foreign), "Id of another symbol");
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(new MarketData(-2, "AAPL", 1.0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(new MarketData(1 << 20, "AAPL", 1.0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> processor.onMessage(new MarketData(5, "AAPL", 1.0, 0)),
+                "Id never assigned");
+    }
+
+    @Test
+    void testEventualPublishAllSymbols() throws InterruptedException {
+        for (int i = 0; i < 150; i++) {
+            processor.onMessage(new MarketData("SYM" + i, i, System.currentTimeMillis()));
+        }
+
+        TimeUnit.SECONDS.sleep(3);
+
+        assertTrue(publishedData.size() >= 140, "Should eventually publish most or all data");
+    }
+
+    @Test
+    void testSingleSymbolPublishOncePerSecond() throws InterruptedException {
+        String symbol = "AAPL";
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 10; i++) {
+            processor.onMessage(new MarketData(symbol, 100.0 + i, now + i * 10));
+            Thread.sleep(50);
+        }
+
+        TimeUnit.SECONDS.sleep(2);
+
+        long count = publishedData.stream().filter(md -> symbol.equals(md.getSymbol())).count();
+
+        assertTrue(count <= 2, "Should publish at most once per second for a symbol");
+    }
+
+    @Test
+    void testLatestDataIsPublishedFromConcurrentProducers() throws InterruptedException {
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            int offset = p * 25;
+            producers[p] = new Thread(() -> {
+                for (int i = offset; i < offset + 25; i++) {
+                    processor.onMessage(new MarketData("SYM" + i, 1.0, System.currentTimeMillis()));
+                    processor.onMessage(new MarketData("SYM" + i, 2.0, System.currentTimeMillis()));
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        TimeUnit.MILLISECONDS.sleep(1500);
+
+        long symbolsWithLatest = publishedData.stream()
+                .filter(md -> md.getPrice() == 2.0)
+                .map(MarketData::getSymbol)
+                .distinct()
+                .count();
+
+        assertEquals(100, symbolsWithLatest, "Every symbol should eventually publish its latest price");
+    }
+}
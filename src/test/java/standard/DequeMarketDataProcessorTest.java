@@ -2,10 +2,22 @@ package standard;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import metrics.MetricsSnapshot;
 import org.junit.jupiter.api.Test;
+import throttle.SignificanceFilter;
+import throttle.SymbolIntervals;
+import throttle.ThrottlePolicy;
+import throttle.TieredRateLimiter;
+import utils.EvictionPolicy;
+import utils.ManualClock;
 import utils.MarketData;
+import utils.MarketDataBatch;
+import utils.StarvationScenario;
+import utils.SymbolRegistry;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
@@ -13,6 +25,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class DequeMarketDataProcessorTest {
 
+    private final ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+    private final List<MarketData> published = new ArrayList<>();
     private DequeMarketDataProcessor processor;
     private List<MarketData> publishedData;
 
@@ -34,6 +48,19 @@ class DequeMarketDataProcessorTest {
         processor.shutdown();
     }
 
+    /**
+     * A processor on the test's ManualClock that publishes into published, and only when tick() is called:
+     * no sleeps, so the outcome does not depend on scheduling.
+     */
+    private DequeMarketDataProcessor manualProcessor(SymbolRegistry registry, ThrottlePolicy policy) {
+        return new DequeMarketDataProcessor(registry, policy, clock, false) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+                published.add(data);
+            }
+        };
+    }
+
     @Test
     void testSingleSymbolPublishOncePerSecond() throws InterruptedException {
         String symbol = "AAPL";
@@ -98,23 +125,269 @@ class DequeMarketDataProcessorTest {
     }
 
     @Test
-    void testNoDuplicateSymbolPublishWithinInterval() throws InterruptedException {
+    void testNoDuplicateSymbolPublishWithinInterval() {
+        DequeMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), ThrottlePolicy.defaults());
         String symbol = "ETH";
-        long now = System.currentTimeMillis();
 
-        processor.onMessage(new MarketData(symbol, 2000, now));
-        Thread.sleep(200); // give time for processing
-        processor.onMessage(new MarketData(symbol, 2001, now + 300));
-        Thread.sleep(200);
-        processor.onMessage(new MarketData(symbol, 2002, now + 600));
-        Thread.sleep(600); // total ~1.2s to allow full window
+        manual.onMessage(new MarketData(symbol, 2000, 0));
+        manual.tick();
+        clock.advanceMillis(300);
+        manual.onMessage(new MarketData(symbol, 2001, 300));
+        manual.tick();
+        clock.advanceMillis(300);
+        manual.onMessage(new MarketData(symbol, 2002, 600));
+        manual.tick();
+        clock.advanceMillis(399);
+        manual.tick();
 
-        long count = publishedData.stream()
-                .filter(md -> symbol.equals(md.getSymbol()))
-                .count();
+        assertEquals(1, published.size(), "Should publish only once per second per symbol");
 
-        assertTrue(count <= 1, "Should publish only once per second per symbol");
+        clock.advanceMillis(1);
+        manual.tick();
+
+        assertEquals(2, published.size(), "Should publish again once the interval has passed");
+        assertEquals(2002, published.get(1).getPrice(), "Should publish the latest data");
     }
 
-}
+    @Test
+    void testIdleSymbolsAreEvictedAndTheirIdsRecycled() {
+        SymbolRegistry registry = new SymbolRegistry(4, EvictionPolicy.idleFor(5_000).withQuarantineMs(1_000));
+        DequeMarketDataProcessor manual = manualProcessor(registry, ThrottlePolicy.defaults());
+
+        for (int i = 0; i < 3; i++) {
+            manual.onMessage(registry.marketData("OLD" + i, i, 0));
+        }
+        // HOT keeps ticking, the OLD symbols go quiet after their first update
+        for (int second = 0; second <= 6; second++) {
+            manual.onMessage(registry.marketData("HOT", second, second));
+            manual.tick();
+            clock.advanceMillis(1_000);
+        }
+
+        assertEquals(3, registry.evictedSymbols(), "Idle symbols should be evicted");
+        assertEquals(1, registry.size(), "The ticking symbol should stay registered");
+
+        // The registry is full without recycling: capacity 4, 4 symbols seen so far
+        published.clear();
+        for (int i = 0; i < 3; i++) {
+            manual.onMessage(registry.marketData("NEW" + i, i, 7));
+        }
+        manual.tick();
+
+        assertEquals(3, published.stream().filter(md -> md.getSymbol().startsWith("NEW")).count(),
+                "Symbols on recycled ids should publish at once, without the previous owner's cooldown");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("NEW" + i, registry.symbolOf(registry.idOf("NEW" + i)));
+        }
+    }
+
+    @Test
+    void testLateUpdateForEvictedSymbolIsNeverPublished() {
+        SymbolRegistry registry = new SymbolRegistry(2, EvictionPolicy.idleFor(5_000).withQuarantineMs(1_000));
+        DequeMarketDataProcessor manual = manualProcessor(registry, ThrottlePolicy.defaults());
+
+        int oldId = registry.idOf("OLD");
+        manual.onMessage(new MarketData(oldId, "OLD", 1, 0));
+        for (int second = 0; second <= 6; second++) {
+            manual.onMessage(registry.marketData("HOT", second, second));
+            manual.tick();
+            clock.advanceMillis(1_000);
+        }
+        assertNull(registry.symbolOf(oldId), "OLD should be evicted");
+
+        // A producer that looked the id up before the eviction still sends on it; only a send racing the eviction
+        // gets past this check, and the scheduler drops that one
+        published.clear();
+        assertThrows(IllegalArgumentException.class, () -> manual.onMessage(new MarketData(oldId, "OLD", 99, 7)));
+        manual.tick();
+        clock.advanceMillis(2_000);
+        manual.tick();
+        assertTrue(published.isEmpty(), "An update for an evicted id should be dropped");
+
+        int newId = registry.idOf("NEW");
+        assertEquals(oldId, newId, "The id should be recycled once its slot is empty");
+        manual.onMessage(new MarketData(newId, "NEW", 5, 9));
+        manual.tick();
+        assertEquals(1, published.size());
+        assertEquals("NEW", published.get(0).getSymbol());
+        assertEquals(5, published.get(0).getPrice(), "The evicted symbol's price should never go out as NEW");
+    }
+
+    @Test
+    void testMetricsCountCoalescingThrottlingAndLatency() {
+        DequeMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), ThrottlePolicy.defaults());
+
+        manual.onMessage(new MarketData("A", 1, 0));
+        manual.onMessage(new MarketData("A", 2, 0)); // Replaces the pending update
+        manual.onMessage(new MarketData("B", 1, 0));
+        manual.tick();
+        clock.advanceMillis(100);
+        manual.onMessage(new MarketData("A", 3, 100)); // Still in A's one-second cooldown
+        manual.tick();
+
+        MetricsSnapshot waiting = manual.metrics();
+        assertEquals(1, waiting.waitingSymbols(), "A should be waiting out its cooldown");
+        assertEquals(1, waiting.symbolThrottled());
+
+        clock.advanceMillis(900);
+        manual.tick();
+
+        MetricsSnapshot metrics = manual.metrics();
+        assertEquals(4, metrics.ingested());
+        assertEquals(1, metrics.coalesced());
+        assertEquals(3, metrics.published());
+        assertEquals(0, metrics.waitingSymbols());
+        assertEquals(MetricsSnapshot.NO_RING, metrics.ringRemainingCapacity());
+        long p100 = metrics.publishLatency().valueAtPercentile(100);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(900), p100, "The slowest publish waited 900ms");
+        assertEquals(0, metrics.publishLatency().valueAtPercentile(50), "Most publishes went out on their first tick");
+    }
+
+    @Test
+    void testInsignificantMovesDoNotSpendTheGlobalBudget() {
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(2, 1000),
+                new SymbolIntervals(0), new SignificanceFilter(SignificanceFilter.Threshold.of(0.05, 0)));
+        DequeMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), policy);
+        manual.onMessage(new MarketData("A", 10.0, 0));
+        manual.onMessage(new MarketData("B", 20.0, 0));
+        manual.tick();
+        clock.advanceMillis(1001); // The first two permits have left the window
+
+        manual.onMessage(new MarketData("A", 10.01, 1000)); // Noise
+        manual.onMessage(new MarketData("B", 20.01, 1000)); // Noise
+        manual.onMessage(new MarketData("C", 30.0, 1000));
+        manual.onMessage(new MarketData("D", 40.0, 1000));
+        manual.tick();
+
+        assertEquals(4, published.size());
+        assertEquals(Set.of("C", "D"), Set.of(published.get(2).getSymbol(), published.get(3).getSymbol()),
+                "Both permits of the second window go to symbols that moved");
+        assertEquals(2, manual.metrics().suppressed());
+        assertEquals(0, manual.metrics().waitingSymbols());
+    }
+
+    @Test
+    void testFullRegistryRejectsNewSymbolsButKeepsKnownOnes() {
+        SymbolRegistry registry = new SymbolRegistry(2);
+        DequeMarketDataProcessor manual = manualProcessor(registry, ThrottlePolicy.defaults());
+        manual.onMessage(new MarketData("A", 1.0, 0));
+        manual.onMessage(new MarketData("B", 2.0, 0));
+
+        IllegalStateException full = assertThrows(IllegalStateException.class,
+                () -> manual.onMessage(new MarketData("C", 3.0, 0)), "The registry does not grow");
+        assertTrue(full.getMessage().contains("capacity 2"));
+
+        manual.onMessage(new MarketData("A", 1.5, 1));
+        manual.tick();
+        assertEquals(2, published.size(), "Known symbols are unaffected");
+        assertEquals(1.5, published.stream().filter(d -> d.getSymbol().equals("A")).findFirst().get().getPrice());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void testPriorityLanesServeUrgentTierFirstButKeepTheOthersMinimum() {
+        SymbolIntervals intervals = new SymbolIntervals(0, 0);
+        SignificanceFilter significance = new SignificanceFilter(SignificanceFilter.Threshold.NONE,
+                new SignificanceFilter.Threshold(0, 0, 0.05, 0));
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(4, 1000, 0, 1), intervals,
+                significance, true);
+        SymbolRegistry registry = new SymbolRegistry();
+        DequeMarketDataProcessor manual = manualProcessor(registry, policy);
+        for (int i = 0; i < 6; i++) {
+            intervals.setTier(registry.idOf("N" + i), 1);
+            manual.onMessage(new MarketData("N" + i, 100.0, 0));
+        }
+        clock.advanceMillis(1); // Routine ticks arrived first
+        for (int i = 0; i < 6; i++) {
+            manual.onMessage(new MarketData("U" + i, 100.0, 1));
+        }
+        manual.tick();
+
+        assertEquals(4, published.size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(published.get(i).getSymbol().startsWith("U"), "The urgent lane goes first");
+        }
+        assertTrue(published.get(3).getSymbol().startsWith("N"), "Lane 1 still gets its reserved permit");
+        MetricsSnapshot metrics = manual.metrics();
+        assertEquals(2, metrics.laneCount());
+        assertEquals(3, metrics.publishLatency(0).count());
+        assertEquals(1, metrics.publishLatency(1).count());
+
+        clock.advanceMillis(1001);
+        String moved = published.get(3).getSymbol();
+        manual.onMessage(new MarketData(moved, 110.0, 1001)); // A 10% move from its last publish
+        manual.tick();
+
+        assertEquals(8, published.size());
+        assertEquals(moved, published.get(7).getSymbol(),
+                "A large move is tried in the urgent lane, ahead of routine ticks that waited longer");
+        assertEquals(7, manual.metrics().publishLatency(0).count(), "The deferred urgent symbols, then the large move");
+    }
+
+    @Test
+    void testSymbolsOfATierOutOfBudgetWaitAsideUntilItCanPublish() {
+        SymbolIntervals intervals = new SymbolIntervals(0, 0);
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(10, 1000, 0, 5), intervals);
+        SymbolRegistry registry = new SymbolRegistry();
+        DequeMarketDataProcessor manual = manualProcessor(registry, policy);
+        for (int i = 0; i < 20; i++) {
+            manual.onMessage(new MarketData("S" + i, 1.0, 0));
+            clock.advanceMillis(1);
+        }
+        manual.tick();
+
+        assertEquals(5, published.size(), "The idle tier keeps its 5 reserved permits");
+        assertEquals(15, manual.metrics().tierRejections(), "Each symbol is refused once, then set aside");
+        assertEquals(15, manual.metrics().waitingSymbols());
 
+        for (int i = 0; i < 10; i++) {
+            clock.advanceMillis(10);
+            manual.tick();
+        }
+        assertEquals(5, published.size());
+        assertEquals(15, manual.metrics().tierRejections(), "Ticks do not retry a tier that cannot publish");
+
+        clock.advanceMillis(1000);
+        manual.tick();
+        assertEquals(10, published.size());
+        for (int i = 5; i < 10; i++) {
+            assertEquals("S" + i, published.get(i).getSymbol(), "Set-aside symbols keep their place");
+        }
+        assertEquals(25, manual.metrics().tierRejections());
+        assertEquals(10, manual.metrics().waitingSymbols());
+    }
+
+    @Test
+    void testColdSymbolsAreNotStarvedByHotSymbols() {
+        DequeMarketDataProcessor manual = manualProcessor(new SymbolRegistry(), ThrottlePolicy.defaults());
+        StarvationScenario.assertColdSymbolsAreNotStarved(clock, manual::onMessage, manual::tick, published,
+                manual::maxObservedStalenessMs);
+    }
+
+    @Test
+    void testTickIsPublishedAsOneBatch() throws InterruptedException {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        List<String> batchedSymbols = new CopyOnWriteArrayList<>();
+        DequeMarketDataProcessor batching = new DequeMarketDataProcessor() {
+            @Override
+            public void publishAggregatedBatch(MarketDataBatch batch) {
+                batchSizes.add(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    batchedSymbols.add(batch.symbol(i));
+                }
+            }
+        };
+
+        try {
+            for (int i = 0; i < 50; i++) {
+                batching.onMessage(new MarketData("SYM" + i, i, System.currentTimeMillis()));
+            }
+            Thread.sleep(300);
+        } finally {
+            batching.shutdown();
+        }
+
+        assertEquals(50, batchedSymbols.stream().distinct().count(), "Every symbol should be delivered once");
+        assertTrue(batchSizes.size() < 50, "Symbols eligible in the same tick should share a batch");
+    }
+}
@@ -0,0 +1,94 @@
+package throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EligibilityQueueTest {
+
+    @Test
+    void testPollsInDeadlineOrder() {
+        EligibilityQueue queue = new EligibilityQueue(8);
+        queue.add(3, 300);
+        queue.add(1, 100);
+        queue.add(7, 700);
+        queue.add(5, 50);
+
+        assertEquals(50, queue.peekEligibleAt());
+        assertEquals(5, queue.poll());
+        assertEquals(1, queue.poll());
+        assertEquals(3, queue.poll());
+        assertEquals(7, queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(Long.MAX_VALUE, queue.peekEligibleAt());
+    }
+
+    @Test
+    void testAddingQueuedSymbolMovesItsDeadline() {
+        EligibilityQueue queue = new EligibilityQueue(4);
+        queue.add(0, 100);
+        queue.add(1, 200);
+        queue.add(0, 300);
+
+        assertEquals(2, queue.size(), "A symbol is queued at most once");
+        assertEquals(1, queue.poll());
+        queue.add(0, 10);
+        assertEquals(10, queue.peekEligibleAt());
+    }
+
+    @Test
+    void testLaneQueueTriesTheMostUrgentEligibleLaneFirst() {
+        LaneQueue queue = new LaneQueue(8, 3);
+        queue.add(0, 100, 2);
+        queue.add(1, 200, 1);
+        queue.add(2, 300, 0);
+
+        assertEquals(1, queue.nextEligible(250), "Lane 0 is not eligible yet, so lane 1 goes before lane 2");
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.nextEligible(300));
+        queue.add(0, 100, 0);
+        assertEquals(0, queue.nextEligible(300), "Moved to lane 0 with an earlier deadline");
+        assertEquals(0, queue.laneOf(0));
+        assertEquals(2, queue.size(), "A symbol is in one lane at a time");
+
+        queue.remove(0);
+        queue.add(3, 50, 7);
+        assertEquals(2, queue.laneOf(3), "Lanes past the last are the last");
+        assertEquals(2, queue.nextEligible(300));
+        assertEquals(-1, queue.nextEligible(40));
+    }
+
+    @Test
+    void testMatchesReferenceOrderUnderRandomOperations() {
+        int capacity = 512;
+        EligibilityQueue queue = new EligibilityQueue(capacity);
+        long[] expected = new long[capacity];
+        java.util.Arrays.fill(expected, -1);
+        Random random = new Random(42);
+
+        for (int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(capacity);
+            int op = random.nextInt(3);
+            if (op == 0) {
+                long deadline = random.nextInt(10_000);
+                queue.add(id, deadline);
+                expected[id] = deadline;
+            } else if (op == 1) {
+                queue.remove(id);
+                expected[id] = -1;
+            } else if (!queue.isEmpty()) {
+                long min = Long.MAX_VALUE;
+                for (long deadline : expected) {
+                    if (deadline >= 0) min = Math.min(min, deadline);
+                }
+                assertEquals(min, queue.peekEligibleAt());
+                int polled = queue.poll();
+                assertEquals(min, expected[polled]);
+                expected[polled] = -1;
+            }
+            assertEquals(expected[id] >= 0, queue.contains(id));
+        }
+    }
+}
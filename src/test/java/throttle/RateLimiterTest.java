@@ -0,0 +1,89 @@
+package throttle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static int acquireAll(RateLimiter limiter, long now) {
+        int granted = 0;
+        while (limiter.tryAcquire(now)) {
+            granted++;
+            if (granted > 10_000) fail("Limiter never ran out of permits");
+        }
+        return granted;
+    }
+
+    @Test
+    void testSlidingWindowAllowsMaxPermitsPerWindow() {
+        RateLimiter limiter = new SlidingWindowRateLimiter(100, 1000);
+
+        assertEquals(100, limiter.availablePermits(0));
+        assertEquals(100, acquireAll(limiter, 0));
+        assertEquals(0, limiter.availablePermits(999));
+        assertFalse(limiter.tryAcquire(1000), "Window is inclusive of its last millisecond");
+        assertEquals(100, acquireAll(limiter, 1001));
+    }
+
+    @Test
+    void testSlidingWindowExpiresPermitsOneByOne() {
+        RateLimiter limiter = new SlidingWindowRateLimiter(3, 100);
+
+        assertTrue(limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(50));
+        assertTrue(limiter.tryAcquire(60));
+        assertFalse(limiter.tryAcquire(100));
+        assertEquals(1, limiter.availablePermits(101));
+        assertEquals(2, limiter.availablePermits(151));
+    }
+
+    @Test
+    void testFixedWindowResetsAtWindowBoundary() {
+        RateLimiter limiter = new FixedWindowRateLimiter(10, 1000);
+
+        assertEquals(10, acquireAll(limiter, 500));
+        assertEquals(0, limiter.availablePermits(999));
+        assertEquals(10, acquireAll(limiter, 1000));
+    }
+
+    @Test
+    void testTokenBucketRefillsContinuously() {
+        RateLimiter limiter = new TokenBucketRateLimiter(100, 1000, 10);
+
+        assertEquals(10, acquireAll(limiter, 0), "Bucket starts full");
+        assertEquals(0, limiter.availablePermits(5));
+        assertEquals(1, limiter.availablePermits(10), "One token every 10ms");
+        assertEquals(10, limiter.availablePermits(10_000), "Refill is capped at the burst size");
+    }
+
+    @Test
+    void testGcraSpacesPermitsByEmissionInterval() {
+        RateLimiter limiter = new GcraRateLimiter(100, 1000, 5);
+
+        assertEquals(5, limiter.availablePermits(0));
+        assertEquals(5, acquireAll(limiter, 0), "Burst is granted back to back");
+        assertFalse(limiter.tryAcquire(9));
+        assertTrue(limiter.tryAcquire(10));
+        assertEquals(5, limiter.availablePermits(10_000));
+    }
+
+    @Test
+    void testSustainedRateMatchesConfiguredRate() {
+        RateLimiter[] limiters = {
+                new SlidingWindowRateLimiter(100, 1000),
+                new FixedWindowRateLimiter(100, 1000),
+                new TokenBucketRateLimiter(100, 1000, 1),
+                new GcraRateLimiter(100, 1000, 1),
+        };
+
+        for (RateLimiter limiter : limiters) {
+            int granted = 0;
+            for (long now = 0; now < 10_000; now++) {
+                if (limiter.tryAcquire(now)) granted++;
+            }
+            String name = limiter.getClass().getSimpleName();
+            assertTrue(granted >= 990 && granted <= 1000, name + " granted " + granted + " in 10s");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package throttle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottlePolicyTest {
+
+    private static final int MAJORS = 0;
+    private static final int ILLIQUID = 1;
+
+    @Test
+    void testSymbolsFollowTierIntervalUnlessOverridden() {
+        SymbolIntervals intervals = new SymbolIntervals(100, 5000);
+        intervals.ensureCapacity(4);
+        intervals.setTier(2, ILLIQUID);
+        intervals.setTier(3, ILLIQUID);
+        intervals.setSymbolInterval(3, 250);
+
+        assertEquals(100, intervals.intervalMs(0));
+        assertEquals(5000, intervals.intervalMs(2));
+        assertEquals(250, intervals.intervalMs(3));
+
+        intervals.setTierInterval(ILLIQUID, 2000);
+        assertEquals(2000, intervals.intervalMs(2), "Tier change applies at runtime");
+        assertEquals(250, intervals.intervalMs(3), "Override wins over the tier interval");
+
+        intervals.clearSymbolInterval(3);
+        assertEquals(2000, intervals.intervalMs(3));
+    }
+
+    @Test
+    void testCapacityGrowsForLateConfiguredSymbols() {
+        SymbolIntervals intervals = new SymbolIntervals(1000);
+        intervals.ensureCapacity(2);
+        intervals.setSymbolInterval(10, 50);
+
+        assertEquals(50, intervals.intervalMs(10));
+        assertEquals(1000, intervals.intervalMs(5));
+    }
+
+    @Test
+    void testBurstInOneTierCannotStarveAnotherTiersMinimum() {
+        ThrottlePolicy policy = new ThrottlePolicy(
+                TieredRateLimiter.slidingWindow(100, 1000, 20, 30),
+                new SymbolIntervals(100, 5000));
+        policy.bind(2);
+        policy.intervals().setTier(1, ILLIQUID);
+
+        int majors = 0;
+        while (policy.tryAcquire(0, 0)) majors++;
+        assertEquals(70, majors, "Majors may borrow everything except the illiquid minimum");
+        assertTrue(policy.hasCapacity(0));
+
+        int illiquid = 0;
+        while (policy.tryAcquire(1, 0)) illiquid++;
+        assertEquals(30, illiquid);
+        assertFalse(policy.hasCapacity(0));
+    }
+
+    @Test
+    void testUnusedReservationsAreLentOut() {
+        TieredRateLimiter budget = TieredRateLimiter.slidingWindow(10, 1000, 5, 5);
+
+        int illiquid = 0;
+        while (budget.tryAcquire(ILLIQUID, 0)) illiquid++;
+        assertEquals(5, illiquid, "Majors' untouched minimum is still held back");
+
+        int majors = 0;
+        while (budget.tryAcquire(MAJORS, 0)) majors++;
+        assertEquals(5, majors);
+        assertFalse(budget.tryAcquire(MAJORS, 999));
+        assertTrue(budget.tryAcquire(MAJORS, 1001), "Budget recovers after the window");
+    }
+
+    @Test
+    void testCanAcquireAnswersLikeTryAcquireWithoutTakingPermits() {
+        TieredRateLimiter budget = TieredRateLimiter.slidingWindow(4, 1000, 0, 2);
+
+        assertTrue(budget.canAcquire(MAJORS, 0));
+        assertTrue(budget.canAcquire(MAJORS, 0), "Asking takes nothing");
+        assertTrue(budget.tryAcquire(MAJORS, 0));
+        assertTrue(budget.tryAcquire(MAJORS, 0));
+        assertFalse(budget.canAcquire(MAJORS, 0), "The rest is held for the illiquid minimum");
+        assertFalse(budget.tryAcquire(MAJORS, 0));
+        assertTrue(budget.canAcquire(ILLIQUID, 0));
+        assertTrue(budget.hasCapacity(0));
+        assertTrue(budget.canAcquire(MAJORS, 1001), "Majors can publish again once the window slides");
+    }
+
+    @Test
+    void testSignificanceFilterSkipsSmallMovesAndShortensLargeOnes() {
+        SignificanceFilter filter = new SignificanceFilter(
+                new SignificanceFilter.Threshold(0.01, 0.0001, 0.01, 50),
+                SignificanceFilter.Threshold.of(0.5, 0));
+        ThrottlePolicy policy = new ThrottlePolicy(TieredRateLimiter.slidingWindow(100, 1000),
+                new SymbolIntervals(1000, 5000), filter);
+        policy.bind(3);
+        policy.intervals().setTier(1, ILLIQUID);
+
+        assertTrue(policy.isSignificant(0, 100.0), "A symbol that was never published is always significant");
+        policy.recordPublished(0, 100.0);
+        assertFalse(policy.isSignificant(0, 100.0), "Unchanged");
+        assertFalse(policy.isSignificant(0, 100.005), "Less than the absolute delta");
+        assertTrue(policy.isSignificant(0, 100.01));
+        assertFalse(policy.isSignificant(0, 99.995), "Moves down are measured the same way");
+
+        assertEquals(1000, policy.intervalMs(0, 100.5));
+        assertEquals(50, policy.intervalMs(0, 101.0), "A 1% move uses the large-move interval");
+        assertEquals(50, policy.intervalMs(0, 99.0));
+
+        policy.recordPublished(1, 10.0);
+        assertFalse(policy.isSignificant(1, 10.4), "Tier 1 needs 0.5");
+        filter.setSymbolThreshold(1, SignificanceFilter.Threshold.NONE);
+        assertTrue(policy.isSignificant(1, 10.0), "The override publishes every price");
+        assertEquals(5000, policy.intervalMs(1, 20.0));
+
+        policy.reset(1);
+        assertTrue(policy.isSignificant(1, 10.0), "A recycled id starts over");
+        policy.recordPublished(1, 10.0);
+        assertTrue(policy.isSignificant(1, 10.4), "Back in the default tier, without the override");
+    }
+
+    @Test
+    void testMinimumsMustFitTheGlobalBudget() {
+        assertThrows(IllegalArgumentException.class, () -> TieredRateLimiter.slidingWindow(10, 1000, 6, 5));
+    }
+}
@@ -0,0 +1,59 @@
+package utils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Shared test scenario: 300 symbols tick once, then the first 100 keep ticking every 50ms for 4.5 simulated
+ * seconds under the default limits (100 publishes/sec, 1/sec per symbol). The 100 hot symbols alone could use the
+ * whole budget if served first every time; oldest-eligible-first must still publish all 200 cold ones.
+ *
+ * Runs on a ManualClock, so it is deterministic and takes no wall-clock time.
+ */
+public final class StarvationScenario {
+
+    private static final int SYMBOLS = 300;
+    private static final int HOT_SYMBOLS = 100;
+    private static final long STEP_MS = 50;
+    private static final long DURATION_MS = 4_500;
+
+    private StarvationScenario() {
+    }
+
+    public static ManualClock clock() {
+        return new ManualClock(TimeUnit.SECONDS.toNanos(1_000));
+    }
+
+    /**
+     * @param clock     The clock the processor under test was built with, from clock().
+     * @param onMessage Delivers one tick to the processor.
+     * @param tick      Runs one publish pass at the clock's current time.
+     * @param published What the processor published so far.
+     * @param staleness The processor's maxObservedStalenessMs.
+     */
+    public static void assertColdSymbolsAreNotStarved(ManualClock clock, Consumer<MarketData> onMessage, Runnable tick,
+                                                      List<MarketData> published, LongSupplier staleness) {
+        for (int i = 0; i < SYMBOLS; i++) {
+            onMessage.accept(new MarketData("SYM" + i, i, clock.nanoTime() / 1_000_000));
+        }
+        for (long elapsed = 0; elapsed < DURATION_MS; elapsed += STEP_MS) {
+            for (int i = 0; i < HOT_SYMBOLS; i++) {
+                onMessage.accept(new MarketData("SYM" + i, i + 0.5, clock.nanoTime() / 1_000_000));
+            }
+            tick.run();
+            clock.advanceMillis(STEP_MS);
+        }
+        tick.run();
+
+        long distinct = published.stream().map(MarketData::getSymbol).distinct().count();
+        assertEquals(SYMBOLS, distinct, "Every symbol should get published despite the hot ones");
+        assertTrue(published.size() <= 500, "At most 100 publishes per second: " + published.size());
+        // 300 symbols need three seconds of budget; hot republishes and the 50ms tick add a little
+        assertTrue(staleness.getAsLong() <= 3_500, "Staleness should stay bounded: "
+                + staleness.getAsLong() + "ms");
+    }
+}